@@ -1029,6 +1029,35 @@ Error getSourceDocument(const json::JsonRpcRequest& request,
    return Success();
 }
 
+Error getSourceDocuments(const json::JsonRpcRequest& request,
+                         json::JsonRpcResponse* pResponse)
+{
+   json::Array ids;
+   Error error = json::readParams(request.params, &ids);
+   if (error)
+      return error;
+
+   // write each requested doc; docs which no longer exist are omitted
+   json::Array jsonDocs;
+   for (unsigned i = 0; i < ids.size(); i++)
+   {
+      boost::shared_ptr<SourceDocument> pDoc(new SourceDocument());
+      error = source_database::get(ids[i].get_str(), pDoc);
+      if (error)
+      {
+         LOG_ERROR(error);
+         continue;
+      }
+
+      json::Object jsonDoc;
+      writeDocToJson(pDoc, &jsonDoc);
+      jsonDocs.push_back(jsonDoc);
+   }
+   pResponse->setResult(jsonDocs);
+
+   return Success();
+}
+
 void onDocUpdated(boost::shared_ptr<SourceDocument> pDoc)
 {
    source_database::events().onDocUpdated(pDoc);
@@ -1197,8 +1226,12 @@ Error clientInitDocuments(core::json::Array* pJsonDocs)
       if (error)
          LOG_ERROR(error);
 
+      // the contents are left out of the init payload (they can be large, and
+      // the client keeps this list for the life of the session); windows
+      // fetch the contents of the docs they restore with get_source_documents
       json::Object jsonDoc ;
       writeDocToJson(pDoc, &jsonDoc);
+      jsonDoc.erase("contents");
       pJsonDocs->push_back(jsonDoc);
 
       source_database::events().onDocUpdated(pDoc);
@@ -1248,6 +1281,7 @@ Error initialize()
       (bind(registerRpcMethod, "get_script_run_command", getScriptRunCommand))
       (bind(registerRpcMethod, "set_doc_order", setDocOrder))
       (bind(registerRpcMethod, "get_source_document", getSourceDocument))
+      (bind(registerRpcMethod, "get_source_documents", getSourceDocuments))
       (bind(registerRpcMethod, "set_source_document_dirty", setSourceDocumentDirty))
       (bind(sourceModuleRFile, "SessionSource.R"));
    Error error = initBlock.execute();
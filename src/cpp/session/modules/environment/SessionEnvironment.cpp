@@ -1020,34 +1020,43 @@ Error removeAllObjects(const json::JsonRpcRequest& request,
    return Success();
 }
 
-// Return the contents of the given object. Called on-demand by the client when
-// the object is large enough that we don't want to get its contents
-// immediately (i.e. as part of environmentListAsJson)
-Error getObjectContents(const json::JsonRpcRequest& request,
-                        json::JsonRpcResponse* pResponse)
-
+// Return one page of the children of an object (or of a nested element of it,
+// identified by a path of child keys). Used by the client to expand large and
+// nested objects incrementally rather than fetching all their contents at once.
+Error getObjectContentsPage(const json::JsonRpcRequest& request,
+                            json::JsonRpcResponse* pResponse)
 {
    std::string objectName;
-   r::sexp::Protect protect;
-   SEXP objContents;
-   json::Value contents;
-   Error error = json::readParam(request.params, 0, &objectName);
+   json::Array path;
+   int offset, count, previewLimit;
+   Error error = json::readParams(request.params,
+                                  &objectName,
+                                  &path,
+                                  &offset,
+                                  &count,
+                                  &previewLimit);
    if (error)
       return error;
-   error = r::exec::RFunction(".rs.getObjectContents",
-                              objectName,
-                              s_pEnvironmentMonitor->getMonitoredEnvironment())
-                              .call(&objContents, &protect);
+
+   r::sexp::Protect protect;
+   SEXP pageSEXP;
+   r::exec::RFunction getPage(".rs.getObjectContentsPage");
+   getPage.addParam(objectName);
+   getPage.addParam(path);
+   getPage.addParam(offset);
+   getPage.addParam(count);
+   getPage.addParam(previewLimit);
+   getPage.addParam(s_pEnvironmentMonitor->getMonitoredEnvironment());
+   error = getPage.call(&pageSEXP, &protect);
    if (error)
       return error;
 
-   error = r::json::jsonValueFromObject(objContents, &contents);
+   json::Value page;
+   error = r::json::jsonValueFromObject(pageSEXP, &page);
    if (error)
       return error;
 
-   json::Object result;
-   result["contents"] = contents;
-   pResponse->setResult(result);
+   pResponse->setResult(page);
    return Success();
 }
 
@@ -1198,7 +1207,7 @@ Error initialize()
       (bind(registerRpcMethod, "remove_objects", removeObjects))
       (bind(registerRpcMethod, "remove_all_objects", removeAllObjects))
       (bind(registerRpcMethod, "get_environment_state", getEnv))
-      (bind(registerRpcMethod, "get_object_contents", getObjectContents))
+      (bind(registerRpcMethod, "get_object_contents_page", getObjectContentsPage))
       (bind(registerRpcMethod, "requery_context", requeryCtx))
       (bind(sourceModuleRFile, "SessionEnvironment.R"));
 
@@ -0,0 +1,45 @@
+/*
+ * ShortcutManager.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.command;
+
+// JVM stand-in for the client's ShortcutManager, which is injected and
+// brings in most of the application with it. KeyboardShortcut only needs
+// parseDisableModes, which is copied from it (without StringUtil, which
+// can't be initialized here).
+public class ShortcutManager
+{
+   public static int parseDisableModes(String disableModes)
+   {
+      int mode = KeyboardShortcut.MODE_NONE;
+      
+      if (disableModes == null || disableModes.length() == 0)
+         return mode;
+      
+      String[] splat = disableModes.split(",");
+      for (String item : splat)
+      {
+         if (item.equals("default"))
+            mode |= KeyboardShortcut.MODE_DEFAULT;
+         else if (item.equals("vim"))
+            mode |= KeyboardShortcut.MODE_VIM;
+         else if (item.equals("emacs"))
+            mode |= KeyboardShortcut.MODE_EMACS;
+         else
+            assert false: "Unrecognized 'disableModes' value '" + item + "'";
+      }
+      
+      return mode;
+   }
+}
@@ -0,0 +1,59 @@
+/*
+ * Match.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.regex;
+
+// JVM stand-in for the client's Match (see Pattern in this directory)
+public class Match
+{
+   Match(Pattern pattern, String input, int index, int next, String[] groups)
+   {
+      pattern_ = pattern;
+      input_ = input;
+      index_ = index;
+      next_ = next;
+      groups_ = groups;
+   }
+
+   public final String getValue()
+   {
+      return groups_[0];
+   }
+
+   public final int getIndex()
+   {
+      return index_;
+   }
+
+   public final Match nextMatch()
+   {
+      return pattern_.match(input_, next_);
+   }
+
+   public final String getGroup(int number)
+   {
+      return groups_[number];
+   }
+
+   public final boolean hasGroup(int number)
+   {
+      return number < groups_.length && groups_[number] != null;
+   }
+
+   private final Pattern pattern_;
+   private final String input_;
+   private final int index_;
+   private final int next_;
+   private final String[] groups_;
+}
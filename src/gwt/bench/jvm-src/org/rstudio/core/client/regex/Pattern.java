@@ -0,0 +1,143 @@
+/*
+ * Pattern.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.regex;
+
+import java.util.HashMap;
+import java.util.regex.Matcher;
+
+// JVM stand-in for the client's Pattern (a JavaScript RegExp), backed by
+// java.util.regex, so that classes which use it can be benchmarked. It is
+// found ahead of ../src on the benchmark source path and is never part of
+// the GWT build.
+//
+// The common syntax of the two is the same, but character classes such as
+// \s follow Java's (ASCII) definitions. The browser caches compiled
+// expressions, so compiled patterns are cached here too; otherwise code
+// which calls create() for every match would mostly measure compilation.
+public class Pattern
+{
+   public interface ReplaceOperation
+   {
+      String replace(Match m);
+   }
+
+   private Pattern(java.util.regex.Pattern pattern)
+   {
+      pattern_ = pattern;
+   }
+
+   public static Pattern create(String pattern)
+   {
+      return create(pattern, "gm");
+   }
+
+   public static Pattern create(String pattern, String flags)
+   {
+      String key = flags + "/" + pattern;
+      Pattern result = CACHE.get(key);
+      if (result == null)
+      {
+         int javaFlags = 0;
+         if (flags.indexOf('m') != -1)
+            javaFlags |= java.util.regex.Pattern.MULTILINE;
+         if (flags.indexOf('i') != -1)
+            javaFlags |= java.util.regex.Pattern.CASE_INSENSITIVE;
+         result = new Pattern(
+               java.util.regex.Pattern.compile(pattern, javaFlags));
+         CACHE.put(key, result);
+      }
+      return result;
+   }
+
+   public final int search(String string)
+   {
+      Matcher matcher = pattern_.matcher(string);
+      return matcher.find() ? matcher.start() : -1;
+   }
+
+   public final Match match(String input, int index)
+   {
+      if (index > input.length())
+         return null;
+
+      Matcher matcher = pattern_.matcher(input);
+      if (!matcher.find(index))
+         return null;
+
+      String[] groups = new String[matcher.groupCount() + 1];
+      for (int i = 0; i < groups.length; i++)
+         groups[i] = matcher.group(i);
+      return new Match(this, input, matcher.start(), matcher.end(), groups);
+   }
+
+   public final boolean test(String input)
+   {
+      return pattern_.matcher(input).find();
+   }
+
+   public static String escape(String str)
+   {
+      StringBuilder output = new StringBuilder();
+      for (int i = 0; i < str.length(); i++)
+      {
+         String hexStr = Integer.toHexString(str.charAt(i));
+         output.append("\\u");
+         for (int j = 4 - hexStr.length(); j > 0; j--)
+            output.append('0');
+         output.append(hexStr);
+      }
+      return output.toString();
+   }
+
+   public final String replaceAll(String str, String substr)
+   {
+      return pattern_.matcher(str).replaceAll(substr);
+   }
+
+   public final String replaceAll(String str, ReplaceOperation op)
+   {
+      StringBuilder result = new StringBuilder();
+      int tail = 0;
+      Match match = match(str, 0);
+      while (match != null)
+      {
+         if (tail < match.getIndex())
+            result.append(str, tail, match.getIndex());
+
+         result.append(op.replace(match));
+
+         tail = match.getIndex() + match.getValue().length();
+
+         match = match.nextMatch();
+      }
+
+      if (tail < str.length())
+         result.append(str, tail, str.length());
+
+      return result.toString();
+   }
+
+   public static String replace(String find,
+                                String repl,
+                                boolean caseSensitive)
+   {
+      return create(find, caseSensitive ? "g" : "ig").replaceAll(find, repl);
+   }
+
+   private final java.util.regex.Pattern pattern_;
+
+   private static final HashMap<String, Pattern> CACHE =
+         new HashMap<String, Pattern>();
+}
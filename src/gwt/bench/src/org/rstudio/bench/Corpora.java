@@ -0,0 +1,208 @@
+/*
+ * Corpora.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.Random;
+
+// Deterministic synthetic inputs for the benchmarks. Everything is generated
+// from a fixed seed, so that reports from different runs (and releases) 
+// measure the same work.
+public class Corpora
+{
+   // An R source file of (about) the given number of lines, with the mix of
+   // function definitions, pipelines, comments and strings of typical
+   // analysis code.
+   public static String rSource(int lines)
+   {
+      Random random = new Random(SEED);
+      StringBuilder builder = new StringBuilder();
+      int line = 0;
+      int fn = 0;
+      while (line < lines)
+      {
+         builder.append("# ---- Section ").append(fn).append(" ----\n");
+         builder.append("#' Summarise the ").append(pick(random, NOUNS))
+                .append(" by ").append(pick(random, NOUNS)).append(".\n");
+         builder.append("#' @param data A data frame.\n");
+         builder.append("summarise_").append(fn).append(" <- function(data, by = \"")
+                .append(pick(random, NOUNS)).append("\", na.rm = TRUE) {\n");
+         line += 4;
+         
+         int body = 4 + random.nextInt(12);
+         for (int i = 0; i < body && line < lines; i++, line++)
+         {
+            switch (random.nextInt(5))
+            {
+               case 0:
+                  builder.append("  ").append(pick(random, NOUNS)).append(" <- data$")
+                         .append(pick(random, NOUNS)).append("[!is.na(data$")
+                         .append(pick(random, NOUNS)).append(")]\n");
+                  break;
+               case 1:
+                  builder.append("  result <- data %>%\n    group_by(")
+                         .append(pick(random, NOUNS)).append(") %>%\n    summarise(mean = mean(")
+                         .append(pick(random, NOUNS)).append(", na.rm = na.rm))\n");
+                  line += 2;
+                  break;
+               case 2:
+                  builder.append("  # ").append(pick(random, NOUNS)).append(" values below ")
+                         .append(random.nextInt(1000)).append(" are treated as missing\n");
+                  break;
+               case 3:
+                  builder.append("  if (nrow(data) > ").append(random.nextInt(100))
+                         .append(") warning(\"large input: \", nrow(data), \" rows\")\n");
+                  break;
+               default:
+                  builder.append("  x").append(i).append(" <- c(")
+                         .append(random.nextInt(100)).append(", ")
+                         .append(random.nextDouble()).append(", ")
+                         .append(random.nextInt(100)).append("L)\n");
+                  break;
+            }
+         }
+         builder.append("  result\n}\n\n");
+         line += 3;
+         fn++;
+      }
+      return builder.toString();
+   }
+   
+   // The source with a single line edited somewhere in the middle, as when
+   // a document is saved after a small change.
+   public static String editInMiddle(String source)
+   {
+      int middle = source.indexOf('\n', source.length() / 2) + 1;
+      int end = source.indexOf('\n', middle);
+      return source.substring(0, middle) +
+             "  value <- value + 1  # edited\n" +
+             source.substring(end + 1);
+   }
+   
+   // A unified (git) diff touching the given number of files, each with the
+   // given number of hunks, drawn from generated R sources.
+   public static String unifiedDiff(int files, int hunksPerFile)
+   {
+      Random random = new Random(SEED);
+      StringBuilder builder = new StringBuilder();
+      for (int f = 0; f < files; f++)
+      {
+         String path = "R/" + pick(random, NOUNS) + "_" + f + ".R";
+         builder.append("diff --git a/").append(path).append(" b/").append(path).append('\n');
+         builder.append("index ").append(Integer.toHexString(random.nextInt()))
+                .append("..").append(Integer.toHexString(random.nextInt()))
+                .append(" 100644\n");
+         builder.append("--- a/").append(path).append('\n');
+         builder.append("+++ b/").append(path).append('\n');
+         
+         String[] lines = rSource(hunksPerFile * 40).split("\n");
+         int row = 0;
+         for (int h = 0; h < hunksPerFile; h++)
+         {
+            row += 10 + random.nextInt(20);
+            int removed = 1 + random.nextInt(4);
+            int added = 1 + random.nextInt(6);
+            builder.append("@@ -").append(row + 1).append(',').append(6 + removed)
+                   .append(" +").append(row + 1).append(',').append(6 + added)
+                   .append(" @@ ").append("summarise_").append(h).append(" <- function(data)\n");
+            for (int i = 0; i < 3; i++)
+               builder.append(' ').append(lines[(row + i) % lines.length]).append('\n');
+            for (int i = 0; i < removed; i++)
+               builder.append('-').append(lines[(row + 3 + i) % lines.length]).append('\n');
+            for (int i = 0; i < added; i++)
+               builder.append('+').append("  ").append(pick(random, NOUNS))
+                      .append(" <- ").append(random.nextInt(1000)).append('\n');
+            for (int i = 0; i < 3; i++)
+               builder.append(' ').append(lines[(row + 3 + removed + i) % lines.length]).append('\n');
+         }
+      }
+      return builder.toString();
+   }
+   
+   // A single CSV row of the given number of words, as stored in document
+   // properties (e.g. the spelling ignore list), with some fields quoted
+   // and some containing escaped quotes.
+   public static String csvRow(int words)
+   {
+      Random random = new Random(SEED);
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < words; i++)
+      {
+         if (i > 0)
+            builder.append(',');
+         
+         String word = pick(random, NOUNS) + i;
+         switch (random.nextInt(8))
+         {
+            case 0:
+               builder.append('"').append(word).append(", ").append(pick(random, NOUNS)).append('"');
+               break;
+            case 1:
+               builder.append("\"").append(word).append(" \"\"quoted\"\"\"");
+               break;
+            default:
+               builder.append(word);
+               break;
+         }
+      }
+      return builder.toString();
+   }
+   
+   // Rows of CSV, as returned for lists of help topics and the like.
+   public static String csvRows(int rows, int fields)
+   {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < rows; i++)
+         builder.append(csvRow(fields)).append('\n');
+      return builder.toString();
+   }
+   
+   // R Markdown front matter with the given number of output formats, each
+   // with a handful of nested options.
+   public static String yamlFrontMatter(int formats)
+   {
+      StringBuilder builder = new StringBuilder();
+      builder.append("title: \"Quarterly Report\"\n");
+      builder.append("author: \"Analytics\"\n");
+      builder.append("date: \"`r Sys.Date()`\"\n");
+      builder.append("output:\n");
+      for (int i = 0; i < formats; i++)
+      {
+         builder.append("  format_").append(i).append(":\n");
+         builder.append("    toc: true\n");
+         builder.append("    toc_depth: ").append(1 + i % 3).append('\n');
+         builder.append("    fig_width: 7\n");
+         builder.append("    fig_height: 5\n");
+         builder.append("    includes:\n");
+         builder.append("      in_header: header_").append(i).append(".html\n");
+      }
+      builder.append("params:\n");
+      builder.append("  region: \"east\"\n");
+      builder.append("  year: 2016\n");
+      return builder.toString();
+   }
+   
+   private static String pick(Random random, String[] values)
+   {
+      return values[random.nextInt(values.length)];
+   }
+   
+   private static final long SEED = 20160301L;
+   
+   private static final String[] NOUNS = {
+      "revenue", "region", "customer", "order", "product", "weight", "height",
+      "income", "species", "site", "sample", "batch", "score", "visit",
+      "patient", "dose", "response", "group", "treatment", "year"
+   };
+}
@@ -0,0 +1,84 @@
+/*
+ * CsvReaderBenchmark.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.core.client.CsvReader;
+
+// Reading CSV encoded document properties (a single, long row) and lists
+// (many short rows).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CsvReaderBenchmark
+{
+   @Param({"100", "10000"})
+   public int words;
+   
+   @Setup
+   public void setUp()
+   {
+      row_ = Corpora.csvRow(words);
+      rows_ = Corpora.csvRows(words / 10, 10);
+   }
+   
+   // scanning the field offsets of a row, without materializing the fields
+   @Benchmark
+   public int scanRow()
+   {
+      CsvReader.Fields fields = new CsvReader.Fields();
+      new CsvReader(row_).readRow(0, fields);
+      return fields.size();
+   }
+   
+   // reading every field of a row, as the spelling ignore list is parsed
+   @Benchmark
+   public int readRow()
+   {
+      CsvReader.Fields fields = new CsvReader.Fields();
+      new CsvReader(row_).readRow(0, fields);
+      int length = 0;
+      for (int i = 0, n = fields.size(); i < n; i++)
+         length += fields.get(i).length();
+      return length;
+   }
+   
+   @Benchmark
+   public int readRows()
+   {
+      int count = 0;
+      for (String[] row : new CsvReader(rows_))
+         count += row.length;
+      return count;
+   }
+   
+   private String row_;
+   private String rows_;
+}
@@ -0,0 +1,208 @@
+/*
+ * KeyDispatchBenchmark.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.core.client.command.KeyDispatchTable;
+import org.rstudio.core.client.command.KeyMap;
+import org.rstudio.core.client.command.KeyMap.CommandBinding;
+import org.rstudio.core.client.command.KeyboardShortcut;
+import org.rstudio.core.client.command.KeyboardShortcut.KeySequence;
+
+// Resolving keystrokes against the active key maps, as ShortcutManager does
+// for every key pressed in the editor: once by querying each key map in
+// turn (as before the dispatch table) and once through the compiled
+// KeyDispatchTable. The keystrokes are mostly plain typing, with some
+// bound shortcuts and some Emacs-style (Ctrl+X prefixed) sequences.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class KeyDispatchBenchmark
+{
+   // bindings in each of the key maps (application, editor, addins, user)
+   @Param({"100", "500"})
+   public int bindings;
+   
+   @Setup
+   public void setUp()
+   {
+      Random random = new Random(SEED);
+      
+      keyMaps_ = new ArrayList<KeyMap>();
+      for (int m = 0; m < KEY_MAPS; m++)
+      {
+         KeyMap map = new KeyMap();
+         for (int b = 0; b < bindings; b++)
+         {
+            Binding binding = new Binding("command" + m + "_" + b,
+                                          random.nextInt(10) != 0);
+            KeySequence keys = new KeySequence(
+                  KEY_A + random.nextInt(26),
+                  MODIFIERS[random.nextInt(MODIFIERS.length)]);
+            
+            // some commands are bound to a sequence following Ctrl+X
+            if (random.nextInt(8) == 0)
+            {
+               keys = new KeySequence(KEY_X, KeyboardShortcut.CTRL);
+               keys.add(KEY_A + random.nextInt(26), KeyboardShortcut.NONE);
+            }
+            map.addBinding(keys, binding);
+         }
+         keyMaps_.add(map);
+      }
+      table_ = KeyDispatchTable.compile(keyMaps_);
+      
+      keystrokes_ = new KeySequence[KEYSTROKES];
+      for (int i = 0; i < KEYSTROKES; i++)
+      {
+         int kind = random.nextInt(10);
+         if (kind < 7)
+         {
+            // typing
+            keystrokes_[i] = new KeySequence(
+                  KEY_A + random.nextInt(26),
+                  random.nextInt(4) == 0 ? KeyboardShortcut.SHIFT :
+                                           KeyboardShortcut.NONE);
+         }
+         else if (kind < 9)
+         {
+            // a shortcut
+            keystrokes_[i] = new KeySequence(
+                  KEY_A + random.nextInt(26),
+                  MODIFIERS[random.nextInt(MODIFIERS.length)]);
+         }
+         else
+         {
+            // the second key of a prefixed sequence
+            keystrokes_[i] = new KeySequence(KEY_X, KeyboardShortcut.CTRL);
+            keystrokes_[i].add(KEY_A + random.nextInt(26),
+                               KeyboardShortcut.NONE);
+         }
+      }
+   }
+   
+   @Benchmark
+   public int keyMaps()
+   {
+      int resolved = 0;
+      for (KeySequence keys : keystrokes_)
+      {
+         for (KeyMap map : keyMaps_)
+         {
+            if (map.getActiveBinding(keys) != null)
+            {
+               resolved++;
+               break;
+            }
+            if (map.isPrefix(keys))
+               resolved++;
+         }
+      }
+      return resolved;
+   }
+   
+   @Benchmark
+   public int dispatchTable()
+   {
+      int resolved = 0;
+      for (KeySequence keys : keystrokes_)
+      {
+         KeyDispatchTable.Node node = table_.find(keys);
+         if (node == null)
+            continue;
+         if (node.getActiveBinding() != null)
+            resolved++;
+         else if (node.isPrefix())
+            resolved++;
+      }
+      return resolved;
+   }
+   
+   // rebuilding the table after bindings change
+   @Benchmark
+   public KeyDispatchTable compile()
+   {
+      return KeyDispatchTable.compile(keyMaps_);
+   }
+   
+   private static class Binding implements CommandBinding
+   {
+      public Binding(String id, boolean enabled)
+      {
+         id_ = id;
+         enabled_ = enabled;
+      }
+      
+      @Override
+      public String getId()
+      {
+         return id_;
+      }
+      
+      @Override
+      public void execute()
+      {
+      }
+      
+      @Override
+      public boolean isEnabled()
+      {
+         return enabled_;
+      }
+      
+      @Override
+      public boolean isUserDefinedBinding()
+      {
+         return false;
+      }
+      
+      private final String id_;
+      private final boolean enabled_;
+   }
+   
+   private ArrayList<KeyMap> keyMaps_;
+   private KeyDispatchTable table_;
+   private KeySequence[] keystrokes_;
+   
+   private static final long SEED = 20160101L;
+   private static final int KEY_MAPS = 4;
+   private static final int KEYSTROKES = 1000;
+   private static final int KEY_A = 65;
+   private static final int KEY_X = 88;
+   private static final int[] MODIFIERS = {
+      KeyboardShortcut.CTRL,
+      KeyboardShortcut.CTRL | KeyboardShortcut.SHIFT,
+      KeyboardShortcut.ALT,
+      KeyboardShortcut.CTRL | KeyboardShortcut.ALT,
+      KeyboardShortcut.META
+   };
+}
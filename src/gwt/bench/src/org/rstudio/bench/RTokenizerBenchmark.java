@@ -0,0 +1,75 @@
+/*
+ * RTokenizerBenchmark.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.studio.client.common.r.RToken;
+import org.rstudio.studio.client.common.r.RTokenizer;
+
+// Tokenizing R source with RTokenizer (which reads, e.g., Sweave chunk
+// options). Regular expressions run on the JVM stand-in for the client's
+// Pattern (see jvm-src).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RTokenizerBenchmark
+{
+   // smaller than the other corpora: a failed peek() searches the rest of
+   // the input (as RegExp.exec does in the browser), so the cost of
+   // tokenizing grows with the square of the input size
+   @Param({"1000", "5000"})
+   public int lines;
+   
+   @Setup
+   public void setUp()
+   {
+      source_ = Corpora.rSource(lines);
+   }
+   
+   @Benchmark
+   public ArrayList<RToken> asTokens()
+   {
+      return RTokenizer.asTokens(source_);
+   }
+   
+   // walking the tokens without collecting them
+   @Benchmark
+   public int nextToken()
+   {
+      RTokenizer tokenizer = new RTokenizer(source_);
+      int count = 0;
+      while (tokenizer.nextToken() != null)
+         count++;
+      return count;
+   }
+   
+   private String source_;
+}
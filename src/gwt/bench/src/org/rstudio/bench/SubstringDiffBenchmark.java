@@ -0,0 +1,77 @@
+/*
+ * SubstringDiffBenchmark.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.core.client.patch.SubstringDiff;
+
+// Computing the change between the saved and current contents of a document
+// (as DocUpdateSentinel does before sending a save to the server).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SubstringDiffBenchmark
+{
+   @Param({"1000", "20000"})
+   public int lines;
+   
+   @Setup
+   public void setUp()
+   {
+      original_ = Corpora.rSource(lines);
+      edited_ = Corpora.editInMiddle(original_);
+      
+      // a different string with the same contents, so that the diff can't
+      // short-circuit on identity
+      unchanged_ = new String(original_.toCharArray());
+   }
+   
+   @Benchmark
+   public SubstringDiff singleEdit()
+   {
+      return new SubstringDiff(original_, edited_);
+   }
+   
+   @Benchmark
+   public SubstringDiff unchanged()
+   {
+      return new SubstringDiff(original_, unchanged_);
+   }
+   
+   @Benchmark
+   public String patch()
+   {
+      return new SubstringDiff(original_, edited_).patch(original_);
+   }
+   
+   private String original_;
+   private String edited_;
+   private String unchanged_;
+}
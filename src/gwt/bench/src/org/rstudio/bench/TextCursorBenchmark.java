@@ -0,0 +1,94 @@
+/*
+ * TextCursorBenchmark.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.core.client.TextCursor;
+
+// Scanning R code with a TextCursor: matching brackets (e.g. to find the
+// extent of a function call) and skipping between words with regular
+// expressions (as chunk headers are parsed).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TextCursorBenchmark
+{
+   @Param({"1000", "20000"})
+   public int lines;
+   
+   @Setup
+   public void setUp()
+   {
+      source_ = Corpora.rSource(lines);
+      
+      int count = 0;
+      for (int i = 0; i < source_.length(); i++)
+         if (source_.charAt(i) == '(' || source_.charAt(i) == '{')
+            count++;
+      
+      brackets_ = new int[count];
+      count = 0;
+      for (int i = 0; i < source_.length(); i++)
+         if (source_.charAt(i) == '(' || source_.charAt(i) == '{')
+            brackets_[count++] = i;
+   }
+   
+   // finding the matching bracket for every opening bracket
+   @Benchmark
+   public int matchBrackets()
+   {
+      int total = 0;
+      for (int i = 0; i < brackets_.length; i++)
+      {
+         TextCursor cursor = new TextCursor(source_, brackets_[i]);
+         if (cursor.fwdToMatchingCharacter())
+            total += cursor.getIndex();
+      }
+      return total;
+   }
+   
+   // stepping from word to word through the whole source
+   @Benchmark
+   public int consumeWords()
+   {
+      TextCursor cursor = new TextCursor(source_);
+      int words = 0;
+      while (cursor.consumeUntilRegex("\\S"))
+      {
+         words++;
+         if (!cursor.consumeUntilRegex("\\s"))
+            break;
+      }
+      return words;
+   }
+   
+   private String source_;
+   private int[] brackets_;
+}
@@ -0,0 +1,69 @@
+/*
+ * UnifiedParserBenchmark.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.studio.client.workbench.views.vcs.common.diff.DiffChunk;
+import org.rstudio.studio.client.workbench.views.vcs.common.diff.UnifiedParser;
+
+// Parsing the output of 'git diff' for the Review Changes view.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UnifiedParserBenchmark
+{
+   @Param({"10", "200"})
+   public int files;
+   
+   @Param({"50"})
+   public int hunksPerFile;
+   
+   @Setup
+   public void setUp()
+   {
+      diff_ = Corpora.unifiedDiff(files, hunksPerFile);
+   }
+   
+   @Benchmark
+   public int parse()
+   {
+      int lines = 0;
+      UnifiedParser parser = new UnifiedParser(diff_);
+      while (parser.nextFilePair() != null)
+      {
+         DiffChunk chunk;
+         while (null != (chunk = parser.nextChunk()))
+            lines += chunk.getLines().size();
+      }
+      return lines;
+   }
+   
+   private String diff_;
+}
@@ -0,0 +1,72 @@
+/*
+ * YamlTreeBenchmark.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rstudio.studio.client.rmarkdown.model.YamlTree;
+
+// Parsing and rewriting R Markdown front matter, as done when the output
+// options of a document are edited.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class YamlTreeBenchmark
+{
+   @Param({"3", "50"})
+   public int formats;
+   
+   @Setup
+   public void setUp()
+   {
+      yaml_ = Corpora.yamlFrontMatter(formats);
+   }
+   
+   @Benchmark
+   public YamlTree parse()
+   {
+      return new YamlTree(yaml_);
+   }
+   
+   @Benchmark
+   public String roundTrip()
+   {
+      YamlTree tree = new YamlTree(yaml_);
+      tree.setKeyValue("title", "\"Annual Report\"");
+      return tree.toString();
+   }
+   
+   @Benchmark
+   public int childKeys()
+   {
+      return new YamlTree(yaml_).getChildKeys("output").size();
+   }
+   
+   private String yaml_;
+}
@@ -0,0 +1,357 @@
+/*
+ * ConsoleRenderer.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.regex.Match;
+import org.rstudio.core.client.regex.Pattern;
+import org.rstudio.studio.client.RStudioGinjector;
+import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
+
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Node;
+import com.google.gwt.dom.client.SpanElement;
+import com.google.gwt.dom.client.Text;
+import com.google.inject.Inject;
+
+/**
+ * Streams console output into a DOM element, honoring \r (carriage return),
+ * \b (backspace) and \f (form feed) in the same way as VirtualConsole.
+ * 
+ * Output is kept as a list of lines, each holding its text and the runs of
+ * characters sharing a CSS class. Only the last line can be modified by 
+ * control characters, so completed lines are rendered once and never 
+ * touched again; the last line is patched in place, either by appending the
+ * newly written characters or (if characters were overwritten) by 
+ * rebuilding just that line. When a maximum line count is set, the oldest 
+ * lines are dropped from the model and the DOM as new lines arrive.
+ */
+public class ConsoleRenderer
+{
+   public ConsoleRenderer(Element parent)
+   {
+      RStudioGinjector.INSTANCE.injectMembers(this);
+      parent_ = parent;
+   }
+   
+   @Inject
+   private void initialize(UIPrefs prefs)
+   {
+      prefs_ = prefs;
+   }
+   
+   // Sets the maximum number of lines to retain; values <= 0 mean no limit.
+   public void setMaxLines(int maxLines)
+   {
+      maxLines_ = maxLines;
+      trimExcess();
+   }
+   
+   public int getMaxLines()
+   {
+      return maxLines_;
+   }
+   
+   // When set, a newline is displayed after a non-empty last line (so that
+   // content following the renderer begins on its own line). The newline is
+   // not part of the model; further output continues the last line.
+   public void setTerminateLastLine(boolean terminate)
+   {
+      terminateLastLine_ = terminate;
+   }
+   
+   // Returns the number of newlines currently displayed.
+   public int getLineCount()
+   {
+      int count = lines_.size() - head_;
+      if (terminateLastLine_ && current_.length() > 0)
+         count++;
+      return count;
+   }
+   
+   public Element getElement()
+   {
+      return parent_;
+   }
+   
+   // Adds the given data to the console and updates the DOM to match.
+   public void write(String data, String className)
+   {
+      submit(data, className);
+      render();
+   }
+   
+   // Adds the given data to the console without updating the DOM; call
+   // render() once a batch of submissions is complete.
+   public void submit(String data, String className)
+   {
+      if (StringUtil.isNullOrEmpty(data))
+         return;
+      
+      int tail = 0;
+      Match match = CONTROL.match(data, 0);
+      while (match != null)
+      {
+         int pos = match.getIndex();
+         text(data.substring(tail, pos), className);
+         tail = pos + 1;
+         
+         switch (data.charAt(pos))
+         {
+            case '\r':
+               col_ = 0;
+               break;
+            case '\b':
+               backspace();
+               break;
+            case '\n':
+               newline();
+               break;
+            case '\f':
+               clear();
+               break;
+         }
+         
+         match = match.nextMatch();
+      }
+      
+      text(data.substring(tail), className);
+      trimExcess();
+   }
+   
+   // Brings the DOM up to date with the lines submitted so far.
+   public void render()
+   {
+      for (int i = Math.max(stale_, head_); i < lines_.size(); i++)
+         renderLine(lines_.get(i), true);
+      renderLine(current_, terminateLastLine_ && current_.length() > 0);
+      stale_ = lines_.size();
+   }
+   
+   public void clear()
+   {
+      lines_.clear();
+      head_ = 0;
+      stale_ = 0;
+      current_ = new Line();
+      col_ = 0;
+      parent_.setInnerHTML("");
+   }
+   
+   private void text(String text, String className)
+   {
+      if (text.length() == 0)
+         return;
+      current_.write(col_, text, className);
+      col_ += text.length();
+   }
+   
+   private void backspace()
+   {
+      // backspace never crosses a line boundary
+      if (col_ == 0)
+         return;
+      current_.delete(--col_);
+   }
+   
+   private void newline()
+   {
+      lines_.add(current_);
+      current_ = new Line();
+      col_ = 0;
+   }
+   
+   private void trimExcess()
+   {
+      if (maxLines_ <= 0)
+         return;
+      
+      while (head_ < lines_.size() && getLineCount() > maxLines_)
+      {
+         Line line = lines_.get(head_);
+         if (line.element != null)
+            line.element.removeFromParent();
+         lines_.set(head_, null);
+         head_++;
+      }
+      
+      // drop the trimmed slots once they make up most of the list, so that
+      // trimming costs amortized constant time per line
+      if (head_ >= COMPACT_THRESHOLD && head_ * 2 >= lines_.size())
+      {
+         lines_ = new ArrayList<Line>(lines_.subList(head_, lines_.size()));
+         stale_ = Math.max(0, stale_ - head_);
+         head_ = 0;
+      }
+   }
+   
+   private void renderLine(Line line, boolean terminate)
+   {
+      if (line.element == null)
+      {
+         if (line.length() == 0 && !terminate)
+            return;
+         line.element = Document.get().createSpanElement();
+         parent_.appendChild(line.element);
+      }
+      
+      int length = line.length();
+      int maxLength = prefs_.truncateLongLinesInConsoleHistory().getGlobalValue();
+      boolean truncate = maxLength > 0 && length > maxLength;
+      
+      if (line.dirty || truncate || line.truncated)
+      {
+         // characters were overwritten (or the line is too long to show in
+         // full); rebuild the line from its runs
+         line.element.setInnerHTML("");
+         line.tail = null;
+         line.tailClass = null;
+         line.newline = null;
+         line.truncated = false;
+         line.rendered = 0;
+         
+         if (truncate)
+         {
+            String trimmed = StringUtil.trimRight(line.text.toString());
+            emit(line, 0, maxLength);
+            if (trimmed.length() > maxLength)
+               appendText(line, "... <truncated>", null);
+            line.truncated = true;
+         }
+         else
+         {
+            emit(line, 0, length);
+         }
+         line.dirty = false;
+      }
+      else if (line.rendered < length)
+      {
+         emit(line, line.rendered, length);
+      }
+      line.rendered = length;
+      
+      if (terminate && line.newline == null)
+      {
+         line.newline = Document.get().createTextNode("\n");
+         line.element.appendChild(line.newline);
+      }
+      else if (!terminate && line.newline != null)
+      {
+         line.newline.removeFromParent();
+         line.newline = null;
+      }
+   }
+   
+   // emits the characters of the line in [start, end), one node per run
+   private void emit(Line line, int start, int end)
+   {
+      StyleRuns runs = line.runs;
+      for (int i = runs.findRun(start); i < runs.getRunCount(); i++)
+      {
+         if (runs.getRunStart(i) >= end)
+            break;
+         appendText(line,
+               line.text.substring(Math.max(start, runs.getRunStart(i)),
+                                   Math.min(end, runs.getRunEnd(i))),
+               runs.getRunClass(i));
+      }
+   }
+   
+   private void appendText(Line line, String text, String clazz)
+   {
+      // extend the last node emitted if it has the same class, rather than
+      // creating a new node for every write
+      if (line.tail != null && StyleRuns.sameClass(clazz, line.tailClass))
+      {
+         line.tail.insertData(line.tail.getLength(), text);
+         return;
+      }
+      
+      Text textNode = Document.get().createTextNode(text);
+      Node node = textNode;
+      if (clazz != null)
+      {
+         SpanElement span = Document.get().createSpanElement();
+         span.setClassName(clazz);
+         span.appendChild(textNode);
+         node = span;
+      }
+      line.element.insertBefore(node, line.newline);
+      line.tail = textNode;
+      line.tailClass = clazz;
+   }
+   
+   private static class Line
+   {
+      public int length()
+      {
+         return text.length();
+      }
+      
+      // writes text at the given column, overwriting any characters already
+      // there
+      public void write(int col, String data, String clazz)
+      {
+         int end = col + data.length();
+         if (col == text.length())
+            text.append(data);
+         else
+            text.replace(col, Math.min(end, text.length()), data);
+         runs.set(col, end, clazz);
+         
+         if (col < rendered)
+            dirty = true;
+      }
+      
+      // deletes the character at the given column
+      public void delete(int col)
+      {
+         text.deleteCharAt(col);
+         runs.delete(col);
+         
+         if (col < rendered)
+            dirty = true;
+      }
+      
+      final StringBuilder text = new StringBuilder();
+      final StyleRuns runs = new StyleRuns();
+      
+      // rendering state
+      SpanElement element;
+      Text tail;
+      String tailClass;
+      Text newline;
+      int rendered;
+      boolean dirty;
+      boolean truncated;
+   }
+   
+   private final Element parent_;
+   private ArrayList<Line> lines_ = new ArrayList<Line>();
+   private Line current_ = new Line();
+   private int col_ = 0;
+   private int head_ = 0;
+   private int stale_ = 0;
+   private int maxLines_ = -1;
+   private boolean terminateLastLine_ = false;
+   
+   private static final int COMPACT_THRESHOLD = 256;
+   private static final Pattern CONTROL = Pattern.create("[\r\b\f\n]");
+   
+   // Injected ----
+   private UIPrefs prefs_;
+}
@@ -14,9 +14,12 @@
  */
 package org.rstudio.core.client;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 
+// Reads rows of comma separated values. Rows are scanned in place: the
+// reader records the offsets of each field within the data and only creates
+// strings for fields as they are requested (as substrings, with an extra
+// copy only for quoted fields containing escaped quotes).
 public class CsvReader implements Iterable<String[]>
 {
    public CsvReader(String data)
@@ -29,6 +32,7 @@ public class CsvReader implements Iterable<String[]>
       return new Iterator<String[]>()
       {
          private int pos = 0;
+         private final Fields fields = new Fields();
 
          public boolean hasNext()
          {
@@ -37,72 +41,148 @@ public class CsvReader implements Iterable<String[]>
 
          public String[] next()
          {
-            ArrayList<String> list = new ArrayList<String>();
-            StringBuilder chunk = new StringBuilder();
+            pos = readRow(pos, fields);
+            return fields.toArray();
+         }
 
-            final int START = 0;
-            final int IN_UNQUOTED = 1;
-            final int IN_QUOTE = 2;
-            final int QUOTE_ENDED = 3;
+         public void remove()
+         {
+            throw new UnsupportedOperationException();
+         }
+      };
+   }
 
-            int state = START;
-            for ( ; pos < data_.length(); pos++)
-            {
-               char c = data_.charAt(pos);
+   // Scans the row starting at the given offset, recording the bounds of
+   // its fields in fields (replacing any previous contents). Returns the
+   // offset at which the next row starts.
+   public int readRow(int pos, Fields fields)
+   {
+      final int START = 0;
+      final int IN_UNQUOTED = 1;
+      final int IN_QUOTE = 2;
+      final int QUOTE_ENDED = 3;
+
+      fields.reset(data_);
 
-               if (c == '\n' && state != IN_QUOTE)
+      int length = data_.length();
+      int state = START;
+      int start = pos;
+      int end = length;
+      boolean escaped = false;
+      for ( ; pos < length; pos++)
+      {
+         char c = data_.charAt(pos);
+
+         if (state == IN_QUOTE)
+         {
+            if (c == '"')
+            {
+               if (pos < length - 1 && data_.charAt(pos + 1) == '"')
                {
+                  escaped = true;
                   pos++;
-                  break;
-               }
-               if (c == ',' && state != IN_QUOTE)
-               {
-                  if (state != QUOTE_ENDED)
-                     list.add(chunk.toString());
-                  chunk = new StringBuilder();
-                  state = START;
-                  continue;
                }
-               if (c == '"' && state == START)
+               else
                {
-                  state = IN_QUOTE;
-                  continue;
-               }
-               if (c == '"' && state == IN_QUOTE)
-               {
-                  int lookahead = (pos < data_.length() - 1)
-                                  ? data_.charAt(pos+1)
-                                  : -1;
-                  if (lookahead == '"')
-                  {
-                     chunk.append((char)lookahead);
-                     pos++;
-                     continue;
-                  }
-                  list.add(chunk.toString());
-                  chunk = new StringBuilder();
+                  fields.add(start, pos, escaped);
                   state = QUOTE_ENDED;
-                  continue;
                }
-
-               if (state == START)
-                  state = IN_UNQUOTED;
-               chunk.append(c);
             }
+            continue;
+         }
 
+         if (c == '\n')
+         {
+            end = pos++;
+            break;
+         }
+         if (c == ',')
+         {
             if (state != QUOTE_ENDED)
-            {
-               list.add(chunk.toString());
-            }
-
-            return list.toArray(new String[0]);
+               fields.add(start, pos, false);
+            state = START;
+            start = pos + 1;
+            continue;
+         }
+         if (c == '"' && state == START)
+         {
+            state = IN_QUOTE;
+            start = pos + 1;
+            escaped = false;
+            continue;
          }
 
-         public void remove()
+         // anything following the closing quote of a quoted field is
+         // ignored
+         if (state == START)
+            state = IN_UNQUOTED;
+      }
+
+      if (state != QUOTE_ENDED)
+         fields.add(start, end, state == IN_QUOTE && escaped);
+
+      return pos;
+   }
+
+   // The fields of a single row, as offsets into the data being read.
+   public static class Fields
+   {
+      public int size()
+      {
+         return size_;
+      }
+
+      public int getStart(int index)
+      {
+         return bounds_[index * 2];
+      }
+
+      public int getEnd(int index)
+      {
+         return bounds_[index * 2 + 1];
+      }
+
+      public String get(int index)
+      {
+         String value = data_.substring(getStart(index), getEnd(index));
+         return escaped_[index] ? value.replace("\"\"", "\"") : value;
+      }
+
+      public String[] toArray()
+      {
+         String[] values = new String[size_];
+         for (int i = 0; i < size_; i++)
+            values[i] = get(i);
+         return values;
+      }
+
+      private void reset(String data)
+      {
+         data_ = data;
+         size_ = 0;
+      }
+
+      private void add(int start, int end, boolean escaped)
+      {
+         if (size_ == escaped_.length)
          {
-            throw new UnsupportedOperationException();
+            int[] bounds = new int[bounds_.length * 2];
+            boolean[] escapes = new boolean[escaped_.length * 2];
+            System.arraycopy(bounds_, 0, bounds, 0, bounds_.length);
+            System.arraycopy(escaped_, 0, escapes, 0, escaped_.length);
+            bounds_ = bounds;
+            escaped_ = escapes;
          }
-      };
+         bounds_[size_ * 2] = start;
+         bounds_[size_ * 2 + 1] = end;
+         escaped_[size_] = escaped;
+         size_++;
+      }
+
+      private String data_;
+      private int size_;
+      private int[] bounds_ = new int[16];
+      private boolean[] escaped_ = new boolean[8];
    }
 
    private final String data_;
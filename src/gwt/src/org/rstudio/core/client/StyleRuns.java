@@ -0,0 +1,188 @@
+/*
+ * StyleRuns.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+
+/**
+ * Run-length encoded CSS class assignments for a run of text. The runs are
+ * contiguous and cover every character from 0 to length(); characters
+ * without a class belong to a run whose class is null. Adjacent runs never
+ * share a class.
+ */
+public class StyleRuns
+{
+   public int length()
+   {
+      return runs_.isEmpty() ? 0 : runs_.get(runs_.size() - 1).end;
+   }
+   
+   public int getRunCount()
+   {
+      return runs_.size();
+   }
+   
+   public int getRunStart(int index)
+   {
+      return runs_.get(index).start;
+   }
+   
+   public int getRunEnd(int index)
+   {
+      return runs_.get(index).end;
+   }
+   
+   public String getRunClass(int index)
+   {
+      return runs_.get(index).clazz;
+   }
+   
+   // Returns the index of the run containing the given position, or the
+   // number of runs if the position is past the end.
+   public int findRun(int pos)
+   {
+      int lo = 0;
+      int hi = runs_.size();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (runs_.get(mid).end <= pos)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+   
+   // Assigns the given class to the characters in [start, end), overwriting
+   // any existing assignment and extending the runs if end is past the end.
+   public void set(int start, int end, String clazz)
+   {
+      if (start >= end)
+         return;
+      
+      int length = length();
+      if (start >= length)
+      {
+         // the common case: appending
+         if (start > length)
+            append(length, start, null);
+         append(start, end, clazz);
+         return;
+      }
+      
+      int first = findRun(start);
+      int last = first;
+      while (last < runs_.size() && runs_.get(last).start < end)
+         last++;
+      
+      Run head = runs_.get(first);
+      Run tail = runs_.get(last - 1);
+      for (int i = first; i < last; i++)
+         runs_.remove(first);
+      
+      int index = first;
+      if (head.start < start)
+         runs_.add(index++, new Run(head.start, start, head.clazz));
+      runs_.add(index++, new Run(start, end, clazz));
+      if (tail.end > end)
+         runs_.add(index++, new Run(end, tail.end, tail.clazz));
+      
+      coalesce(Math.max(first - 1, 0), index);
+   }
+   
+   // Removes the character at the given position, shifting those after it.
+   public void delete(int pos)
+   {
+      int index = findRun(pos);
+      if (index >= runs_.size())
+         return;
+      
+      runs_.get(index).end--;
+      for (int i = index + 1; i < runs_.size(); i++)
+      {
+         Run run = runs_.get(i);
+         run.start--;
+         run.end--;
+      }
+      
+      if (runs_.get(index).start == runs_.get(index).end)
+      {
+         runs_.remove(index);
+         coalesce(Math.max(index - 1, 0), index);
+      }
+   }
+   
+   public void clear()
+   {
+      runs_.clear();
+   }
+   
+   private void append(int start, int end, String clazz)
+   {
+      if (!runs_.isEmpty())
+      {
+         Run last = runs_.get(runs_.size() - 1);
+         if (sameClass(last.clazz, clazz))
+         {
+            last.end = end;
+            return;
+         }
+      }
+      runs_.add(new Run(start, end, clazz));
+   }
+   
+   // merges runs sharing a class among those in [from, to]
+   private void coalesce(int from, int to)
+   {
+      int i = from;
+      while (i < to && i + 1 < runs_.size())
+      {
+         Run run = runs_.get(i);
+         Run next = runs_.get(i + 1);
+         if (sameClass(run.clazz, next.clazz))
+         {
+            run.end = next.end;
+            runs_.remove(i + 1);
+            to--;
+         }
+         else
+         {
+            i++;
+         }
+      }
+   }
+   
+   public static boolean sameClass(String a, String b)
+   {
+      return a == null ? b == null : a.equals(b);
+   }
+   
+   private static class Run
+   {
+      public Run(int start, int end, String clazz)
+      {
+         this.start = start;
+         this.end = end;
+         this.clazz = clazz;
+      }
+      
+      int start;
+      int end;
+      final String clazz;
+   }
+   
+   private final ArrayList<Run> runs_ = new ArrayList<Run>();
+}
@@ -0,0 +1,444 @@
+/*
+ * TaskScheduler.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Event;
+import com.google.gwt.user.client.Event.NativePreviewEvent;
+import com.google.gwt.user.client.Event.NativePreviewHandler;
+import com.google.gwt.user.client.Timer;
+
+// Cooperative scheduler for deferred UI work. Tasks are queued by priority
+// and run in frames of bounded duration, yielding to the browser between
+// frames so that input and painting aren't starved by background work:
+//
+// - PRIORITY_INPUT tasks are those the user is waiting on, and run first;
+// - PRIORITY_VISIBLE tasks update what's on screen;
+// - PRIORITY_IDLE tasks run only once there has been no keyboard or mouse
+//   input for IDLE_DELAY_MS.
+//
+// Tasks scheduled with a key coalesce: scheduling a task replaces any task
+// with the same key that is still pending (restarting its delay, if any),
+// or that is running (which then isn't run again, even if it asks to be),
+// so keys should be unique to the object the work is for. A task may return
+// true to ask to be run again, which lets long jobs run in slices; it is
+// then requeued behind other tasks of the same priority.
+public class TaskScheduler
+{
+   public static final int PRIORITY_INPUT = 0;
+   public static final int PRIORITY_VISIBLE = 1;
+   public static final int PRIORITY_IDLE = 2;
+
+   public interface Task
+   {
+      // returns true if the task has more work to do
+      boolean execute();
+   }
+
+   public class TaskHandle
+   {
+      private TaskHandle(String key, int priority, Task task)
+      {
+         key_ = key;
+         priority_ = priority;
+         task_ = task;
+      }
+
+      public void cancel()
+      {
+         cancelTask(this);
+      }
+
+      public boolean isPending()
+      {
+         return state_ == STATE_DELAYED || state_ == STATE_QUEUED;
+      }
+
+      private final String key_;
+      private final int priority_;
+      private final Task task_;
+      private int state_;
+      private boolean replaced_;
+      private Timer delayTimer_;
+   }
+
+   public static TaskScheduler get()
+   {
+      if (INSTANCE == null)
+         INSTANCE = new TaskScheduler();
+      return INSTANCE;
+   }
+
+   private TaskScheduler()
+   {
+      for (int i = 0; i < depth_.length; i++)
+         queues_.add(new LinkedList<TaskHandle>());
+
+      Event.addNativePreviewHandler(new NativePreviewHandler()
+      {
+         @Override
+         public void onPreviewNativeEvent(NativePreviewEvent event)
+         {
+            int type = event.getTypeInt();
+            if ((type & (Event.ONKEYDOWN | Event.ONMOUSEDOWN | 
+                         Event.ONMOUSEWHEEL)) != 0)
+            {
+               lastInputTime_ = System.currentTimeMillis();
+            }
+         }
+      });
+   }
+
+   public TaskHandle schedule(String key, int priority, Task task)
+   {
+      return schedule(key, priority, 0, task);
+   }
+
+   public TaskHandle schedule(String key, int priority, int delayMs, 
+                              Task task)
+   {
+      if (key != null)
+      {
+         TaskHandle existing = keyed_.get(key);
+         if (existing != null && existing.isPending())
+         {
+            coalesced_++;
+            cancelTask(existing);
+         }
+         else if (existing != null && existing.state_ == STATE_RUNNING)
+         {
+            // let the running slice finish, but don't requeue it
+            coalesced_++;
+            existing.replaced_ = true;
+         }
+      }
+
+      final TaskHandle handle = new TaskHandle(key, priority, task);
+      if (key != null)
+         keyed_.put(key, handle);
+
+      if (delayMs > 0)
+      {
+         handle.state_ = STATE_DELAYED;
+         handle.delayTimer_ = new Timer()
+         {
+            @Override
+            public void run()
+            {
+               handle.delayTimer_ = null;
+               if (handle.state_ == STATE_DELAYED)
+                  enqueue(handle);
+            }
+         };
+         handle.delayTimer_.schedule(delayMs);
+      }
+      else
+      {
+         enqueue(handle);
+      }
+      return handle;
+   }
+
+   public TaskHandle schedule(String key, int priority, Command command)
+   {
+      return schedule(key, priority, 0, command);
+   }
+
+   public TaskHandle schedule(String key, int priority, int delayMs, 
+                              final Command command)
+   {
+      return schedule(key, priority, delayMs, new Task()
+      {
+         @Override
+         public boolean execute()
+         {
+            command.execute();
+            return false;
+         }
+      });
+   }
+
+   // Cancels the pending or running task with the given key (a running task
+   // isn't run again, even if it asks to be); returns false if there was no
+   // such task.
+   public boolean cancel(String key)
+   {
+      TaskHandle handle = keyed_.get(key);
+      if (handle == null || 
+          !(handle.isPending() || handle.state_ == STATE_RUNNING))
+      {
+         return false;
+      }
+      cancelTask(handle);
+      return true;
+   }
+
+   public boolean isPending(String key)
+   {
+      TaskHandle handle = keyed_.get(key);
+      return handle != null && handle.isPending();
+   }
+
+   public int getQueueDepth(int priority)
+   {
+      return depth_[priority];
+   }
+
+   public String getStatistics()
+   {
+      return "Task scheduler: " +
+             "queued " + depth_[PRIORITY_INPUT] + "/" + 
+                         depth_[PRIORITY_VISIBLE] + "/" +
+                         depth_[PRIORITY_IDLE] + 
+                         " (input/visible/idle, max " + maxDepth_ + "); " +
+             "tasks run " + tasksRun_ + "; " +
+             "coalesced " + coalesced_ + "; " +
+             "cancelled " + cancelled_ + "; " +
+             "frames " + frames_ + "; " +
+             "overruns " + overruns_ + " (budget " + FRAME_BUDGET_MS + "ms, " +
+             "longest frame " + longestFrameMs_ + "ms); " +
+             "slowest task " + (slowestTask_ == null ? "(none)" : 
+                 slowestTask_ + " " + slowestTaskMs_ + "ms");
+   }
+
+   public void resetStatistics()
+   {
+      tasksRun_ = coalesced_ = cancelled_ = frames_ = overruns_ = 0;
+      longestFrameMs_ = slowestTaskMs_ = 0;
+      maxDepth_ = 0;
+      slowestTask_ = null;
+   }
+
+   private void enqueue(TaskHandle handle)
+   {
+      handle.state_ = STATE_QUEUED;
+      queues_.get(handle.priority_).add(handle);
+      depth_[handle.priority_]++;
+      maxDepth_ = Math.max(maxDepth_, 
+            depth_[PRIORITY_INPUT] + depth_[PRIORITY_VISIBLE] + 
+            depth_[PRIORITY_IDLE]);
+      requestFrame();
+   }
+
+   private void cancelTask(TaskHandle handle)
+   {
+      if (!handle.isPending() && handle.state_ != STATE_RUNNING)
+         return;
+
+      if (handle.state_ == STATE_QUEUED)
+      {
+         queues_.get(handle.priority_).remove(handle);
+         depth_[handle.priority_]--;
+      }
+      if (handle.delayTimer_ != null)
+      {
+         handle.delayTimer_.cancel();
+         handle.delayTimer_ = null;
+      }
+      handle.state_ = STATE_CANCELLED;
+      if (handle.key_ != null && keyed_.get(handle.key_) == handle)
+         keyed_.remove(handle.key_);
+      cancelled_++;
+   }
+
+   private void requestFrame()
+   {
+      if (frameRequested_ || running_)
+         return;
+
+      if (depth_[PRIORITY_INPUT] > 0 || depth_[PRIORITY_VISIBLE] > 0)
+      {
+         idleTimer_.cancel();
+         frameRequested_ = true;
+         Scheduler.get().scheduleDeferred(frameCommand_);
+      }
+      else if (depth_[PRIORITY_IDLE] > 0)
+      {
+         // wait for input to settle before running idle work
+         long wait = IDLE_DELAY_MS - 
+                     (System.currentTimeMillis() - lastInputTime_);
+         idleTimer_.schedule((int)Math.max(1, wait));
+      }
+   }
+
+   private void runFrame()
+   {
+      frameRequested_ = false;
+      running_ = true;
+      frames_++;
+
+      long start = System.currentTimeMillis();
+      try
+      {
+         TaskHandle handle;
+         while ((handle = nextTask()) != null)
+         {
+            runTask(handle);
+            if (System.currentTimeMillis() - start >= FRAME_BUDGET_MS)
+               break;
+         }
+      }
+      finally
+      {
+         long elapsed = System.currentTimeMillis() - start;
+         longestFrameMs_ = Math.max(longestFrameMs_, elapsed);
+         if (elapsed > FRAME_BUDGET_MS)
+            overruns_++;
+         running_ = false;
+      }
+
+      // yield to the browser before running any remaining work
+      if (depth_[PRIORITY_INPUT] > 0 || depth_[PRIORITY_VISIBLE] > 0)
+      {
+         frameRequested_ = true;
+         frameTimer_.schedule(1);
+      }
+      else
+      {
+         requestFrame();
+      }
+   }
+
+   private TaskHandle nextTask()
+   {
+      boolean idle = System.currentTimeMillis() - lastInputTime_ >= 
+                     IDLE_DELAY_MS;
+      for (int priority = 0; priority < queues_.size(); priority++)
+      {
+         if (priority == PRIORITY_IDLE && !idle)
+            break;
+
+         // cancelled handles are removed from their queue, so the head of a
+         // queue is always runnable
+         LinkedList<TaskHandle> queue = queues_.get(priority);
+         if (!queue.isEmpty())
+            return queue.removeFirst();
+      }
+      return null;
+   }
+
+   private void runTask(TaskHandle handle)
+   {
+      depth_[handle.priority_]--;
+      handle.state_ = STATE_RUNNING;
+
+      long start = System.currentTimeMillis();
+      boolean again = false;
+      try
+      {
+         again = handle.task_.execute();
+      }
+      catch (Exception e)
+      {
+         Debug.logException(e);
+      }
+      finally
+      {
+         tasksRun_++;
+         long elapsed = System.currentTimeMillis() - start;
+         if (elapsed > slowestTaskMs_)
+         {
+            slowestTaskMs_ = elapsed;
+            slowestTask_ = handle.key_ == null ? "(unnamed)" : handle.key_;
+         }
+      }
+
+      // the task may have been cancelled while it ran
+      if (handle.state_ != STATE_RUNNING)
+         return;
+
+      // ... or replaced by a task with the same key, which is queued (and
+      // registered under the key) in its place
+      if (again && !handle.replaced_)
+      {
+         enqueue(handle);
+      }
+      else
+      {
+         handle.state_ = STATE_DONE;
+         if (handle.key_ != null && keyed_.get(handle.key_) == handle)
+            keyed_.remove(handle.key_);
+      }
+   }
+
+   private final ScheduledCommand frameCommand_ = new ScheduledCommand()
+   {
+      @Override
+      public void execute()
+      {
+         runFrame();
+      }
+   };
+
+   private final Timer frameTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         runFrame();
+      }
+   };
+
+   private final Timer idleTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         if (!frameRequested_ && !running_)
+            runFrame();
+      }
+   };
+
+   private static TaskScheduler INSTANCE;
+
+   // the time after which a frame stops starting new tasks
+   private static final int FRAME_BUDGET_MS = 10;
+
+   // how long after the last input event idle tasks may run
+   private static final int IDLE_DELAY_MS = 300;
+
+   private static final int STATE_DELAYED = 1;
+   private static final int STATE_QUEUED = 2;
+   private static final int STATE_RUNNING = 3;
+   private static final int STATE_DONE = 4;
+   private static final int STATE_CANCELLED = 5;
+
+   private final ArrayList<LinkedList<TaskHandle>> queues_ =
+         new ArrayList<LinkedList<TaskHandle>>();
+   private final int[] depth_ = new int[3];
+   private final HashMap<String, TaskHandle> keyed_ =
+         new HashMap<String, TaskHandle>();
+
+   private boolean frameRequested_;
+   private boolean running_;
+   private long lastInputTime_;
+
+   // instrumentation
+   private int maxDepth_;
+   private int tasksRun_;
+   private int coalesced_;
+   private int cancelled_;
+   private int frames_;
+   private int overruns_;
+   private long longestFrameMs_;
+   private long slowestTaskMs_;
+   private String slowestTask_;
+}
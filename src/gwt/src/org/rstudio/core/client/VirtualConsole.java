@@ -14,18 +14,12 @@
  */
 package org.rstudio.core.client;
 
-import java.util.ArrayList;
-
 import org.rstudio.core.client.regex.Match;
 import org.rstudio.core.client.regex.Pattern;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 
 import com.google.gwt.core.client.JsArrayString;
-import com.google.gwt.dom.client.Document;
-import com.google.gwt.dom.client.Element;
-import com.google.gwt.dom.client.SpanElement;
-import com.google.gwt.dom.client.Text;
 import com.google.inject.Inject;
 
 /**
@@ -45,15 +39,10 @@ public class VirtualConsole
       prefs_ = prefs;
    }
    
-   public boolean submit(String data)
-   {
-      return submit(data, null);
-   }
-
    // Adds the given data to the console. Returns true if the data can be 
    // processed as an append-only operation, false if characters were 
    // overwritten.
-   public boolean submit(String data, String className)
+   public boolean submit(String data)
    {
       boolean appendOnly = true;
       if (StringUtil.isNullOrEmpty(data))
@@ -61,7 +50,7 @@ public class VirtualConsole
 
       if (CONTROL_SPECIAL.match(data, 0) == null)
       {
-         text(data, className);
+         text(data);
          return true;
       }
 
@@ -73,7 +62,7 @@ public class VirtualConsole
 
          // If we passed over any plain text on the way to this control
          // character, add it.
-         text(data.substring(tail, pos), className);
+         text(data.substring(tail, pos));
 
          tail = pos + 1;
 
@@ -83,7 +72,7 @@ public class VirtualConsole
                carriageReturn();
                // the sequence \r\n or \n\r can be represented in an append-only
                // way, so treat these cases as an append
-               appendOnly = 
+               appendOnly = appendOnly &&
                      ((pos > 0 && data.charAt(pos - 1) == '\n') ||
                       (tail < data.length() && data.charAt(tail) == '\n'));
                break;
@@ -100,7 +89,7 @@ public class VirtualConsole
                break;
             default:
                assert false : "Unknown control char, please check regex";
-               text(data.charAt(pos) + "", className);
+               text(data.charAt(pos) + "");
                break;
          }
 
@@ -108,7 +97,7 @@ public class VirtualConsole
       }
 
       // If there was any plain text after the last control character, add it
-      text(data.substring(tail), className);
+      text(data.substring(tail));
       return appendOnly;
    }
 
@@ -133,50 +122,26 @@ public class VirtualConsole
       while (pos_ < o.length() && o.charAt(pos_) != '\n')
          pos_++;
       // Now we're either at the end of the buffer, or on top of a '\n'
-      text("\n", null);
+      text("\n");
    }
 
    private void formfeed()
    {
       o.setLength(0);
       pos_ = 0;
-      charClass.clear();
    }
 
-   private void text(String text, String className)
+   private void text(String text)
    {
       assert text.indexOf('\r') < 0 && text.indexOf('\b') < 0;
 
       int endPos = pos_ + text.length();
       
       o.replace(pos_, endPos, text);
-      
-      // record the class of each character emitted
-      if (className != null) 
-      {
-         padCharClass(endPos);
-         for (int i = pos_; i < endPos; i++)
-         {
-            charClass.set(i, className);
-         }
-      }
 
       pos_ = endPos;
    }
    
-   // ensures that the character class mapping buffer is at least 'len' 
-   // characters long (note that ensureCapacity just reallocs the underlying
-   // JavaScript array if necessary)
-   private void padCharClass(int len)
-   {
-      int curSize = charClass.size();
-      if (curSize >= len)
-         return;
-      charClass.ensureCapacity(len);
-      for (int i = 0; i < (len - curSize); i++)
-         charClass.add(null);
-   }
-   
    @Override
    public String toString()
    {
@@ -206,24 +171,6 @@ public class VirtualConsole
       return o.length();
    }
    
-   public void submitAndRender(String data, String clazz, Element parent)
-   {
-      if (!submit(data, clazz))
-      {
-         // output isn't append-only; redraw the whole thing
-         // (note that even this isn't technically necessary but control 
-         // characters are relatively infrequent and additional bookkeeping
-         // would be required to determine the invalidated range when 
-         // control characters are used)
-         redraw(parent);
-      }
-      else
-      {
-         // consolify just the data to be rendered
-         emitRange(consolify(data), clazz, parent);
-      }
-   }
-   
    public void clear()
    {
       formfeed();
@@ -236,63 +183,7 @@ public class VirtualConsole
       return console.toString();
    }
 
-   private void emitRange(String text, String clazz, Element parent)
-   {
-      if (StringUtil.isNullOrEmpty(text))
-         return;
-      Text textNode = Document.get().createTextNode(text);
-      if (clazz != null)
-      {
-         SpanElement span = Document.get().createSpanElement();
-         span.addClassName(clazz);
-         parent.appendChild(span);
-         parent = span;
-      }
-      parent.appendChild(textNode);
-   }
-   
-   public void redraw(Element parent)
-   {
-      // convert to a plain-text string
-      String plainText = toString();
-      int len = plainText.length();
-      String lastClass = null;
-      padCharClass(len);
-      
-      // clean existing content
-      parent.setInnerHTML("");
-      
-      // for performance reasons, we don't emit one character at a time;
-      // instead, we keep track of the string indices that correspond to
-      // contiguous runs of characters to emit into the stream
-      int accumulateBegin = 0;
-      int accumulateEnd = 0;
-
-      // iterate in lockstep over the plain-text string and character class
-      // assignment list; emit the appropriate tags when switching classes
-      for (int i = 0; i < len; i++)
-      {
-         if (!charClass.get(i).equals(lastClass))
-         {
-            emitRange(
-                  plainText.substring(accumulateBegin, accumulateEnd),
-                  lastClass, parent);
-            
-            // begin accumulating from the emitted point
-            accumulateBegin = accumulateEnd;
-         }
-         lastClass = charClass.get(i);
-         accumulateEnd = i;
-      }
-
-      // finishing up--emit accumulated text into stream
-      emitRange(
-            plainText.substring(accumulateBegin),
-            lastClass, parent);
-      return;
-   }
    private final StringBuilder o = new StringBuilder();
-   private final ArrayList<String> charClass = new ArrayList<String>();
    private int pos_ = 0;
    private static final Pattern CONTROL = Pattern.create("[\r\b\f\n]");
    private static final Pattern CONTROL_SPECIAL = Pattern.create("[\r\b\f]");
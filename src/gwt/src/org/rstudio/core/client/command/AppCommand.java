@@ -14,6 +14,9 @@
  */
 package org.rstudio.core.client.command;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.shared.HandlerManager;
@@ -173,6 +176,15 @@ public class AppCommand implements Command, ClickHandler, ImageResourceProvider
    {
       if (enabled != enabled_)
       {
+         if (stateUpdateDepth_ > 0)
+         {
+            // remember the state at the start of the update; listeners are
+            // notified when the update ends, if the state still differs
+            if (!pendingEnabled_.containsKey(this))
+               pendingEnabled_.put(this, enabled_);
+            enabled_ = enabled;
+            return;
+         }
          enabled_ = enabled;
          handlers_.fireEvent(new EnabledChangedEvent(this));
       }
@@ -187,6 +199,13 @@ public class AppCommand implements Command, ClickHandler, ImageResourceProvider
    {
       if (!removed_ && visible != visible_)
       {
+         if (stateUpdateDepth_ > 0)
+         {
+            if (!pendingVisible_.containsKey(this))
+               pendingVisible_.put(this, visible_);
+            visible_ = visible;
+            return;
+         }
          visible_ = visible;
          handlers_.fireEvent(new VisibleChangedEvent(this));
       }
@@ -585,6 +604,45 @@ public class AppCommand implements Command, ClickHandler, ImageResourceProvider
       return executedFromShortcut_;
    }
    
+   // Begins a batch of enabled/visible state changes. Until the matching
+   // call to endStateUpdate(), state changes take effect immediately but 
+   // listeners are not notified; when the outermost update ends, each 
+   // command whose state actually changed fires a single event. Updates may
+   // be nested; callers should end them in a finally block.
+   public static void beginStateUpdate()
+   {
+      stateUpdateDepth_++;
+   }
+   
+   public static void endStateUpdate()
+   {
+      assert stateUpdateDepth_ > 0 : "Unbalanced command state update";
+      if (stateUpdateDepth_ == 0 || --stateUpdateDepth_ > 0)
+         return;
+      
+      // take the pending changes before firing, in case a listener begins 
+      // another update
+      Map<AppCommand, Boolean> visible = pendingVisible_;
+      Map<AppCommand, Boolean> enabled = pendingEnabled_;
+      pendingVisible_ = new LinkedHashMap<AppCommand, Boolean>();
+      pendingEnabled_ = new LinkedHashMap<AppCommand, Boolean>();
+      
+      // visibility first, since toolbar buttons re-sync their enabled state 
+      // when they become visible
+      for (Map.Entry<AppCommand, Boolean> entry : visible.entrySet())
+      {
+         AppCommand command = entry.getKey();
+         if (command.visible_ != entry.getValue())
+            command.handlers_.fireEvent(new VisibleChangedEvent(command));
+      }
+      for (Map.Entry<AppCommand, Boolean> entry : enabled.entrySet())
+      {
+         AppCommand command = entry.getKey();
+         if (command.enabled_ != entry.getValue())
+            command.handlers_.fireEvent(new EnabledChangedEvent(command));
+      }
+   }
+   
    public static void disableNoHandlerAssertions()
    {
       enableNoHandlerAssertions_ = false;
@@ -625,6 +683,11 @@ public class AppCommand implements Command, ClickHandler, ImageResourceProvider
    private boolean executedFromShortcut_ = false;
  
    private static boolean enableNoHandlerAssertions_ = true;
+   private static int stateUpdateDepth_ = 0;
+   private static Map<AppCommand, Boolean> pendingEnabled_ = 
+         new LinkedHashMap<AppCommand, Boolean>();
+   private static Map<AppCommand, Boolean> pendingVisible_ = 
+         new LinkedHashMap<AppCommand, Boolean>();
    private static final String WINDOW_MODE_BACKGROUND = "background";
    private static final String WINDOW_MODE_MAIN = "main";
    private static final String WINDOW_MODE_ANY = "any";
@@ -0,0 +1,142 @@
+/*
+ * KeyDispatchTable.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rstudio.core.client.CommandWith2Args;
+import org.rstudio.core.client.command.KeyMap.CommandBinding;
+import org.rstudio.core.client.command.KeyboardShortcut.KeyCombination;
+import org.rstudio.core.client.command.KeyboardShortcut.KeySequence;
+
+// An immutable trie compiled from a set of KeyMaps, used to resolve the
+// current key buffer in a single walk. Whether a binding is enabled can
+// change at any time (e.g. as commands are enabled / disabled, or the editor
+// mode changes) so only the structure of the bindings is compiled here;
+// enabled state is still queried at lookup time.
+//
+// Bindings attached to a node are ordered by the key map they were collected
+// from, and then by their order within that key map, so that resolution is
+// identical to querying each key map in turn.
+public class KeyDispatchTable
+{
+   public static class Node
+   {
+      private Node()
+      {
+         children_ = new HashMap<KeyCombination, Node>();
+      }
+
+      // Returns the first enabled binding registered for exactly the key
+      // sequence leading to this node, or null if there is none.
+      public CommandBinding getActiveBinding()
+      {
+         for (int i = 0, n = bindings_.length; i < n; i++)
+            if (bindings_[i].isEnabled())
+               return bindings_[i];
+         return null;
+      }
+
+      // Returns true if this node, or any node reachable from it, holds an
+      // enabled binding.
+      public boolean isPrefix()
+      {
+         for (int i = 0, n = reachable_.length; i < n; i++)
+            if (reachable_[i].isEnabled())
+               return true;
+         return false;
+      }
+
+      private Node ensureChild(KeyCombination keys)
+      {
+         Node child = children_.get(keys);
+         if (child == null)
+         {
+            child = new Node();
+            children_.put(keys, child);
+         }
+         return child;
+      }
+
+      private void seal(List<CommandBinding> reachable)
+      {
+         int start = reachable.size();
+         for (CommandBinding binding : pending_)
+            reachable.add(binding);
+
+         for (Node child : children_.values())
+            child.seal(reachable);
+
+         bindings_ = pending_.toArray(new CommandBinding[pending_.size()]);
+         reachable_ = reachable.subList(start, reachable.size()).toArray(
+               new CommandBinding[reachable.size() - start]);
+         pending_ = null;
+      }
+
+      private final Map<KeyCombination, Node> children_;
+      private List<CommandBinding> pending_ = new ArrayList<CommandBinding>();
+
+      private CommandBinding[] bindings_;
+      private CommandBinding[] reachable_;
+   }
+
+   public static KeyDispatchTable compile(Iterable<KeyMap> keyMaps)
+   {
+      final Node root = new Node();
+      for (KeyMap map : keyMaps)
+      {
+         map.forEachBinding(new CommandWith2Args<KeySequence, List<CommandBinding>>()
+         {
+            @Override
+            public void execute(KeySequence keys, List<CommandBinding> bindings)
+            {
+               Node node = root;
+               for (int i = 0, n = keys.size(); i < n; i++)
+                  node = node.ensureChild(keys.get(i));
+
+               if (bindings != null)
+                  node.pending_.addAll(bindings);
+            }
+         });
+      }
+
+      root.seal(new ArrayList<CommandBinding>());
+      return new KeyDispatchTable(root);
+   }
+
+   private KeyDispatchTable(Node root)
+   {
+      root_ = root;
+   }
+
+   // Returns the node associated with the key sequence, or null if no
+   // binding begins with that key sequence.
+   public Node find(KeySequence keys)
+   {
+      Node node = root_;
+      for (int i = 0, n = keys.size(); i < n; i++)
+      {
+         node = node.children_.get(keys.get(i));
+         if (node == null)
+            return null;
+      }
+      return node;
+   }
+
+   private final Node root_;
+}
@@ -68,6 +68,8 @@ public class KeyMap
       if (!idToNodeMap_.containsKey(command.getId()))
          idToNodeMap_.put(command.getId(), new ArrayList<DirectedGraph<KeyCombination, List<CommandBinding>>>());
       idToNodeMap_.get(command.getId()).add(node);
+      
+      version_++;
    }
    
    public void setBindings(KeySequence keys, CommandBinding command)
@@ -103,6 +105,7 @@ public class KeyMap
       }
       
       idToNodeMap_.remove(command.getId());
+      version_++;
    }
    
    public List<CommandBinding> getBindings(KeySequence keys)
@@ -195,6 +198,13 @@ public class KeyMap
       });
    }
    
+   // Incremented whenever a binding is added or removed, so that clients
+   // caching information derived from this key map can detect staleness.
+   public int getVersion()
+   {
+      return version_;
+   }
+   
    // Private members ----
    
    // The actual graph used for dispatching key sequences to commands.
@@ -202,4 +212,6 @@ public class KeyMap
    
    // Map used so we can quickly discover what bindings are active for a particular command.
    private final SafeMap<String, List<DirectedGraph<KeyCombination, List<CommandBinding>>>> idToNodeMap_;
+   
+   private int version_ = 0;
 }
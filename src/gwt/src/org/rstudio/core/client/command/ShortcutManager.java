@@ -419,14 +419,13 @@ public class ShortcutManager implements NativePreviewHandler,
       KeyCombination keyCombination = new KeyCombination(event);
       keyBuffer_.add(keyCombination);
       
-      // Loop through all active key maps, and attempt to find an active
-      // binding. 'pending' is used to indicate whether there are any bindings
-      // following the current state of the keybuffer.
-      boolean pending = false;
-      for (Map.Entry<KeyMapType, KeyMap> entry : keyMaps_.entrySet())
+      // Resolve the keybuffer against the compiled key maps, and attempt to
+      // find an active binding. 'pending' is used to indicate whether there
+      // are any bindings following the current state of the keybuffer.
+      KeyDispatchTable.Node node = getDispatchTable().find(keyBuffer_);
+      if (node != null)
       {
-         KeyMap map = entry.getValue();
-         CommandBinding binding = map.getActiveBinding(keyBuffer_);
+         CommandBinding binding = node.getActiveBinding();
          if (binding != null)
          {
             keyBuffer_.clear();
@@ -434,11 +433,9 @@ public class ShortcutManager implements NativePreviewHandler,
             binding.execute();
             return true;
          }
-         
-         if (map.isPrefix(keyBuffer_))
-            pending = true;
       }
       
+      boolean pending = node != null && node.isPrefix();
       if (!(pending || isPrefixForEditor(keyCombination, event)))
          keyBuffer_.clear();
       
@@ -516,14 +513,12 @@ public class ShortcutManager implements NativePreviewHandler,
       // when seeing unhandled keys.
       if (!keyBuffer_.isEmpty())
       {
-         for (Map.Entry<KeyMapType, KeyMap> entry : keyMaps_.entrySet())
+         KeyDispatchTable.Node node = getDispatchTable().find(keyBuffer_);
+         if (node != null && node.isPrefix())
          {
-            if (entry.getValue().isPrefix(keyBuffer_))
-            {
-               event.stopPropagation();
-               event.preventDefault();
-               return;
-            }
+            event.stopPropagation();
+            event.preventDefault();
+            return;
          }
       }
       
@@ -553,6 +548,43 @@ public class ShortcutManager implements NativePreviewHandler,
       return keyMaps_.get(type);
    }
    
+   // Returns a dispatch table compiled from all active key maps. The table
+   // is only rebuilt when the set of key maps, or the bindings within one of
+   // those key maps, has changed since it was last compiled.
+   private KeyDispatchTable getDispatchTable()
+   {
+      int index = 0;
+      boolean stale = dispatchTable_ == null;
+      for (KeyMap map : keyMaps_.values())
+      {
+         if (stale)
+            break;
+         
+         stale = dispatchKeyMaps_[index] != map ||
+                 dispatchVersions_[index] != map.getVersion();
+         index++;
+      }
+      
+      if (stale)
+      {
+         int n = keyMaps_.size();
+         dispatchKeyMaps_ = new KeyMap[n];
+         dispatchVersions_ = new int[n];
+         
+         index = 0;
+         for (KeyMap map : keyMaps_.values())
+         {
+            dispatchKeyMaps_[index] = map;
+            dispatchVersions_[index] = map.getVersion();
+            index++;
+         }
+         
+         dispatchTable_ = KeyDispatchTable.compile(keyMaps_.values());
+      }
+      
+      return dispatchTable_;
+   }
+   
    private int disableCount_ = 0;
    private int editorMode_ = KeyboardShortcut.MODE_DEFAULT;
    
@@ -564,6 +596,12 @@ public class ShortcutManager implements NativePreviewHandler,
    private final List<ShortcutInfo> shortcutInfo_;
    private final List<Pair<KeySequence, AppCommandBinding>> defaultBindings_;
    
+   // Compiled view of 'keyMaps_', along with the key maps and versions it
+   // was compiled from (used to detect when it needs to be rebuilt).
+   private KeyDispatchTable dispatchTable_;
+   private KeyMap[] dispatchKeyMaps_;
+   private int[] dispatchVersions_;
+   
    // Injected ----
    private UserCommandManager userCommands_;
    private EditorCommandManager editorCommands_;
@@ -0,0 +1,175 @@
+/*
+ * KeyboardShortcutIndex.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.widget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.command.KeyboardShortcut.KeyCombination;
+import org.rstudio.core.client.command.KeyboardShortcut.KeySequence;
+import org.rstudio.core.client.widget.ModifyKeyboardShortcutsWidget.KeyboardShortcutEntry;
+
+// An index over the bindings shown in the keyboard shortcuts editor. The
+// searchable text of each binding is normalized once (see
+// KeyboardShortcutEntry.getSearchText), and a query that extends the previous
+// one is matched against the previous results only, so the filter stays
+// responsive while typing with thousands of bindings. Conflicts between key
+// sequences are found with a hash lookup rather than by comparing every pair
+// of bindings.
+public class KeyboardShortcutIndex
+{
+   public KeyboardShortcutIndex(List<KeyboardShortcutEntry> bindings)
+   {
+      bindings_ = bindings;
+   }
+   
+   // Returns the bindings matching every whitespace-separated term of the
+   // query, in the order of the indexed bindings.
+   public List<KeyboardShortcutEntry> filter(String query, boolean customOnly)
+   {
+      String normalized = StringUtil.notNull(query).toLowerCase();
+      String[] terms = normalized.trim().split("\\s+");
+      
+      // Narrow the previous results if the query only added to the last
+      // query: every binding matching the new query also matched the old one.
+      List<KeyboardShortcutEntry> candidates = bindings_;
+      if (lastResults_ != null &&
+          customOnly == lastCustomOnly_ &&
+          normalized.startsWith(lastQuery_))
+      {
+         candidates = lastResults_;
+      }
+      
+      List<KeyboardShortcutEntry> results =
+            new ArrayList<KeyboardShortcutEntry>();
+      for (int i = 0; i < candidates.size(); i++)
+      {
+         KeyboardShortcutEntry binding = candidates.get(i);
+         if (matches(binding, terms, customOnly))
+            results.add(binding);
+      }
+      
+      lastQuery_ = normalized;
+      lastCustomOnly_ = customOnly;
+      lastResults_ = results;
+      return new ArrayList<KeyboardShortcutEntry>(results);
+   }
+   
+   // Must be called when the key sequence of a binding is changed, or when
+   // the bindings are reordered.
+   public void invalidate()
+   {
+      lastResults_ = null;
+      exactKeys_ = null;
+      prefixKeys_ = null;
+   }
+   
+   // Returns the indices of the bindings whose key sequence is the same as,
+   // a prefix of, or is prefixed by the key sequence of the given binding,
+   // in ascending order. The given binding itself is included.
+   public List<Integer> getConflicts(KeyboardShortcutEntry binding)
+   {
+      List<Integer> conflicts = new ArrayList<Integer>();
+      KeySequence keys = binding.getKeySequence();
+      if (keys == null || keys.isEmpty())
+         return conflicts;
+      
+      ensureConflictIndex();
+      
+      addAll(conflicts, exactKeys_.get(keys));
+      addAll(conflicts, prefixKeys_.get(keys));
+      List<KeyCombination> combinations = keys.getData();
+      for (int i = 1; i < combinations.size(); i++)
+      {
+         KeySequence prefix = new KeySequence(combinations.subList(0, i));
+         addAll(conflicts, exactKeys_.get(prefix));
+      }
+      
+      Collections.sort(conflicts);
+      return conflicts;
+   }
+   
+   private boolean matches(KeyboardShortcutEntry binding,
+                           String[] terms,
+                           boolean customOnly)
+   {
+      if (StringUtil.isNullOrEmpty(binding.getName()))
+         return false;
+      
+      if (customOnly && !(binding.isCustomBinding() || binding.isModified()))
+         return false;
+      
+      String text = binding.getSearchText();
+      for (String term : terms)
+         if (text.indexOf(term) == -1)
+            return false;
+      
+      return true;
+   }
+   
+   private void ensureConflictIndex()
+   {
+      if (exactKeys_ != null)
+         return;
+      
+      exactKeys_ = new HashMap<KeySequence, List<Integer>>();
+      prefixKeys_ = new HashMap<KeySequence, List<Integer>>();
+      for (int i = 0; i < bindings_.size(); i++)
+      {
+         KeySequence keys = bindings_.get(i).getKeySequence();
+         if (keys == null || keys.isEmpty())
+            continue;
+         
+         put(exactKeys_, keys, i);
+         
+         // index the binding under each of its strict prefixes, so that
+         // bindings shadowed by a shorter sequence can be found directly
+         List<KeyCombination> combinations = keys.getData();
+         for (int j = 1; j < combinations.size(); j++)
+            put(prefixKeys_, new KeySequence(combinations.subList(0, j)), i);
+      }
+   }
+   
+   private static void put(HashMap<KeySequence, List<Integer>> map,
+                           KeySequence keys,
+                           int index)
+   {
+      List<Integer> indices = map.get(keys);
+      if (indices == null)
+      {
+         indices = new ArrayList<Integer>();
+         map.put(keys, indices);
+      }
+      indices.add(index);
+   }
+   
+   private static void addAll(List<Integer> list, List<Integer> values)
+   {
+      if (values != null)
+         list.addAll(values);
+   }
+   
+   private final List<KeyboardShortcutEntry> bindings_;
+   
+   private String lastQuery_;
+   private boolean lastCustomOnly_;
+   private List<KeyboardShortcutEntry> lastResults_;
+   
+   private HashMap<KeySequence, List<Integer>> exactKeys_;
+   private HashMap<KeySequence, List<Integer>> prefixKeys_;
+}
@@ -158,10 +158,40 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
          return context_;
       }
       
+      public String getDescription()
+      {
+         return description_;
+      }
+      
+      public void setDescription(String description)
+      {
+         description_ = description;
+         searchText_ = null;
+      }
+      
+      // The lower-cased text that filter queries are matched against; fields
+      // are separated by newlines so that query terms can't match across them.
+      public String getSearchText()
+      {
+         if (searchText_ == null)
+         {
+            StringBuilder builder = new StringBuilder();
+            builder.append(StringUtil.notNull(name_));
+            builder.append("\n").append(context_.toString());
+            builder.append("\n").append(StringUtil.notNull(description_));
+            KeySequence keys = getKeySequence();
+            if (keys != null)
+               builder.append("\n").append(keys.toString());
+            searchText_ = builder.toString().toLowerCase();
+         }
+         return searchText_;
+      }
+      
       public void setDefaultKeySequence(KeySequence keys)
       {
          keySequence_ = keys.clone();
          newKeySequence_ = null;
+         searchText_ = null;
       }
       
       public void setKeySequence(KeySequence keys)
@@ -170,6 +200,7 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
             newKeySequence_ = null;
          else
             newKeySequence_ = keys.clone();
+         searchText_ = null;
       }
       
       public KeySequence getOriginalKeySequence()
@@ -180,6 +211,7 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
       public void restoreOriginalKeySequence()
       {
          newKeySequence_ = null;
+         searchText_ = null;
       }
       
       public boolean isModified()
@@ -205,6 +237,8 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
       private final AppCommand.Context context_;
       
       private boolean isCustom_ = false;
+      private String description_;
+      private String searchText_;
       private KeySequence keySequence_;
       private KeySequence newKeySequence_;
       
@@ -624,6 +658,7 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
                changes_.put(binding, newBinding);
                binding.setKeySequence(keys);
             }
+            index_.invalidate();
 
             table_.setKeyboardSelectedColumn(0);
             updateData(dataProvider_.getList());
@@ -667,6 +702,8 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
             else if (event.getColumn().equals(typeColumn_))
                sort(data, 2, event.isSortAscending());
             
+            // sorting the unfiltered view reorders the bindings themselves
+            index_.invalidate();
             updateData(data);
          }
       });
@@ -730,36 +767,12 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
    
    private void filter()
    {
-      String query = filterWidget_.getValue();
-      
-      boolean isEmptyQuery = StringUtil.isNullOrEmpty(query);
-      boolean customOnly = radioCustomized_.getValue();
-      
-      List<KeyboardShortcutEntry> filtered = new ArrayList<KeyboardShortcutEntry>();
-      for (int i = 0; i < originalBindings_.size(); i++)
-      {
-         KeyboardShortcutEntry binding = originalBindings_.get(i);
-         
-         String name = binding.getName();
-         String context = binding.getContext().toString();
-         
-         if (StringUtil.isNullOrEmpty(name))
-            continue;
-         
-         if (customOnly && !(binding.isCustomBinding() || binding.isModified()))
-            continue;
-         
-         boolean isGoodBinding =
-               isEmptyQuery ||
-               name.toLowerCase().indexOf(query.toLowerCase()) != -1 ||
-               context.toLowerCase().indexOf(query.toLowerCase()) != -1;
-         
-         if (isGoodBinding)
-            filtered.add(binding);
-      }
-      
-      updateData(filtered);
+      if (index_ == null)
+         return;
       
+      updateData(index_.filter(
+            filterWidget_.getValue(),
+            radioCustomized_.getValue()));
    }
    
    private void onNameCellPreview(CellPreviewEvent<KeyboardShortcutEntry> preview)
@@ -1001,6 +1014,8 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
    private void collectShortcuts()
    {
       final List<KeyboardShortcutEntry> bindings = new ArrayList<KeyboardShortcutEntry>();
+      final Map<String, KeyboardShortcutEntry> addinBindingsById =
+            new HashMap<String, KeyboardShortcutEntry>();
       SerializedCommandQueue queue = new SerializedCommandQueue();
       
       // Load addins discovered as part of package exports. This registers
@@ -1016,13 +1031,16 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
             {
                RAddin addin = rAddins.get(key);
                
-               bindings.add(new KeyboardShortcutEntry(
+               KeyboardShortcutEntry binding = new KeyboardShortcutEntry(
                      addin.getPackage() + "::" + addin.getBinding(),
                      addin.getName(),
                      new KeySequence(),
                      KeyboardShortcutEntry.TYPE_ADDIN,
                      false,
-                     AppCommand.Context.Addin));
+                     AppCommand.Context.Addin);
+               binding.setDescription(addin.getDescription());
+               bindings.add(binding);
+               addinBindingsById.put(binding.getId(), binding);
             }
             continuation.execute();
          }
@@ -1041,29 +1059,26 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
                {
                   for (String commandId : addinBindings.iterableKeys())
                   {
+                     KeyboardShortcutEntry binding = addinBindingsById.get(commandId);
+                     if (binding == null)
+                        continue;
+                     
                      EditorKeyBinding addinBinding = addinBindings.get(commandId);
-                     for (KeyboardShortcutEntry binding : bindings)
+                     List<KeySequence> keys = addinBinding.getKeyBindings();
+                     if (keys.size() >= 1)
+                        binding.setDefaultKeySequence(keys.get(0));
+                     
+                     for (int i = 1; i < keys.size(); i++)
                      {
-                        if (binding.getId() == commandId)
-                        {
-                           List<KeySequence> keys = addinBinding.getKeyBindings();
-                           if (keys.size() >= 1)
-                              binding.setDefaultKeySequence(keys.get(0));
-                           
-                           if (keys.size() >= 2)
-                           {
-                              for (int i = 1; i < keys.size(); i++)
-                              {
-                                 bindings.add(new KeyboardShortcutEntry(
-                                       binding.getId(),
-                                       binding.getName(),
-                                       keys.get(i),
-                                       KeyboardShortcutEntry.TYPE_ADDIN,
-                                       false,
-                                       AppCommand.Context.Addin));
-                              }
-                           }
-                        }
+                        KeyboardShortcutEntry extra = new KeyboardShortcutEntry(
+                              binding.getId(),
+                              binding.getName(),
+                              keys.get(i),
+                              KeyboardShortcutEntry.TYPE_ADDIN,
+                              false,
+                              AppCommand.Context.Addin);
+                        extra.setDescription(binding.getDescription());
+                        bindings.add(extra);
                      }
                   }
                   
@@ -1141,6 +1156,7 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
                      {
                         KeyboardShortcutEntry binding = new KeyboardShortcutEntry(
                               id, name, keys, type, isCustom, command.getContext());
+                        binding.setDescription(command.getDesc());
                         bindings.add(binding);
                      }
                   }
@@ -1170,6 +1186,7 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
             });
 
             originalBindings_ = bindings;
+            index_ = new KeyboardShortcutIndex(bindings);
             updateData(bindings);
             continuation.execute();
          }
@@ -1210,16 +1227,15 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
       }
       
       // Identify conflicts / masking in the set of bindings and report
-      // them. Note that this is an O(n^2) run through of commands but
-      // given that the list shouldn't be excessively large it's probably
-      // something we could live with.
+      // them. Candidates come from the index's key sequence lookup, so
+      // only bindings that share (a prefix of) a key sequence are compared.
       for (int i = 0; i < bindings.size(); i++)
       {
          KeyboardShortcutEntry cb1 = bindings.get(i);
          if (cb1.getKeySequence() == null || cb1.getKeySequence().isEmpty())
             continue;
          
-         for (int j = 0; j < originalBindings_.size(); j++)
+         for (int j : index_.getConflicts(cb1))
          {
             KeyboardShortcutEntry cb2 = originalBindings_.get(j);
             
@@ -1235,31 +1251,17 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
             if (t1 == t2 && cb1.getContext() != cb2.getContext())
                continue;
             
-            KeySequence ks1 = cb1.getKeySequence();
-            KeySequence ks2 = cb2.getKeySequence();
-            
-            if (ks1 == null || ks2 == null || ks1.isEmpty() || ks2.isEmpty())
-               continue;
+            // editor commands can be masked by AppCommands and addins
+            if (t1 == KeyboardShortcutEntry.TYPE_EDITOR_COMMAND && t1 != t2)
+               addMaskedCommandStyles(i, j, cb2);
             
-            boolean hasConflict =
-                  ks1.equals(ks2) ||
-                  ks1.startsWith(ks2, true) ||
-                  ks2.startsWith(ks1, true);
+            // addins can mask both AppCommands and editor commands
+            else if (t2 == KeyboardShortcutEntry.TYPE_ADDIN && t1 != t2)
+               addMaskedCommandStyles(i, j, cb2);
             
-            if (hasConflict)
-            {
-               // editor commands can be masked by AppCommands and addins
-               if (t1 == KeyboardShortcutEntry.TYPE_EDITOR_COMMAND && t1 != t2)
-                  addMaskedCommandStyles(i, j, cb2);
-               
-               // addins can mask both AppCommands and editor commands
-               else if (t2 == KeyboardShortcutEntry.TYPE_ADDIN && t1 != t2)
-                  addMaskedCommandStyles(i, j, cb2);
-               
-               // two commands with the same binding in the same 'group' == conflict
-               else if (t1 == t2)
-                  addConflictCommandStyles(i, j, cb2);
-            }
+            // two commands with the same binding in the same 'group' == conflict
+            else if (t1 == t2)
+               addConflictCommandStyles(i, j, cb2);
          }
       }
    }
@@ -1429,6 +1431,7 @@ public class ModifyKeyboardShortcutsWidget extends ModalDialogBase
    
    private HandlerRegistration previewHandler_;
    private List<KeyboardShortcutEntry> originalBindings_;
+   private KeyboardShortcutIndex index_;
    private Pair<Integer, Integer> lastSelectedIndices_;
    
    // Columns ----
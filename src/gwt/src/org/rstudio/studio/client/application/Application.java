@@ -38,6 +38,7 @@ import org.rstudio.core.client.Barrier;
 import org.rstudio.core.client.BrowseCap;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.TaskScheduler;
 import org.rstudio.core.client.Barrier.Token;
 import org.rstudio.core.client.command.CommandBinder;
 import org.rstudio.core.client.command.Handler;
@@ -332,6 +333,12 @@ public class Application implements ApplicationEventHandlers
       DomUtils.dump(el, "Focused Element: ");
    }
 
+   @Handler
+   public void onLogTaskSchedulerStatistics()
+   {
+      Debug.log(TaskScheduler.get().getStatistics());
+   }
+
    @Handler
    public void onRefreshSuperDevMode()
    {
@@ -16,7 +16,7 @@
 
 package org.rstudio.studio.client.common.compile;
 
-import org.rstudio.core.client.VirtualConsole;
+import org.rstudio.core.client.ConsoleRenderer;
 import org.rstudio.core.client.widget.BottomScrollPanel;
 import org.rstudio.core.client.widget.FontSizer;
 import org.rstudio.core.client.widget.PreWidget;
@@ -33,6 +33,7 @@ public class CompileOutputBuffer extends Composite
       output_.setStylePrimaryName(
                         ConsoleResources.INSTANCE.consoleStyles().output());
       FontSizer.applyNormalFontSize(output_);
+      console_ = new ConsoleRenderer(output_.getElement());
     
       scrollPanel_ = new BottomScrollPanel();
       scrollPanel_.setSize("100%", "100%");
@@ -43,8 +44,7 @@ public class CompileOutputBuffer extends Composite
    
    public void append(String output)
    {
-      virtualConsole_.submit(output);
-      output_.setText(virtualConsole_.toString()); 
+      console_.write(output, null);
 
       scrollPanel_.onContentSizeChanged();
    }
@@ -78,11 +78,10 @@ public class CompileOutputBuffer extends Composite
    @Override
    public void clear()
    {
-      output_.setText("");
-      virtualConsole_ = new VirtualConsole();
+      console_.clear();
    }
  
    private PreWidget output_;
-   private VirtualConsole virtualConsole_ = new VirtualConsole();
+   private final ConsoleRenderer console_;
    private BottomScrollPanel scrollPanel_;
 }
@@ -16,7 +16,7 @@
 
 package org.rstudio.studio.client.common.compile;
 
-import org.rstudio.core.client.VirtualConsole;
+import org.rstudio.core.client.ConsoleRenderer;
 import org.rstudio.core.client.widget.BottomScrollPanel;
 import org.rstudio.core.client.widget.FontSizer;
 import org.rstudio.core.client.widget.PreWidget;
@@ -38,6 +38,7 @@ public class CompileOutputBufferWithHighlight extends Composite
       output_.addStyleName("ace_line");
       output_.addStyleName(styles_.paddedOutput());
       FontSizer.applyNormalFontSize(output_);
+      console_ = new ConsoleRenderer(output_.getElement());
     
       scrollPanel_ = new BottomScrollPanel();
       scrollPanel_.setSize("100%", "100%");
@@ -77,12 +78,11 @@ public class CompileOutputBufferWithHighlight extends Composite
    public void clear()
    {
       console_.clear();
-      output_.setText("");
    }
    
    private void write(String output, String className)
    {
-      console_.submitAndRender(output, className, output_.getElement());
+      console_.write(output, className);
       scrollPanel_.onContentSizeChanged();
    }
    
@@ -93,7 +93,7 @@ public class CompileOutputBufferWithHighlight extends Composite
    }
  
    PreWidget output_;
-   VirtualConsole console_ = new VirtualConsole();
+   ConsoleRenderer console_;
    private BottomScrollPanel scrollPanel_;
    private ConsoleResources.ConsoleStyles styles_;
 }
@@ -570,19 +570,15 @@ public class FileTypeRegistry
    {
       if (file != null)
       {
-         String filename = file.getName().toLowerCase();
-         FileType result = fileTypesByFilename_.get(filename);
-         if (result != null)
-            return result;
-
-         String extension = FileSystemItem.getExtensionFromPath(filename);
-         result = fileTypesByFileExtension_.get(extension);
-         if (result != null)
-            return result;
+         FileTypeInfo info = resolve(file.getName());
+         if (info.registeredType_ != null)
+            return info.registeredType_;
 
          if (defaultType != null)
          {
-            String mimeType = file.mimeType(defaultType);
+            String mimeType = info.getMimeType(file);
+            if (mimeType == null)
+               mimeType = defaultType;
             if (mimeType.startsWith("text/"))
                return TEXT;
          }
@@ -590,7 +586,23 @@ public class FileTypeRegistry
 
       return null;
    }
-
+   
+   // Returns the file type (as from getTypeForFile) together with the icon
+   // for the file
+   public FileTypeInfo getTypeInfoForFile(FileSystemItem file)
+   {
+      if (file.isDirectory())
+         return new FileTypeInfo(getTypeForFile(file), getIconForFile(file));
+      
+      FileTypeInfo info = resolve(file.getName());
+      if (!info.hasDefaultType_)
+      {
+         info.type_ = getTypeForFile(file);
+         info.hasDefaultType_ = true;
+      }
+      return info;
+   }
+   
    public TextFileType getTextTypeForFile(FileSystemItem file)
    {
       FileType type = getTypeForFile(file);
@@ -615,19 +627,46 @@ public class FileTypeRegistry
 
    public ImageResource getIconForFilename(String filename)
    {
-      ImageResource icon = iconsByFilename_.get(filename.toLowerCase());
-      if (icon != null)
-         return icon;
-      String ext = FileSystemItem.getExtensionFromPath(filename);
-      icon = iconsByFileExtension_.get(ext.toLowerCase());
-      if (icon != null)
-         return icon;
-
-      return ICONS.iconText();
+      return resolve(filename).icon_;
+   }
+   
+   // Looks up the registered type and icon for a file name. Resolution is
+   // memoized by file name since it's performed for every file in every
+   // directory listing, find result, MRU entry and so on.
+   private FileTypeInfo resolve(String filename)
+   {
+      FileTypeInfo info = resolvedNames_.get(filename);
+      if (info != null)
+         return info;
+      
+      String lowerName = filename.toLowerCase();
+      String ext = FileSystemItem.getExtensionFromPath(lowerName);
+      
+      FileType type = fileTypesByFilename_.get(lowerName);
+      if (type == null)
+         type = fileTypesByFileExtension_.get(ext);
+      
+      ImageResource icon = iconsByFilename_.get(lowerName);
+      if (icon == null)
+         icon = iconsByFileExtension_.get(ext);
+      if (icon == null)
+         icon = ICONS.iconText();
+      
+      info = new FileTypeInfo(type, icon);
+      info.registeredType_ = type;
+      info.hasDefaultType_ = type != null;
+      
+      if (resolvedNames_.size() >= MAX_RESOLVED_NAMES)
+         resolvedNames_.clear();
+      resolvedNames_.put(filename, info);
+      
+      return info;
    }
 
    private void register(String filespec, FileType fileType, ImageResource icon)
    {
+      resolvedNames_.clear();
+      
       if (filespec.startsWith("*."))
       {
          String ext = filespec.substring(1).toLowerCase();
@@ -655,9 +694,55 @@ public class FileTypeRegistry
 
    private void registerIcon(String extension, ImageResource icon)
    {
+      resolvedNames_.clear();
       iconsByFileExtension_.put(extension, icon);
    }
 
+   public static class FileTypeInfo
+   {
+      private FileTypeInfo(FileType type, ImageResource icon)
+      {
+         type_ = type;
+         icon_ = icon;
+         hasDefaultType_ = true;
+      }
+      
+      public FileType getType()
+      {
+         return type_;
+      }
+      
+      public ImageResource getIcon()
+      {
+         return icon_;
+      }
+      
+      private String getMimeType(FileSystemItem file)
+      {
+         if (!hasMimeType_)
+         {
+            mimeType_ = file.mimeType(null);
+            hasMimeType_ = true;
+         }
+         return mimeType_;
+      }
+      
+      private FileType type_;
+      private final ImageResource icon_;
+      
+      // the type registered for the file name / extension (without falling
+      // back on the mime type) and the mime type for the extension (null
+      // when unknown); only used for cached entries
+      private FileType registeredType_;
+      private String mimeType_;
+      private boolean hasMimeType_ = false;
+      private boolean hasDefaultType_;
+   }
+   
+   private final HashMap<String, FileTypeInfo> resolvedNames_ =
+         new HashMap<String, FileTypeInfo>();
+   private static final int MAX_RESOLVED_NAMES = 50000;
+   
    private final HashMap<String, FileType> fileTypesByFileExtension_ =
          new HashMap<String, FileType>();
    private final HashMap<String, FileType> fileTypesByFilename_ =
@@ -14,22 +14,22 @@
  */
 package org.rstudio.studio.client.common.shell;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
 
 import com.google.gwt.core.client.Scheduler;
-import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Node;
 import com.google.gwt.dom.client.SpanElement;
 import com.google.gwt.dom.client.Style.Unit;
-import com.google.gwt.dom.client.Text;
 import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.ui.*;
 
+import org.rstudio.core.client.ConsoleRenderer;
 import org.rstudio.core.client.ElementIds;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.TimeBufferedCommand;
@@ -241,7 +241,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
    public void consoleWriteError(final String error)
    {
       clearPendingInput();
-      output(error, getErrorClass(), false);
+      output(error, getErrorClass());
 
       // Pick up the last element emitted to the console. If we get extended
       // information for this error, we'll need to swap out the simple error
@@ -288,7 +288,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
    public void consoleWriteOutput(final String output)
    {
       clearPendingInput();
-      output(output, styles_.output(), false);
+      output(output, styles_.output());
    }
 
    public void consoleWriteInput(final String input, String console)
@@ -300,7 +300,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
          prompt_.setHTML("");
 
       clearPendingInput();
-      output(input, styles_.command() + KEYWORD_CLASS_NAME, false);
+      output(input, styles_.command() + KEYWORD_CLASS_NAME);
    }
    
    private void clearPendingInput()
@@ -311,7 +311,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
 
    public void consoleWritePrompt(final String prompt)
    {
-      output(prompt, styles_.prompt() + KEYWORD_CLASS_NAME, false);
+      output(prompt, styles_.prompt() + KEYWORD_CLASS_NAME);
       clearErrors_ = true;
    }
 
@@ -344,89 +344,42 @@ public class ShellWidget extends Composite implements ShellDisplay,
              RStudioGinjector.INSTANCE.getUIPrefs().getThemeErrorClass();
    }
 
-   private boolean output(String text,
-                          String className,
-                          boolean addToTop)
+   private boolean output(String text, String className)
    {
       if (text.indexOf('\f') >= 0)
          clearOutput();
 
-      Node node;
       boolean isOutput = StringUtil.isNullOrEmpty(className)
                          || className.equals(styles_.output());
 
-      if (isOutput && !addToTop && trailingOutput_ != null)
+      if (isOutput)
       {
-         // Short-circuit the case where we're appending output to the
-         // bottom, and there's already some output there. We need to
-         // treat this differently in case the new output uses control
-         // characters to pound over parts of the previous output.
-
-         int oldLineCount = DomUtils.countLines(trailingOutput_, true);
-         trailingOutputConsole_.submit(text);
-         trailingOutput_.setNodeValue(
-               ensureNewLine(trailingOutputConsole_.toString()));
-         int newLineCount = DomUtils.countLines(trailingOutput_, true);
-         lines_ += newLineCount - oldLineCount;
-      }
-      else
-      {
-         Element outEl = output_.getElement();
-
-         text = VirtualConsole.consolify(text);
-         if (isOutput)
-         {
-            VirtualConsole console = new VirtualConsole();
-            console.submit(text);
-            String consoleSnapshot = console.toString();
-
-            // We use ensureNewLine to make sure that even if output
-            // doesn't end with \n, a prompt will appear on its own line.
-            // However, if we call ensureNewLine indiscriminantly (i.e.
-            // on an output that's going to be followed by another output)
-            // we can end up inserting newlines where they don't belong.
-            //
-            // It's safe to add a newline when we're appending output to
-            // the end of the console, because if the next append is also
-            // output, we'll use the contents of VirtualConsole and the
-            // newline we add here will be plowed over.
-            //
-            // If we're prepending output to the top of the console, then
-            // it's safe to add a newline if the next chunk (which is already
-            // there) is something besides output.
-            if (!addToTop ||
-                (!outEl.hasChildNodes()
-                 || outEl.getFirstChild().getNodeType() != Node.TEXT_NODE))
-            {
-               consoleSnapshot = ensureNewLine(consoleSnapshot);
-            }
-
-            node = Document.get().createTextNode(consoleSnapshot);
-            if (!addToTop)
-            {
-               trailingOutput_ = (Text) node;
-               trailingOutputConsole_ = console;
-            }
-         }
-         else
+         // Consecutive output is streamed into a single console renderer, so
+         // that output using control characters can pound over parts of the
+         // previous output. The renderer displays a newline after the last
+         // line so that a prompt will appear on its own line; if the next
+         // append is also output, that line is simply continued.
+         if (trailingOutput_ == null)
          {
             SpanElement span = Document.get().createSpanElement();
-            span.setClassName(className);
-            span.setInnerText(text);
-            node = span;
-            if (!addToTop)
-            {
-               trailingOutput_ = null;
-               trailingOutputConsole_ = null;
-            }
+            output_.getElement().appendChild(span);
+            trailingOutput_ = new ConsoleRenderer(span);
+            trailingOutput_.setTerminateLastLine(true);
+            trailingOutput_.setMaxLines(maxLines_);
          }
 
-         if (addToTop)
-            outEl.insertFirst(node);
-         else
-            outEl.appendChild(node);
-
-         lines_ += DomUtils.countLines(node, true);
+         int oldLineCount = trailingOutput_.getLineCount();
+         trailingOutput_.write(text, null);
+         lines_ += trailingOutput_.getLineCount() - oldLineCount;
+      }
+      else
+      {
+         SpanElement span = Document.get().createSpanElement();
+         span.setClassName(className);
+         span.setInnerText(VirtualConsole.consolify(text));
+         output_.getElement().appendChild(span);
+         lines_ += DomUtils.countLines(span, true);
+         trailingOutput_ = null;
       }
       boolean result = !trimExcess();
 
@@ -461,58 +414,109 @@ public class ShellWidget extends Composite implements ShellDisplay,
 
    public void playbackActions(final RpcObjectList<ConsoleAction> actions)
    {
-      Scheduler.get().scheduleIncremental(new RepeatingCommand()
+      // User hit Ctrl+L at some point--nothing to play back.
+      if (cleared_)
+         return;
+
+      // Walk back from the most recent action, rendering each one, until we
+      // have enough lines to fill the console (or reach a form feed, which
+      // would have cleared everything before it). Older actions would only
+      // be trimmed away again, so they aren't rendered at all.
+      Element outEl = output_.getElement();
+      boolean followedByOutput = outEl.hasChildNodes() &&
+            outEl.getFirstChild().getNodeType() == Node.TEXT_NODE;
+      ArrayList<String> texts = new ArrayList<String>();
+      ArrayList<String> classNames = new ArrayList<String>();
+      int lines = 0;
+      for (int i = actions.length() - 1; i >= 0; i--)
       {
-         private int i = actions.length() - 1;
-         private int chunksize = 1000;
+         ConsoleAction action = actions.get(i);
+         String text = action.getData();
+         String className = null;
+         switch (action.getType())
+         {
+            case ConsoleAction.INPUT:
+               text = text + "\n";
+               className = styles_.command() + " " + KEYWORD_CLASS_NAME;
+               break;
+            case ConsoleAction.OUTPUT:
+               break;
+            case ConsoleAction.ERROR:
+               className = styles_.error();
+               break;
+            case ConsoleAction.PROMPT:
+               className = styles_.prompt() + " " + KEYWORD_CLASS_NAME;
+               break;
+            default:
+               continue;
+         }
 
-         public boolean execute()
+         boolean formFeed = text.indexOf('\f') >= 0;
+         text = VirtualConsole.consolify(text);
+         if (className == null)
          {
-            int end = i - chunksize;
-            chunksize = 10;
-            for (; i > end && i >= 0; i--)
-            {
-               // User hit Ctrl+L at some point--we're done.
-               if (cleared_)
-                  return false;
+            // output gets a trailing newline unless more output follows it
+            // (see output())
+            if (!followedByOutput)
+               text = ensureNewLine(text);
+            followedByOutput = true;
+         }
+         else
+         {
+            followedByOutput = false;
+         }
 
-               boolean canContinue = false;
+         texts.add(text);
+         classNames.add(className);
+         lines += StringUtil.countMatches(text, '\n');
 
-               ConsoleAction action = actions.get(i);
-               switch (action.getType())
-               {
-                  case ConsoleAction.INPUT:
-                     canContinue = output(action.getData() + "\n",
-                                          styles_.command() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
-                  case ConsoleAction.OUTPUT:
-                     canContinue = output(action.getData(),
-                                          styles_.output(),
-                                          true);
-                     break;
-                  case ConsoleAction.ERROR:
-                     canContinue = output(action.getData(),
-                                          styles_.error(),
-                                          true);
-                     break;
-                  case ConsoleAction.PROMPT:
-                     canContinue = output(action.getData(),
-                                          styles_.prompt() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
-               }
-               if (!canContinue)
-                  return false;
-            }
-            if (!DomUtils.selectionExists())
-               scrollPanel_.scrollToBottom();
+         if (formFeed || (maxLines_ > 0 && lines_ + lines > maxLines_))
+            break;
+      }
+
+      if (texts.isEmpty())
+         return;
 
-            return i >= 0;
+      // build the surviving actions (oldest first) into a single fragment,
+      // merging runs of output into one text node
+      Node fragment = createDocumentFragment();
+      StringBuilder output = new StringBuilder();
+      for (int i = texts.size() - 1; i >= 0; i--)
+      {
+         String className = classNames.get(i);
+         if (className == null)
+         {
+            output.append(texts.get(i));
+            continue;
          }
-      });
+
+         if (output.length() > 0)
+         {
+            fragment.appendChild(
+                  Document.get().createTextNode(output.toString()));
+            output.setLength(0);
+         }
+         SpanElement span = Document.get().createSpanElement();
+         span.setClassName(className);
+         span.setInnerText(texts.get(i));
+         fragment.appendChild(span);
+      }
+      if (output.length() > 0)
+         fragment.appendChild(Document.get().createTextNode(output.toString()));
+
+      outEl.insertFirst(fragment);
+      lines_ += lines;
+      trimExcess();
+      resizeCommand_.nudge();
+
+      if (!DomUtils.selectionExists())
+         scrollPanel_.scrollToBottom();
    }
 
+   private static native Node createDocumentFragment() /*-{
+      return $doc.createDocumentFragment();
+   }-*/;
+
    public void focus()
    {
       input_.setFocus(true) ;
@@ -623,7 +627,6 @@ public class ShellWidget extends Composite implements ShellDisplay,
       lines_ = 0;
       cleared_ = true;
       trailingOutput_ = null;
-      trailingOutputConsole_ = null;
    }
    
    public InputEditorDisplay getInputEditorDisplay()
@@ -702,6 +705,8 @@ public class ShellWidget extends Composite implements ShellDisplay,
    public void setMaxOutputLines(int maxLines)
    {
       maxLines_ = maxLines;
+      if (trailingOutput_ != null)
+         trailingOutput_.setMaxLines(maxLines);
       trimExcess();
    }
    
@@ -728,10 +733,9 @@ public class ShellWidget extends Composite implements ShellDisplay,
    private boolean cleared_ = false;
    private final PreWidget output_ ;
    private PreWidget pendingInput_ ;
-   // Save a reference to the most recent output text node in case the
-   // next bit of output contains \b or \r control characters
-   private Text trailingOutput_ ;
-   private VirtualConsole trailingOutputConsole_ ;
+   // Renders the most recent run of output, in case the next bit of output
+   // contains \b or \r control characters
+   private ConsoleRenderer trailingOutput_ ;
    private final HTML prompt_ ;
    protected final AceEditor input_ ;
    private final DockPanel inputLine_ ;
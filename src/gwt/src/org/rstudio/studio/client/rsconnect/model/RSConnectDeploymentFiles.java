@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.rsconnect.model;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.JsArrayString;
 
 public class RSConnectDeploymentFiles extends JavaScriptObject
@@ -27,6 +28,11 @@ public class RSConnectDeploymentFiles extends JavaScriptObject
       return this.dir_list;
    }-*/;
 
+   // sizes of the files in getDirList(), in the same order; may be null
+   public final native JsArrayNumber getFileSizes() /*-{
+      return this.file_sizes || null;
+   }-*/;
+
    public final native int getDirSize() /*-{
       return this.dir_size;
    }-*/;
@@ -0,0 +1,294 @@
+/*
+ * RSConnectFileSelection.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.rsconnect.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+// The set of files offered for deployment, and which of them are selected.
+// Membership and selection are hash lookups, and the selected bundle size
+// and the per-directory selection counts are maintained incrementally as
+// files are toggled, so that no operation needs to walk the whole list.
+//
+// Paths are relative to the deployment directory and use '/' separators.
+// Directories are identified by their path with a trailing '/' (e.g. "a/b/");
+// the root directory is the empty string.
+public class RSConnectFileSelection
+{
+   public static final int NONE_CHECKED = 0;
+   public static final int SOME_CHECKED = 1;
+   public static final int ALL_CHECKED = 2;
+
+   public static final String ROOT = "";
+
+   public void clear()
+   {
+      files_.clear();
+      members_.clear();
+      unchecked_.clear();
+      sizes_.clear();
+      dirTotals_.clear();
+      dirChecked_.clear();
+      children_.clear();
+      primary_ = null;
+      checkedSize_ = 0;
+      unknownSizes_ = 0;
+   }
+
+   // Adds the file to the selection; size is the file's size in bytes, or
+   // a negative value if unknown. Returns false if the file was already
+   // present.
+   public boolean add(String path, boolean checked, double size)
+   {
+      if (contains(path))
+         return false;
+
+      files_.add(path);
+      members_.add(path);
+      if (size >= 0)
+         sizes_.put(path, size);
+      if (!checked)
+         unchecked_.add(path);
+
+      // register the file with each of its ancestor directories; only the
+      // directories not seen before need linking into the tree
+      String child = path;
+      boolean linked = false;
+      for (String dir = getParent(path); dir != null; dir = getParent(dir))
+      {
+         if (!linked)
+         {
+            linked = dirTotals_.containsKey(dir);
+            getChildren(dir, true).add(child);
+            child = dir;
+         }
+         increment(dirTotals_, dir, 1);
+         if (checked)
+            increment(dirChecked_, dir, 1);
+      }
+
+      if (checked)
+         addCheckedSize(path, 1);
+      return true;
+   }
+
+   public boolean contains(String path)
+   {
+      return members_.contains(path);
+   }
+
+   public int size()
+   {
+      return files_.size();
+   }
+
+   public boolean isChecked(String path)
+   {
+      return !unchecked_.contains(path);
+   }
+
+   // Checks or unchecks the file; has no effect on the primary file, which is
+   // always deployed. Returns true if the selection changed.
+   public boolean setChecked(String path, boolean checked)
+   {
+      if (path.equals(primary_) || !contains(path) || 
+          isChecked(path) == checked)
+         return false;
+
+      if (checked)
+         unchecked_.remove(path);
+      else
+         unchecked_.add(path);
+
+      int delta = checked ? 1 : -1;
+      for (String dir = getParent(path); dir != null; dir = getParent(dir))
+         increment(dirChecked_, dir, delta);
+      addCheckedSize(path, delta);
+      return true;
+   }
+
+   // Checks or unchecks every file within the directory (recursively).
+   // Returns true if the selection changed.
+   public boolean setDirChecked(String dir, boolean checked)
+   {
+      List<String> children = children_.get(dir);
+      if (children == null)
+         return false;
+
+      boolean changed = false;
+      for (int i = 0, n = children.size(); i < n; i++)
+      {
+         String child = children.get(i);
+         if (isDirectory(child))
+            changed = setDirChecked(child, checked) || changed;
+         else
+            changed = setChecked(child, checked) || changed;
+      }
+      return changed;
+   }
+
+   // Returns NONE_CHECKED, SOME_CHECKED, or ALL_CHECKED.
+   public int getDirState(String dir)
+   {
+      int total = get(dirTotals_, dir);
+      int checked = get(dirChecked_, dir);
+      if (checked == 0)
+         return NONE_CHECKED;
+      return checked == total ? ALL_CHECKED : SOME_CHECKED;
+   }
+
+   public int getDirFileCount(String dir)
+   {
+      return get(dirTotals_, dir);
+   }
+
+   public int getDirCheckedCount(String dir)
+   {
+      return get(dirChecked_, dir);
+   }
+
+   // Returns the immediate children (files and directories) of the
+   // directory, in the order they were first added.
+   public List<String> getChildren(String dir)
+   {
+      List<String> children = children_.get(dir);
+      return children == null ? new ArrayList<String>() : children;
+   }
+
+   public void setPrimaryFile(String path)
+   {
+      if (!contains(path))
+         return;
+      setChecked(path, true);
+      primary_ = path;
+   }
+
+   public String getPrimaryFile()
+   {
+      return primary_;
+   }
+
+   // Returns the checked (or unchecked) files, with the primary file first.
+   public ArrayList<String> getFiles(boolean checked)
+   {
+      ArrayList<String> files = new ArrayList<String>();
+      if (checked && primary_ != null)
+         files.add(primary_);
+      for (int i = 0, n = files_.size(); i < n; i++)
+      {
+         String file = files_.get(i);
+         if (isChecked(file) == checked && !file.equals(primary_))
+            files.add(file);
+      }
+      return files;
+   }
+
+   public List<String> getAllFiles()
+   {
+      return files_;
+   }
+
+   public int getCheckedCount()
+   {
+      return get(dirChecked_, ROOT);
+   }
+
+   // Total size in bytes of the checked files whose sizes are known.
+   public long getCheckedSize()
+   {
+      return (long)checkedSize_;
+   }
+
+   // Returns true if some checked files are of unknown size, in which case
+   // getCheckedSize() is a lower bound.
+   public boolean hasUnknownSizes()
+   {
+      return unknownSizes_ > 0;
+   }
+
+   public static boolean isDirectory(String path)
+   {
+      return path.length() == 0 || path.endsWith("/");
+   }
+
+   // Returns the entry's display name: the last path component (with the
+   // trailing '/' for directories).
+   public static String getName(String path)
+   {
+      int end = isDirectory(path) ? path.length() - 1 : path.length();
+      int idx = path.lastIndexOf('/', end - 1);
+      return path.substring(idx + 1);
+   }
+
+   // Returns the directory containing the entry, or null for the root.
+   public static String getParent(String path)
+   {
+      if (path.length() == 0)
+         return null;
+      int end = isDirectory(path) ? path.length() - 1 : path.length();
+      int idx = path.lastIndexOf('/', end - 1);
+      return idx < 0 ? ROOT : path.substring(0, idx + 1);
+   }
+
+   private void addCheckedSize(String path, int delta)
+   {
+      Double size = sizes_.get(path);
+      if (size == null)
+         unknownSizes_ += delta;
+      else
+         checkedSize_ += delta * size.doubleValue();
+   }
+
+   private List<String> getChildren(String dir, boolean create)
+   {
+      List<String> children = children_.get(dir);
+      if (children == null && create)
+      {
+         children = new ArrayList<String>();
+         children_.put(dir, children);
+      }
+      return children;
+   }
+
+   private static int get(HashMap<String, Integer> counts, String key)
+   {
+      Integer count = counts.get(key);
+      return count == null ? 0 : count.intValue();
+   }
+
+   private static void increment(HashMap<String, Integer> counts, String key,
+                                 int delta)
+   {
+      counts.put(key, get(counts, key) + delta);
+   }
+
+   private final ArrayList<String> files_ = new ArrayList<String>();
+   private final HashSet<String> members_ = new HashSet<String>();
+   private final HashSet<String> unchecked_ = new HashSet<String>();
+   private final HashMap<String, Double> sizes_ =
+         new HashMap<String, Double>();
+   private final HashMap<String, Integer> dirTotals_ =
+         new HashMap<String, Integer>();
+   private final HashMap<String, Integer> dirChecked_ =
+         new HashMap<String, Integer>();
+   private final HashMap<String, List<String>> children_ =
+         new HashMap<String, List<String>>();
+
+   private String primary_;
+   private double checkedSize_;
+   private int unknownSizes_;
+}
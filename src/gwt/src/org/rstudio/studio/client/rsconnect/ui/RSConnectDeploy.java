@@ -15,6 +15,8 @@
 package org.rstudio.studio.client.rsconnect.ui;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 
 import org.rstudio.core.client.JsArrayUtil;
 import org.rstudio.core.client.StringUtil;
@@ -34,6 +36,7 @@ import org.rstudio.studio.client.rsconnect.model.RSConnectAccount;
 import org.rstudio.studio.client.rsconnect.model.RSConnectApplicationInfo;
 import org.rstudio.studio.client.rsconnect.model.RSConnectDeploymentFiles;
 import org.rstudio.studio.client.rsconnect.model.RSConnectDeploymentRecord;
+import org.rstudio.studio.client.rsconnect.model.RSConnectFileSelection;
 import org.rstudio.studio.client.rsconnect.model.RSConnectPublishResult;
 import org.rstudio.studio.client.rsconnect.model.RSConnectPublishSettings;
 import org.rstudio.studio.client.rsconnect.model.RSConnectPublishSource;
@@ -44,9 +47,9 @@ import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
-import com.google.gwt.dom.client.Style.FontWeight;
 import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.event.dom.client.ChangeEvent;
 import com.google.gwt.event.dom.client.ChangeHandler;
@@ -60,7 +63,6 @@ import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.Anchor;
-import com.google.gwt.user.client.ui.CheckBox;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.Grid;
 import com.google.gwt.user.client.ui.HTMLPanel;
@@ -84,6 +86,7 @@ public class RSConnectDeploy extends Composite
    {
       String accountAnchor();
       String accountList();
+      String bundleSize();
       String controlLabel();
       String deployLabel();
       String descriptionPanel();
@@ -149,6 +152,14 @@ public class RSConnectDeploy extends Composite
       RStudioGinjector.INSTANCE.injectMembers(this);
       
       // create UI
+      fileTree_ = new RSConnectFileTree(fileSelection_, new Command()
+      {
+         @Override
+         public void execute()
+         {
+            updateBundleSize();
+         }
+      });
       initWidget(uiBinder.createAndBindUi(this));
       style_ = RESOURCES.style();
       
@@ -349,7 +360,9 @@ public class RSConnectDeploy extends Composite
    
    public void addFileToList(String path)
    {
-      addFile(path, true);
+      addFile(path, true, -1);
+      fileTree_.refresh();
+      updateBundleSize();
    }
    
    public ArrayList<String> getFileList()
@@ -445,7 +458,8 @@ public class RSConnectDeploy extends Composite
       ArrayList<String> additionalFiles = new ArrayList<String>();
       for (String filePath: filesAddedManually_)
       {
-         if (deployFiles.contains(filePath))
+         if (fileSelection_.contains(filePath) && 
+             fileSelection_.isChecked(filePath))
          {
             additionalFiles.add(filePath);
          }
@@ -510,61 +524,47 @@ public class RSConnectDeploy extends Composite
    // Private methods --------------------------------------------------------
    
    private void setFileList(ArrayList<String> files,
-         ArrayList<String> additionalFiles, ArrayList<String> ignoredFiles)
+         JsArrayNumber sizes, ArrayList<String> additionalFiles, 
+         ArrayList<String> ignoredFiles)
    {
-      fileChecks_ = new ArrayList<CheckBox>();
+      fileSelection_.clear();
+
+      HashSet<String> ignored = new HashSet<String>();
+      if (ignoredFiles != null)
+         ignored.addAll(ignoredFiles);
       
-      // clear existing file list
-      fileListPanel_.clear(); 
+      // files marked additional are added separately below (checked)
+      HashSet<String> additional = new HashSet<String>();
+      if (additionalFiles != null)
+         additional.addAll(additionalFiles);
+
       for (int i = 0; i < files.size(); i++)
       {
-         boolean checked = true;
-         boolean add = true;
-         
-         // if this file is marked ignored, uncheck it
-         if (ignoredFiles != null)
-         {
-            for (int j = 0; j < ignoredFiles.size(); j++)
-            {
-               if (ignoredFiles.get(j).equals(files.get(i)))
-               {
-                  checked = false; 
-                  break;
-               }
-            }
-         }
-
-         // if this file is marked additional, don't add it twice (we're about
-         // to add the additional files separately below)
-         if (additionalFiles != null)
-         {
-            for (int j = 0; j < additionalFiles.size(); j++)
-            {
-               if (additionalFiles.get(j).equals(files.get(i)))
-               {
-                  add = false; 
-                  break;
-               }
-            }
-         }
-
-         if (add)
+         String file = files.get(i);
+         if (!additional.contains(file))
          {
-            addFile(files.get(i), checked);
+            addFile(file, !ignored.contains(file), 
+                    sizes != null && i < sizes.length() ? sizes.get(i) : -1);
          }
       }
 
-      // add any additional files 
+      // add any additional files, with their sizes if the server listed them
       if (additionalFiles != null)
       {
          for (int i = 0; i < additionalFiles.size(); i++)
          {
-            addFile(additionalFiles.get(i), true);
+            String file = additionalFiles.get(i);
+            int idx = sizes == null ? -1 : files.indexOf(file);
+            addFile(file, true, idx >= 0 && idx < sizes.length() ? 
+                                   sizes.get(idx) : -1);
          }
       }
       
+      fileTree_.refresh();
+      updateBundleSize();
+
       // hide check/uncheck all button if there are only a few files
-      if (fileChecks_.size() < 3)
+      if (fileSelection_.size() < 3)
       {
          hideCheckUncheckAllButton();
       }
@@ -732,7 +732,7 @@ public class RSConnectDeploy extends Composite
          FileSystemItem selfContained = FileSystemItem.createFile(
                      source_.getDeployFile());
          files.add(selfContained.getName());
-         setFileList(files, null, null);
+         setFileList(files, null, null, null);
          setPrimaryFile(selfContained.getName());
          return;
       }
@@ -770,6 +770,7 @@ public class RSConnectDeploy extends Composite
                      }
                      setFileList(
                            JsArrayUtil.fromJsArrayString(files.getDirList()), 
+                           files.getFileSizes(),
                            fromPrevious_ != null ?
                                  fromPrevious_.getAdditionalFiles() : null, 
                            fromPrevious_ != null ? 
@@ -800,27 +801,25 @@ public class RSConnectDeploy extends Composite
       
    }
 
-   private void addFile(String path, boolean checked)
+   private void addFile(String path, boolean checked, double size)
    {
-      CheckBox fileCheck = new CheckBox(path);
-      fileCheck.setValue(checked);
-      fileListPanel_.add(fileCheck);
-      fileChecks_.add(fileCheck);
+      fileSelection_.add(path, checked, size);
    }
    
    private ArrayList<String> getCheckedFileList(boolean checked)
    {
-      ArrayList<String> files = new ArrayList<String>();
-      if (fileChecks_ == null)
-         return files;
-      for (int i = 0; i < fileChecks_.size(); i++)
-      {
-         if (fileChecks_.get(i).getValue() == checked)
-         {
-            files.add(fileChecks_.get(i).getText());
-         }
-      }
-      return files;
+      return fileSelection_.getFiles(checked);
+   }
+   
+   private void updateBundleSize()
+   {
+      int count = fileSelection_.getCheckedCount();
+      String size = StringUtil.formatFileSize(
+                                    fileSelection_.getCheckedSize());
+      bundleSizeLabel_.setText(count + " of " + fileSelection_.size() + 
+            " files selected (" + 
+            (fileSelection_.hasUnknownSizes() ? "at least " : "") + 
+            size + ")");
    }
    
    private void onAddFileClick()
@@ -853,16 +852,14 @@ public class RSConnectDeploy extends Composite
                      {
                         // see if the file is already in the list (we don't 
                         // want to duplicate an existing entry)
-                        ArrayList<String> files = getFileList();
-                        for (String file: files)
+                        if (fileSelection_.contains(path))
                         {
-                           if (file.equals(path))
-                           {
-                              indicator.onCompleted();
-                              return;
-                           }
+                           indicator.onCompleted();
+                           return;
                         }
-                        addFileToList(path);
+                        addFile(path, true, input.getLength());
+                        fileTree_.refresh();
+                        updateBundleSize();
                         filesAddedManually_.add(path);
                      }
                   }
@@ -873,23 +870,10 @@ public class RSConnectDeploy extends Composite
 
    private void setPrimaryFile(String path)
    {
-      if (fileChecks_ == null)
-         return;
-
-      for (int i = 0; i < fileChecks_.size(); i++)
-      {
-         CheckBox fileCheck = fileChecks_.get(i);
-         if (fileCheck.getText().equals(path))
-         {
-            // don't allow the user to unselect the primary file
-            fileCheck.setEnabled(false);
-            
-            // make this bold and move it to the top
-            fileCheck.getElement().getStyle().setFontWeight(FontWeight.BOLD);
-            fileListPanel_.remove(fileCheck);
-            fileListPanel_.insert(fileCheck, 0);
-         }
-      }
+      // the primary file can't be unselected, and is shown first
+      fileSelection_.setPrimaryFile(path);
+      fileTree_.refresh();
+      updateBundleSize();
    }
    
    private void applySource()
@@ -1052,18 +1036,21 @@ public class RSConnectDeploy extends Composite
    private void checkUncheckAll()
    {
       allChecked_ = !allChecked_;
-      for (CheckBox box: fileChecks_)
+      List<String> files = fileSelection_.getAllFiles();
+      for (int i = 0, n = files.size(); i < n; i++)
       {
-         // don't toggle state for disabled boxes, or common Shiny .R filenames
-         String file = box.getText().toLowerCase();
-         if (box.isEnabled() &&
-             file != "ui.r" &&
-             file != "server.r" &&
-             file != "app.r")
+         // don't toggle state for the primary file (the selection ignores 
+         // it), or common Shiny .R filenames
+         String file = files.get(i).toLowerCase();
+         if (!file.equals("ui.r") &&
+             !file.equals("server.r") &&
+             !file.equals("app.r"))
          {
-            box.setValue(allChecked_);
+            fileSelection_.setChecked(files.get(i), allChecked_);
          }
       }
+      fileTree_.refresh();
+      updateBundleSize();
       checkUncheckAllButton_.setText(allChecked_ ? "Uncheck All" : "Check All");
    }
    
@@ -1083,16 +1070,18 @@ public class RSConnectDeploy extends Composite
    @UiField InlineLabel deployLabel_;
    @UiField Label appExistingName_;
    @UiField Label appProgressName_;
+   @UiField Label bundleSizeLabel_;
    @UiField Label nameLabel_;
    @UiField ThemedButton addFileButton_;
    @UiField ThemedButton checkUncheckAllButton_;
    @UiField ThemedButton previewButton_;
-   @UiField VerticalPanel fileListPanel_;
    @UiField VerticalPanel filePanel_;
    @UiField VerticalPanel descriptionPanel_;
    @UiField(provided=true) RSConnectAccountList accountList_;
+   @UiField(provided=true) RSConnectFileTree fileTree_;
    
-   private ArrayList<CheckBox> fileChecks_;
+   private final RSConnectFileSelection fileSelection_ = 
+         new RSConnectFileSelection();
    private ArrayList<String> filesAddedManually_ = 
          new ArrayList<String>();
    
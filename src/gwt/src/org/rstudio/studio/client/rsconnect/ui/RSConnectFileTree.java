@@ -0,0 +1,243 @@
+/*
+ * RSConnectFileTree.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.rsconnect.ui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rstudio.core.client.SafeHtmlUtil;
+import org.rstudio.studio.client.rsconnect.model.RSConnectFileSelection;
+
+import com.google.gwt.cell.client.AbstractCell;
+import com.google.gwt.cell.client.Cell;
+import com.google.gwt.cell.client.ValueUpdater;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.NativeEvent;
+import com.google.gwt.dom.client.Style.BorderStyle;
+import com.google.gwt.i18n.client.LocalizableResource.DefaultLocale;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.cellview.client.CellTree;
+import com.google.gwt.user.cellview.client.CellTree.CellTreeMessages;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.Composite;
+import com.google.gwt.user.client.ui.SimplePanel;
+import com.google.gwt.view.client.ListDataProvider;
+import com.google.gwt.view.client.NoSelectionModel;
+import com.google.gwt.view.client.TreeViewModel;
+
+// Collapsible tree of the files offered for deployment, with a checkbox per
+// file and per directory. Directories start collapsed and each open node
+// renders at most a page of entries at a time (with "Show more" for the
+// rest), so large deployment directories don't create a widget per file.
+public class RSConnectFileTree extends Composite
+{
+   public RSConnectFileTree(RSConnectFileSelection selection,
+                            Command onSelectionChanged)
+   {
+      selection_ = selection;
+      onSelectionChanged_ = onSelectionChanged;
+      container_ = new SimplePanel();
+      container_.setWidth("100%");
+      initWidget(container_);
+   }
+
+   // Rebuilds the tree from the current contents of the selection; should be
+   // called after files are added.
+   public void refresh()
+   {
+      providers_.clear();
+      tree_ = new CellTree(new Model(), null, RES, MESSAGES);
+      tree_.setDefaultNodeSize(PAGE_SIZE);
+      tree_.setAnimationEnabled(false);
+      tree_.getElement().getStyle().setBorderStyle(BorderStyle.NONE);
+      tree_.setWidth("100%");
+      container_.setWidget(tree_);
+   }
+
+   // Re-renders the rows affected by a change to the entry at the given path:
+   // those of the directories containing it and, for a directory, those
+   // within it. Rows in unrelated (or collapsed) directories are untouched.
+   private void onEntryChanged(String path)
+   {
+      for (Map.Entry<String, ListDataProvider<String>> entry :
+              providers_.entrySet())
+      {
+         String dir = entry.getKey();
+         if (path.startsWith(dir) || dir.startsWith(path))
+            entry.getValue().refresh();
+      }
+
+      if (onSelectionChanged_ != null)
+         onSelectionChanged_.execute();
+   }
+
+   private class Model implements TreeViewModel
+   {
+      @Override
+      public <T> NodeInfo<?> getNodeInfo(T value)
+      {
+         String dir = value == null ? RSConnectFileSelection.ROOT : 
+                                      (String)value;
+
+         // list the directory's entries, with the primary file first
+         List<String> children = selection_.getChildren(dir);
+         ArrayList<String> entries = new ArrayList<String>(children.size());
+         String primary = selection_.getPrimaryFile();
+         if (primary != null && 
+             dir.equals(RSConnectFileSelection.getParent(primary)))
+         {
+            entries.add(primary);
+         }
+         for (int i = 0, n = children.size(); i < n; i++)
+         {
+            if (!children.get(i).equals(primary))
+               entries.add(children.get(i));
+         }
+
+         ListDataProvider<String> provider = 
+               new ListDataProvider<String>(entries);
+         providers_.put(dir, provider);
+         return new DefaultNodeInfo<String>(provider, 
+                                            new EntryCell(),
+                                            new NoSelectionModel<String>(),
+                                            null);
+      }
+
+      @Override
+      public boolean isLeaf(Object value)
+      {
+         return value != null && 
+                !RSConnectFileSelection.isDirectory((String)value);
+      }
+   }
+
+   private class EntryCell extends AbstractCell<String>
+   {
+      public EntryCell()
+      {
+         super("click");
+      }
+
+      @Override
+      public void render(Cell.Context context, String path, 
+                         SafeHtmlBuilder sb)
+      {
+         if (path == null)
+            return;
+
+         boolean dir = RSConnectFileSelection.isDirectory(path);
+         boolean primary = path.equals(selection_.getPrimaryFile());
+         boolean checked;
+         String checkClass = RES.cellTreeStyle().fileCheck();
+         if (dir)
+         {
+            int state = selection_.getDirState(path);
+            checked = state != RSConnectFileSelection.NONE_CHECKED;
+            if (state == RSConnectFileSelection.SOME_CHECKED)
+               checkClass += " " + RES.cellTreeStyle().partialCheck();
+         }
+         else
+         {
+            checked = selection_.isChecked(path);
+         }
+
+         sb.appendHtmlConstant("<input type=\"checkbox\" tabindex=\"-1\" " +
+               "class=\"" + checkClass + "\"" +
+               (checked ? " checked" : "") +
+               (primary ? " disabled" : "") + ">");
+         SafeHtmlUtil.appendSpan(sb, 
+               primary ? RES.cellTreeStyle().primaryFile() : "",
+               RSConnectFileSelection.getName(path));
+         if (dir)
+         {
+            SafeHtmlUtil.appendSpan(sb, RES.cellTreeStyle().dirCount(),
+                  "(" + selection_.getDirCheckedCount(path) + "/" + 
+                  selection_.getDirFileCount(path) + ")");
+         }
+      }
+
+      @Override
+      public void onBrowserEvent(Cell.Context context, Element parent, 
+                                 String path, NativeEvent event,
+                                 ValueUpdater<String> valueUpdater)
+      {
+         if (!"click".equals(event.getType()))
+            return;
+         Element target = event.getEventTarget().cast();
+         if (!target.getTagName().equalsIgnoreCase("input"))
+            return;
+
+         boolean changed;
+         if (RSConnectFileSelection.isDirectory(path))
+         {
+            changed = selection_.setDirChecked(path, 
+                  selection_.getDirState(path) != 
+                        RSConnectFileSelection.ALL_CHECKED);
+         }
+         else
+         {
+            changed = selection_.setChecked(path, 
+                                            !selection_.isChecked(path));
+         }
+
+         if (changed)
+            onEntryChanged(path);
+      }
+   }
+
+   public interface Resources extends CellTree.Resources
+   {
+      @Source({CellTree.Style.DEFAULT_CSS, "RSConnectFileTree.css"})
+      public Style cellTreeStyle();
+
+      public interface Style extends CellTree.Style
+      {
+         String fileCheck();
+         String partialCheck();
+         String primaryFile();
+         String dirCount();
+      }
+   }
+
+   static final Resources RES = GWT.create(Resources.class);
+
+   static {
+      RES.cellTreeStyle().ensureInjected();
+   }
+
+   @DefaultLocale("en_US")
+   public interface FileTreeMessages extends CellTreeMessages {
+     @DefaultMessage("Show more")
+     String showMore();
+     @DefaultMessage("(No files)")
+     String emptyTree();
+   }
+
+   private static final FileTreeMessages MESSAGES 
+                              = GWT.create(FileTreeMessages.class);
+
+   // the number of entries rendered per open directory before "Show more"
+   private static final int PAGE_SIZE = 200;
+
+   private final RSConnectFileSelection selection_;
+   private final Command onSelectionChanged_;
+   private final SimplePanel container_;
+   private final HashMap<String, ListDataProvider<String>> providers_ =
+         new HashMap<String, ListDataProvider<String>>();
+   private CellTree tree_;
+}
@@ -18,9 +18,8 @@ package org.rstudio.studio.client.server.remote;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
-import com.google.gwt.core.client.Scheduler;
-import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 
+import org.rstudio.core.client.TaskScheduler;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
@@ -182,8 +181,14 @@ public class ClientEventDispatcher
       pendingEvents_.add(event);
       if (pendingEvents_.size() == 1)
       {
-         Scheduler.get().scheduleIncremental(new RepeatingCommand()
-         {
+         // dispatch in slices, so that a large batch of events doesn't hold
+         // up input handling
+         TaskScheduler.get().schedule(
+               "client-event-dispatch",
+               TaskScheduler.PRIORITY_VISIBLE,
+               new TaskScheduler.Task()
+         {
+            @Override
             public boolean execute()
             {
                final int MAX_EVENTS_AT_ONCE = 200;
@@ -0,0 +1,80 @@
+/*
+ * ClientEventStreamParser.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import org.rstudio.core.client.jsonrpc.RpcError;
+import org.rstudio.core.client.jsonrpc.RpcResponse;
+
+// Incrementally extracts frames from the text of an event stream as it
+// arrives. Each frame is a json-rpc response (whose result is an array of
+// client events) terminated by a newline; blank lines are skipped. The
+// parser only remembers how far into the stream it has read, so the
+// (growing) stream text is scanned just once.
+class ClientEventStreamParser
+{
+   // Returns the next complete frame within the stream text, or null if the
+   // text received so far contains no further complete frames. A frame that
+   // cannot be parsed is returned as an error response.
+   public RpcResponse nextFrame(String text)
+   {
+      while (true)
+      {
+         int newline = text.indexOf('\n', offset_);
+         if (newline == -1)
+            return null;
+         
+         int start = offset_;
+         offset_ = newline + 1;
+         if (isBlank(text, start, newline))
+            continue;
+         
+         RpcResponse response = RpcResponse.parse(
+                                             text.substring(start, newline));
+         if (response == null)
+         {
+            response = RpcResponse.create(RpcError.create(
+                                     RpcError.TRANSMISSION_ERROR,
+                                     "Unable to parse event stream"));
+         }
+         return response;
+      }
+   }
+   
+   // Returns the text following the last complete frame (e.g. a single
+   // unterminated json-rpc response sent in place of a stream).
+   public String getRemainder(String text)
+   {
+      return text.substring(Math.min(offset_, text.length()));
+   }
+   
+   // Number of characters of the stream consumed so far.
+   public int getOffset()
+   {
+      return offset_;
+   }
+   
+   private static boolean isBlank(String text, int start, int end)
+   {
+      for (int i = start; i < end; i++)
+      {
+         char ch = text.charAt(i);
+         if (ch != ' ' && ch != '\r' && ch != '\t')
+            return false;
+      }
+      return true;
+   }
+   
+   private int offset_ = 0;
+}
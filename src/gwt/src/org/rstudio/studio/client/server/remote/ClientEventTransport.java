@@ -0,0 +1,58 @@
+/*
+ * ClientEventTransport.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.JsArray;
+
+import org.rstudio.studio.client.server.ServerError;
+
+// A ClientEventTransport is responsible for delivering batches of client
+// events from the server to RemoteServerEventListener. The listener owns
+// the dispatching of events, the id of the last event seen, and the policy
+// for recovering from errors; the transport owns only the connection(s)
+// used to receive events.
+interface ClientEventTransport
+{
+   interface Observer
+   {
+      // id of the last event dispatched (-1 if none), used when (re)opening
+      // a connection so the server can discard events already delivered
+      int getLastEventId();
+      
+      // a batch of events arrived (in order)
+      void onEventsReceived(JsArray<ClientEvent> events);
+      
+      // the transport failed and has stopped receiving events
+      void onTransportError(ServerError error);
+      
+      // the transport was able to resolve an error and wants the listener
+      // to restart (see RetryHandler)
+      void onTransportRetry();
+      
+      // an error occurred while attempting to resolve an error (the
+      // listener should stop rather than risk repeating the same error)
+      void onTransportRetryFailed();
+      
+      // the transport is not supported by this server; the listener should
+      // use another transport instead
+      void onTransportUnavailable();
+   }
+   
+   // begin receiving events (never called on an open transport)
+   void open(Observer observer);
+   
+   // stop receiving events and cancel any outstanding requests
+   void close();
+}
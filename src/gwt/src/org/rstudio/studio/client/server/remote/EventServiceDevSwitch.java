@@ -0,0 +1,143 @@
+/*
+ * EventServiceDevSwitch.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.user.client.Window;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.studio.client.common.SuperDevMode;
+
+// Development switch for comparing the client event transports against the
+// stand-in event service in src/gwt/tools/event-stream-server.py, rather
+// than a session (which doesn't serve events/stream_events yet). Under
+// SuperDevMode, the URL parameters
+//
+//   event_server=http://127.0.0.1:8788   send event requests to the stand-in
+//   event_transport=stream|poll          transport to use (default stream)
+//
+// point the event listener (and only the event listener) at the stand-in,
+// and the rate and latency at which its synthetic events are delivered are
+// logged every few seconds. Only loopback servers are accepted.
+class EventServiceDevSwitch
+{
+   public static boolean isActive()
+   {
+      return getServer() != null;
+   }
+
+   public static String getEventsURL()
+   {
+      String server = getServer();
+      return server.endsWith("/") ? server + "events" : server + "/events";
+   }
+
+   public static boolean isStreamingRequested()
+   {
+      return !"poll".equals(Window.Location.getParameter(TRANSPORT_PARAM));
+   }
+
+   private static String getServer()
+   {
+      if (!SuperDevMode.isActive())
+         return null;
+
+      String server = Window.Location.getParameter(SERVER_PARAM);
+      if (StringUtil.isNullOrEmpty(server))
+         return null;
+
+      if (!server.startsWith("http://127.0.0.1:") &&
+          !server.startsWith("http://localhost:"))
+      {
+         Debug.log("Ignoring non-local " + SERVER_PARAM + ": " + server);
+         return null;
+      }
+
+      return server;
+   }
+
+   // Records the delivery of the stand-in's events, each of which carries
+   // the time it was generated.
+   public static class DeliveryStats
+   {
+      public void record(String transport, JsArray<ClientEvent> events)
+      {
+         double now = Duration.currentTimeMillis();
+         if (!transport.equals(transport_))
+         {
+            // switched transports (e.g. fell back to long polling)
+            transport_ = transport;
+            reset(now);
+         }
+
+         for (int i = 0; i < events.length(); i++)
+         {
+            double generated = getGeneratedTime(events.get(i));
+            if (generated > 0)
+               latencies_.add(now - generated);
+         }
+
+         if (now - windowStart_ >= REPORT_INTERVAL_MS)
+         {
+            report(now);
+            reset(now);
+         }
+      }
+
+      private void reset(double now)
+      {
+         windowStart_ = now;
+         latencies_.clear();
+      }
+
+      private void report(double now)
+      {
+         if (latencies_.isEmpty())
+            return;
+
+         Collections.sort(latencies_);
+         double total = 0;
+         for (Double latency : latencies_)
+            total += latency;
+
+         Debug.log("Event transport " + transport_ + ": " +
+               Math.round(latencies_.size() * 1000 / (now - windowStart_)) +
+               " events/s, latency mean " +
+               Math.round(total / latencies_.size()) + "ms, p95 " +
+               Math.round(latencies_.get(
+                     (int) (latencies_.size() * 0.95))) + "ms");
+      }
+
+      // generation time in ms, or -1 if the event isn't from the stand-in
+      private static native double getGeneratedTime(ClientEvent event) /*-{
+         var data = event.data;
+         return (data && typeof data.ts === "number") ? data.ts * 1000 : -1;
+      }-*/;
+
+      private String transport_;
+      private double windowStart_;
+      private final ArrayList<Double> latencies_ = new ArrayList<Double>();
+
+      private static final int REPORT_INTERVAL_MS = 5000;
+   }
+
+   private static final String SERVER_PARAM = "event_server";
+   private static final String TRANSPORT_PARAM = "event_transport";
+}
@@ -0,0 +1,156 @@
+/*
+ * LongPollEventTransport.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.user.client.Timer;
+
+import org.rstudio.core.client.jsonrpc.RpcError;
+import org.rstudio.core.client.jsonrpc.RpcRequest;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+
+// Receives events by repeatedly issuing get_events requests, each of which
+// the server holds open until events are available. This is supported by
+// every server and is therefore the fallback for all other transports.
+class LongPollEventTransport implements ClientEventTransport
+{
+   public LongPollEventTransport(RemoteServer server)
+   {
+      server_ = server;
+   }
+   
+   @Override
+   public void open(Observer observer)
+   {
+      observer_ = observer;
+      isOpen_ = true;
+      
+      // reset listen count. this will allow us to delay listening on the
+      // second listen (to prevent the "perpetual loading" problem)
+      listenCount_ = 0;
+      
+      listen();
+   }
+   
+   @Override
+   public void close()
+   {
+      isOpen_ = false;
+      listenCount_ = 0;
+      if (activeRequestCallback_ != null)
+      {
+         activeRequestCallback_.cancel();
+         activeRequestCallback_ = null;
+      }
+      if (activeRequest_ != null)
+      {
+         activeRequest_.cancel();
+         activeRequest_ = null;
+      }
+   }
+   
+   private void listen()
+   {
+      // bounce listen to ensure it is never added to the browser's internal 
+      // list of requests bound to the current page load. being on this list
+      // (at least in webkit, perhaps in others) results in at least 2 and 
+      // perhaps other problems:
+      //
+      //  1) perpetual "Loading..." indicator displayed to user (user can
+      //     also then "cancel" the event request!); and
+      //
+      //  2) terimation of the request without warning by the browser when
+      //     the user hits the Back button within a frame hosted on the page
+      //     (note in this case we get no error so think the request is still
+      //     running -- see Watchdog for workaround to this general class of 
+      //     issues)
+      
+      // determine bounce ms (do a bigger bounce for the second listen
+      // request as this is the one which gets us stuck in "perpetual loading")
+      int bounceMs = 1;
+      if (++listenCount_ == 2)
+         bounceMs = kSecondListenBounceMs;
+      
+      Timer listenTimer = new Timer() {
+         @Override
+         public void run()
+         {
+            doListen();
+         }
+      };
+      listenTimer.schedule(bounceMs);
+   }
+   
+   private void doListen()
+   {  
+      // abort if we are no longer running
+      if (!isOpen_)
+         return;
+          
+      // setup request callback (save reference for cancellation)
+      activeRequestCallback_ = new ServerRequestCallback<JsArray<ClientEvent>>() 
+      {
+         @Override
+         public void onResponseReceived(JsArray<ClientEvent> events)
+         {
+            observer_.onEventsReceived(events);
+            
+            // listen for more events
+            listen();
+         }
+         
+         @Override
+         public void onError(ServerError error)
+         {           
+            close();
+            observer_.onTransportError(error);
+         }
+      };
+      
+      // retry handler (restart listener)
+      RetryHandler retryHandler = new RetryHandler() {
+
+         public void onRetry()
+         {
+            observer_.onTransportRetry();
+         }
+         
+         public void onError(RpcError error)
+         {
+            observer_.onTransportRetryFailed();
+         }
+      };
+      
+      // send request
+      activeRequest_ = server_.getEvents(observer_.getLastEventId(), 
+                                         activeRequestCallback_,
+                                         retryHandler);                             
+   }
+   
+   private final RemoteServer server_;
+   
+   // note: kSecondListenBounceMs must be less than the listener's watchdog
+   // interval (by a reasonable margin) to void the watchdog getting involved
+   // unnecessarily during a listen delay
+   private final int kSecondListenBounceMs = 250;
+   
+   private Observer observer_;
+   private boolean isOpen_;
+   private int listenCount_;
+   
+   private RpcRequest activeRequest_ ;
+   private ServerRequestCallback<JsArray<ClientEvent>> activeRequestCallback_;
+}
@@ -153,7 +153,7 @@ import org.rstudio.studio.client.workbench.views.environment.model.DataPreviewRe
 import org.rstudio.studio.client.workbench.views.environment.model.DownloadInfo;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentContextData;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentFrame;
-import org.rstudio.studio.client.workbench.views.environment.model.ObjectContents;
+import org.rstudio.studio.client.workbench.views.environment.model.ObjectContentsPage;
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
 import org.rstudio.studio.client.workbench.views.files.model.DirectoryListing;
 import org.rstudio.studio.client.workbench.views.files.model.FileUploadToken;
@@ -1639,6 +1639,14 @@ public class RemoteServer implements Server
       params.set(0, new JSONString(docId));
       sendRequest(RPC_SCOPE, GET_SOURCE_DOCUMENT, params, requestCallback);
    }
+   
+   public void getSourceDocuments(List<String> docIds,
+               ServerRequestCallback<JsArray<SourceDocument>> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, JSONUtils.toJSONStringArray(docIds));
+      sendRequest(RPC_SCOPE, GET_SOURCE_DOCUMENTS, params, requestCallback);
+   }
 
    public void createRdShell(
                         String name,
@@ -2336,6 +2344,44 @@ public class RemoteServer implements Server
                          retryHandler);
    }
 
+   boolean isEventStreamingSupported()
+   {
+      if (EventServiceDevSwitch.isActive())
+         return EventServiceDevSwitch.isStreamingRequested();
+      
+      SessionInfo sessionInfo = session_.getSessionInfo();
+      return sessionInfo != null && sessionInfo.getEventStreamingSupported();
+   }
+   
+   String getEventStreamURL()
+   {
+      return getEventsURL() + "/stream_events";
+   }
+   
+   private String getEventsURL()
+   {
+      if (EventServiceDevSwitch.isActive())
+         return EventServiceDevSwitch.getEventsURL();
+      
+      return getApplicationURL(EVENTS_SCOPE);
+   }
+   
+   // json-rpc request body for the persistent counterpart of getEvents
+   // (see StreamingEventTransport)
+   String createEventStreamRequest(int lastEventId)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONNumber(lastEventId));
+      
+      JSONObject request = new JSONObject();
+      request.put("method", new JSONString("stream_events"));
+      request.put("params", params);
+      if (clientId_ != null)
+         request.put("clientId", new JSONString(clientId_));
+      request.put("clientVersion", new JSONString(clientVersion_));
+      return request.toString();
+   }
+
    void handleUnauthorizedError()
    {
       // disconnect
@@ -2551,7 +2597,9 @@ public class RemoteServer implements Server
       ensureListeningForEvents();
 
       // create request
-      String rserverURL = getApplicationURL(scope) + "/" + method;
+      String rserverURL = (scope.equals(EVENTS_SCOPE) ? 
+                                 getEventsURL() : 
+                                 getApplicationURL(scope)) + "/" + method;
       RpcRequest rpcRequest = new RpcRequest(rserverURL,
                                              method,
                                              params,
@@ -3627,14 +3675,22 @@ public class RemoteServer implements Server
    }
 
    @Override
-   public void getObjectContents(
+   public void getObjectContentsPage(
                  String objectName,
-                 ServerRequestCallback<ObjectContents> requestCallback)
+                 JsArrayString path,
+                 int offset,
+                 int count,
+                 int previewLimit,
+                 ServerRequestCallback<ObjectContentsPage> requestCallback)
    {
       JSONArray params = new JSONArray();
       params.set(0, new JSONString(objectName));
+      params.set(1, new JSONArray(path));
+      params.set(2, new JSONNumber(offset));
+      params.set(3, new JSONNumber(count));
+      params.set(4, new JSONNumber(previewLimit));
       sendRequest(RPC_SCOPE,
-                  GET_OBJECT_CONTENTS,
+                  GET_OBJECT_CONTENTS_PAGE,
                   params,
                   requestCallback);
    }
@@ -4915,6 +4971,7 @@ public class RemoteServer implements Server
    private static final String REMOVE_CACHED_DATA = "remove_cached_data";
    private static final String ENSURE_FILE_EXISTS = "ensure_file_exists";
    private static final String GET_SOURCE_DOCUMENT = "get_source_document";
+   private static final String GET_SOURCE_DOCUMENTS = "get_source_documents";
    
    private static final String GET_EDITOR_CONTEXT_COMPLETED = "get_editor_context_completed";
 
@@ -5040,7 +5097,7 @@ public class RemoteServer implements Server
    private static final String SET_ENVIRONMENT_FRAME = "set_environment_frame";
    private static final String GET_ENVIRONMENT_NAMES = "get_environment_names";
    private static final String GET_ENVIRONMENT_STATE = "get_environment_state";
-   private static final String GET_OBJECT_CONTENTS = "get_object_contents";
+   private static final String GET_OBJECT_CONTENTS_PAGE = "get_object_contents_page";
    private static final String REQUERY_CONTEXT = "requery_context";
    
    private static final String GET_FUNCTION_STEPS = "get_function_steps";
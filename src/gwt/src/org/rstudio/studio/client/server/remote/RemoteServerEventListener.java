@@ -20,13 +20,11 @@ import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.Window.ClosingEvent;
 import com.google.gwt.user.client.Window.ClosingHandler;
-import org.rstudio.core.client.jsonrpc.RpcError;
 import org.rstudio.core.client.jsonrpc.RpcRequest;
 import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
 import org.rstudio.core.client.jsonrpc.RpcResponse;
 import org.rstudio.studio.client.application.events.*;
 import org.rstudio.studio.client.server.ServerError;
-import org.rstudio.studio.client.server.ServerRequestCallback;
 
 import java.util.HashMap;
 
@@ -54,8 +52,11 @@ class RemoteServerEventListener
       server_ = server;
       externalEventHandler_ = externalEventHandler;
       eventDispatcher_ = new ClientEventDispatcher(server_.getEventBus());
+      longPollTransport_ = new LongPollEventTransport(server_);
+      streamingTransport_ = new StreamingEventTransport(server_);
+      if (EventServiceDevSwitch.isActive())
+         deliveryStats_ = new EventServiceDevSwitch.DeliveryStats();
       lastEventId_ = -1;
-      listenCount_ = 0;
       listenErrorCount_ = 0;
       isListening_ = false;
       sessionWasQuit_ = false;
@@ -104,10 +105,6 @@ class RemoteServerEventListener
       // know when to restart in the case that we are unexpectedly cutoff)
       isListening_ = true;
       
-      // reset listen count. this will allow us to delay listening on the
-      // second listen (to prevent the "perpetual loading" problem)
-      listenCount_ = 0;
-      
       // reset our lastEventId to make sure we get all events which are 
       // currently pending on the server. note in the case of "restarting"
       // the event listener setting this to -1 could in theory cause us to
@@ -121,23 +118,21 @@ class RemoteServerEventListener
       // eliminate this scenario then
       lastEventId_ = -1;
       
-      // start listening
-      listen();
+      // start listening (streaming if the session supports it)
+      if (!streamingUnavailable_ && server_.isEventStreamingSupported())
+         activeTransport_ = streamingTransport_;
+      else
+         activeTransport_ = longPollTransport_;
+      activeTransport_.open(transportObserver_);
    }
      
    public void stop()
    {        
       isListening_ = false;
-      listenCount_ = 0;
-      if (activeRequestCallback_ != null)
-      {
-         activeRequestCallback_.cancel();
-         activeRequestCallback_ = null;
-      }
-      if (activeRequest_ != null)
+      if (activeTransport_ != null)
       {
-         activeRequest_.cancel();
-         activeRequest_ = null;
+         activeTransport_.close();
+         activeTransport_ = null;
       }
    }
    
@@ -209,152 +204,127 @@ class RemoteServerEventListener
       start();
    }
    
-   private void listen()
+   private final ClientEventTransport.Observer transportObserver_ =
+         new ClientEventTransport.Observer()
    {
-      // bounce listen to ensure it is never added to the browser's internal 
-      // list of requests bound to the current page load. being on this list
-      // (at least in webkit, perhaps in others) results in at least 2 and 
-      // perhaps other problems:
-      //
-      //  1) perpetual "Loading..." indicator displayed to user (user can
-      //     also then "cancel" the event request!); and
-      //
-      //  2) terimation of the request without warning by the browser when
-      //     the user hits the Back button within a frame hosted on the page
-      //     (note in this case we get no error so think the request is still
-      //     running -- see Watchdog for workaround to this general class of 
-      //     issues)
-      
-      // determine bounce ms (do a bigger bounce for the second listen
-      // request as this is the one which gets us stuck in "perpetual loading")
-      int bounceMs = 1;
-      if (++listenCount_ == 2)
-         bounceMs = kSecondListenBounceMs;
+      @Override
+      public int getLastEventId()
+      {
+         return lastEventId_;
+      }
       
-      Timer listenTimer = new Timer() {
-         @Override
-         public void run()
+      @Override
+      public void onEventsReceived(JsArray<ClientEvent> events)
+      {
+         // keep watchdog appraised of successful receipt of events
+         watchdog_.notifyResponseReceived();
+         
+         if (deliveryStats_ != null && events != null)
          {
-            doListen();
+            deliveryStats_.record(activeTransport_ == streamingTransport_ ?
+                                       "stream" : "long-poll",
+                                  events);
          }
-      };
-      listenTimer.schedule(bounceMs);
-   }
-   
-   private void doListen()
-   {  
-      // abort if we are no longer running
-      if (!isListening_)
-         return;
-          
-      // setup request callback (save reference for cancellation)
-      activeRequestCallback_ = new ServerRequestCallback<JsArray<ClientEvent>>() 
-      {
-         @Override
-         public void onResponseReceived(JsArray<ClientEvent> events)
+         
+         try
          {
-            // keep watchdog appraised of successful receipt of events
-            watchdog_.notifyResponseReceived();
-            
-            try
+            // only processs events if we are still listening
+            if (isListening_ && (events != null))
             {
-               // only processs events if we are still listening
-               if (isListening_ && (events != null))
+               for (int i=0; i<events.length(); i++)
                {
-                  for (int i=0; i<events.length(); i++)
-                  {
-                     // we can stop listening in the middle of dispatching
-                     // events (e.g. if we dispatch a Suicide event) so we 
-                     // need to check the listening_ flag before each event
-                     // is dispatched
-                     if (!isListening_)
-                        return;
-                     
-                     // disppatch event
-                     ClientEvent event = events.get(i);
-                     dispatchEvent(event);
-                     lastEventId_ = event.getId();
-                  }   
-               }
-            }
-            // catch all here to make sure that in all cases we call
-            // listen() again after processing
-            catch(Throwable e)
-            {
-               GWT.log("ERROR: Processing client events", e);
+                  // we can stop listening in the middle of dispatching
+                  // events (e.g. if we dispatch a Suicide event) so we 
+                  // need to check the listening_ flag before each event
+                  // is dispatched
+                  if (!isListening_)
+                     return;
+                  
+                  // disppatch event
+                  ClientEvent event = events.get(i);
+                  dispatchEvent(event);
+                  lastEventId_ = event.getId();
+               }   
             }
-            
-            // listen for more events
-            listen();
          }
-         
-         @Override
-         public void onError(ServerError error)
-         {           
-            // stop listening for events
-            stop();
-            
-            // if this was server unavailable then signal event and return
-            if (error.getCode() == ServerError.UNAVAILABLE)
-            {
-               ServerUnavailableEvent event = new ServerUnavailableEvent();
-               server_.getEventBus().fireEvent(event);   
-               return;
-            }
-            
-            // attempt to restart listening, but throttle restart attempts
-            // in both timing (500ms delay) and quantity (no more than 5
-            // attempts). We do this because unthrottled restart attempts could
-            // result in our server getting hammered with requests)
-            if (listenErrorCount_++ <= 5)
-            {
-               Timer startTimer = new Timer() {
-                  @Override
-                  public void run()
-                  {
-                     // only start again if we haven't been started 
-                     // by some other means (e.g. ensureListening, etc)
-                     if (!isListening_)
-                        start();
-                  }
-               };
-               startTimer.schedule(500);
-            }
-            // otherwise reset the listen error count and remain stopped
-            else
-            {
-               listenErrorCount_ = 0;
-            }
+         // catch all here to make sure that in all cases the transport
+         // continues listening after processing
+         catch(Throwable e)
+         {
+            GWT.log("ERROR: Processing client events", e);
          }
-      };
+      }
       
-      // retry handler (restart listener)
-      RetryHandler retryHandler = new RetryHandler() {
-
-         public void onRetry()
+      @Override
+      public void onTransportError(ServerError error)
+      {           
+         // stop listening for events
+         stop();
+         
+         // if this was server unavailable then signal event and return
+         if (error.getCode() == ServerError.UNAVAILABLE)
          {
-            // need to do a full restart to ensure that the existing
-            // activeRequest_ and activeRequestCallback_ are cleaned up
-            // and all state is reset correctly
-            restart();
+            ServerUnavailableEvent event = new ServerUnavailableEvent();
+            server_.getEventBus().fireEvent(event);   
+            return;
          }
          
-         public void onError(RpcError error)
+         // attempt to restart listening, but throttle restart attempts
+         // in both timing (500ms delay) and quantity (no more than 5
+         // attempts). We do this because unthrottled restart attempts could
+         // result in our server getting hammered with requests)
+         if (listenErrorCount_++ <= 5)
          {
-            // error while attempting to recover, to be on the safe side
-            // we simply stop listening for events. if rather than stopping 
-            // we restarted we would open ourselves up to a situation
-            // where we keep hitting the same error over and over again.
-            stop();
+            Timer startTimer = new Timer() {
+               @Override
+               public void run()
+               {
+                  // only start again if we haven't been started 
+                  // by some other means (e.g. ensureListening, etc)
+                  if (!isListening_)
+                     start();
+               }
+            };
+            startTimer.schedule(500);
+         }
+         // otherwise reset the listen error count and remain stopped
+         else
+         {
+            listenErrorCount_ = 0;
          }
-      };
+      }
       
-      // send request
-      activeRequest_ = server_.getEvents(lastEventId_, 
-                                         activeRequestCallback_,
-                                         retryHandler);                             
-   }
-   
+      @Override
+      public void onTransportRetry()
+      {
+         // need to do a full restart to ensure that the transport's
+         // outstanding requests are cleaned up and all state is reset 
+         // correctly
+         restart();
+      }
+      
+      @Override
+      public void onTransportRetryFailed()
+      {
+         // error while attempting to recover, to be on the safe side
+         // we simply stop listening for events. if rather than stopping 
+         // we restarted we would open ourselves up to a situation
+         // where we keep hitting the same error over and over again.
+         stop();
+      }
+      
+      @Override
+      public void onTransportUnavailable()
+      {
+         // fall back to long polling for the remainder of the session
+         streamingUnavailable_ = true;
+         if (isListening_)
+         {
+            activeTransport_ = longPollTransport_;
+            activeTransport_.open(this);
+         }
+      }
+   };
    
    private void dispatchEvent(ClientEvent event)
    {
@@ -475,20 +445,21 @@ class RemoteServerEventListener
 
    private final RemoteServer server_;
    
-   // note: kSecondListenDelayMs must be less than kWatchdogIntervalMs
-   // (by a reasonable margin) to void the watchdog getting involved 
-   // unnecessarily during a listen delay
+   // note: LongPollEventTransport's second listen delay must be less than
+   // kWatchdogIntervalMs (by a reasonable margin) to void the watchdog
+   // getting involved unnecessarily during a listen delay
    private final int kWatchdogIntervalMs = 1000;
-   private final int kSecondListenBounceMs = 250;
        
    private boolean isListening_;
    private int lastEventId_ ;
-   private int listenCount_ ;
    private int listenErrorCount_ ;
    private boolean sessionWasQuit_ ;
    
-   private RpcRequest activeRequest_ ;
-   private ServerRequestCallback<JsArray<ClientEvent>> activeRequestCallback_;
+   private final ClientEventTransport longPollTransport_;
+   private final ClientEventTransport streamingTransport_;
+   private ClientEventTransport activeTransport_;
+   private boolean streamingUnavailable_;
+   private EventServiceDevSwitch.DeliveryStats deliveryStats_;
 
    private final ClientEventDispatcher eventDispatcher_;
    
@@ -0,0 +1,250 @@
+/*
+ * StreamingEventTransport.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.xhr.client.ReadyStateChangeHandler;
+import com.google.gwt.xhr.client.XMLHttpRequest;
+
+import org.rstudio.core.client.jsonrpc.RpcError;
+import org.rstudio.core.client.jsonrpc.RpcResponse;
+
+// Receives events over a single long-lived request, whose response the
+// server writes incrementally as events occur (see ClientEventStreamParser
+// for the framing). Compared with long polling this avoids a request setup
+// (and the associated gap, during which events queue on the server) for
+// every batch of events.
+//
+// The server ends the stream periodically (and we end it ourselves once
+// enough text has accumulated in the response) after which we reconnect
+// from the last event seen. If the stream can't be established at all the
+// observer is told that the transport is unavailable, so that it can fall
+// back to long polling.
+class StreamingEventTransport implements ClientEventTransport
+{
+   public StreamingEventTransport(RemoteServer server)
+   {
+      server_ = server;
+   }
+   
+   @Override
+   public void open(Observer observer)
+   {
+      observer_ = observer;
+      isOpen_ = true;
+      emptyStreamCount_ = 0;
+      connect();
+   }
+   
+   @Override
+   public void close()
+   {
+      isOpen_ = false;
+      abortRequest();
+   }
+   
+   private void connect()
+   {
+      if (!isOpen_)
+         return;
+      
+      parser_ = new ClientEventStreamParser();
+      framesReceived_ = 0;
+      
+      request_ = XMLHttpRequest.create();
+      request_.open("POST", server_.getEventStreamURL());
+      request_.setRequestHeader("Content-Type", "application/json");
+      request_.setOnReadyStateChange(new ReadyStateChangeHandler()
+      {
+         @Override
+         public void onReadyStateChange(XMLHttpRequest request)
+         {
+            if (request == request_)
+               onRequestStateChanged();
+         }
+      });
+      request_.send(server_.createEventStreamRequest(
+                                          observer_.getLastEventId()));
+   }
+   
+   private void reconnect(int delayMs)
+   {
+      abortRequest();
+      reconnectTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            reconnectTimer_ = null;
+            connect();
+         }
+      };
+      reconnectTimer_.schedule(delayMs);
+   }
+   
+   private void abortRequest()
+   {
+      if (reconnectTimer_ != null)
+      {
+         reconnectTimer_.cancel();
+         reconnectTimer_ = null;
+      }
+      
+      if (request_ != null)
+      {
+         request_.clearOnReadyStateChange();
+         request_.abort();
+         request_ = null;
+      }
+   }
+   
+   private void onRequestStateChanged()
+   {
+      int state = request_.getReadyState();
+      if (state != XMLHttpRequest.LOADING && state != XMLHttpRequest.DONE)
+         return;
+      
+      int status = request_.getStatus();
+      if (status == 200)
+      {
+         String text = request_.getResponseText();
+         if (!readFrames(text))
+            return;
+         
+         if (state == XMLHttpRequest.DONE)
+            onStreamEnded(text);
+         else if (parser_.getOffset() > kMaxStreamLength)
+            reconnect(1);
+      }
+      else if (state == XMLHttpRequest.DONE)
+      {
+         onStreamFailed(status);
+      }
+   }
+   
+   // dispatch all complete frames received so far; returns false if the
+   // stream should no longer be read (an error or close occurred)
+   private boolean readFrames(String text)
+   {
+      RpcResponse frame;
+      while (isOpen_ && (frame = parser_.nextFrame(text)) != null)
+      {
+         if (!onFrame(frame))
+            return false;
+      }
+      return isOpen_;
+   }
+   
+   private boolean onFrame(RpcResponse frame)
+   {
+      if (frame.getError() != null)
+      {
+         fail(frame.getError());
+         return false;
+      }
+      
+      framesReceived_++;
+      everReceivedFrames_ = true;
+      
+      JsArray<ClientEvent> events = frame.getResult();
+      if (events != null && events.length() > 0)
+         observer_.onEventsReceived(events);
+      return true;
+   }
+   
+   private void onStreamEnded(String text)
+   {
+      // a server that can't stream (or rejects this client) may reply with
+      // a single, unterminated json-rpc response
+      String remainder = parser_.getRemainder(text).trim();
+      if (remainder.length() > 0)
+      {
+         RpcResponse response = RpcResponse.parse(remainder);
+         if (response == null || response.getError() == null)
+         {
+            unavailable();
+            return;
+         }
+         
+         fail(response.getError());
+         return;
+      }
+      
+      // guard against spinning on a server which ends every stream right
+      // away without sending anything
+      if (framesReceived_ == 0)
+      {
+         if (++emptyStreamCount_ > kMaxEmptyStreams)
+         {
+            unavailable();
+            return;
+         }
+      }
+      else
+      {
+         emptyStreamCount_ = 0;
+      }
+      
+      reconnect(1);
+   }
+   
+   private void onStreamFailed(int status)
+   {
+      // if we've never received anything on a stream then the server most
+      // likely doesn't support streaming at all
+      if (!everReceivedFrames_)
+      {
+         unavailable();
+         return;
+      }
+      
+      String message = status == 0 ?
+            "Unable to establish connection with R session" :
+            "Status code " + status + " returned";
+      fail(RpcError.create(RpcError.TRANSMISSION_ERROR, message));
+   }
+   
+   private void fail(RpcError error)
+   {
+      close();
+      observer_.onTransportError(new RemoteServerError(error));
+   }
+   
+   private void unavailable()
+   {
+      close();
+      observer_.onTransportUnavailable();
+   }
+   
+   private final RemoteServer server_;
+   
+   // reconnect once this much text has been read from a single response, so
+   // that the browser can release the accumulated response text
+   private static final int kMaxStreamLength = 4 * 1024 * 1024;
+   
+   // number of consecutive streams ending with no frames that we'll tolerate
+   // (a streaming server sends heartbeat frames)
+   private static final int kMaxEmptyStreams = 3;
+   
+   private Observer observer_;
+   private boolean isOpen_;
+   private XMLHttpRequest request_;
+   private Timer reconnectTimer_;
+   private ClientEventStreamParser parser_;
+   private int framesReceived_;
+   private int emptyStreamCount_;
+   private boolean everReceivedFrames_;
+}
@@ -368,6 +368,7 @@ public abstract class
    public abstract AppCommand helpKeyboardShortcuts();
    public abstract AppCommand showRequestLog();
    public abstract AppCommand logFocusedElement();
+   public abstract AppCommand logTaskSchedulerStatistics();
    public abstract AppCommand debugDumpContents();
    public abstract AppCommand debugImportDump();
    public abstract AppCommand refreshSuperDevMode();
@@ -503,6 +504,7 @@ public abstract class
    public abstract AppCommand paneLayout();
    public abstract AppCommand maximizeConsole();
    public abstract AppCommand toggleEditorTokenInfo();
+   public abstract AppCommand logEditorTokenizerStatistics();
    
    public static final String KEYBINDINGS_PATH =
          "~/.R/keybindings/rstudio_commands.json";
@@ -386,6 +386,12 @@ public class SessionInfo extends JavaScriptObject
       return this.disable_check_for_updates;
    }-*/;
    
+   // true when the session can deliver client events over a persistent
+   // stream (sessions which predate the stream leave this undefined)
+   public final native boolean getEventStreamingSupported() /*-{
+      return !!this.event_streaming;
+   }-*/;
+   
    public final native boolean getShowIdentity() /*-{
       return this.show_identity;
    }-*/;
@@ -74,19 +74,42 @@ public abstract class Prefs
          return reg;
       }
       
+      // resolved values are cached, since prefs are read on hot paths (e.g.
+      // on every console write); the cache is invalidated whenever a value
+      // is set through this object, or when prefs are changed wholesale
+      // (see invalidateCachedValues)
       public T getValue()
       {
-         if (projectRoot_.hasKey(name_))
-            return doGetValue(projectRoot_);
-         else
-            return getGlobalValue();
+         if (!hasCachedValue_)
+         {
+            if (projectRoot_.hasKey(name_))
+               cachedValue_ = doGetValue(projectRoot_);
+            else
+               cachedValue_ = getGlobalValue();
+            hasCachedValue_ = true;
+         }
+         return cachedValue_;
       }
 
       public T getGlobalValue()
       {
-         if (!globalRoot_.hasKey(name_))
-            return defaultValue_;
-         return doGetValue(globalRoot_);
+         if (!hasCachedGlobalValue_)
+         {
+            if (!globalRoot_.hasKey(name_))
+               cachedGlobalValue_ = defaultValue_;
+            else
+               cachedGlobalValue_ = doGetValue(globalRoot_);
+            hasCachedGlobalValue_ = true;
+         }
+         return cachedGlobalValue_;
+      }
+      
+      public void invalidate()
+      {
+         hasCachedValue_ = false;
+         hasCachedGlobalValue_ = false;
+         cachedValue_ = null;
+         cachedGlobalValue_ = null;
       }
 
       public abstract T doGetValue(JsObject root);
@@ -134,6 +157,7 @@ public abstract class Prefs
             return;
 
          doSetValue(root, name_, value);
+         invalidate();
          if (fireEvents)
             ValueChangeEvent.fire(this, getValue());
          
@@ -142,6 +166,11 @@ public abstract class Prefs
       protected final String name_;
       private final T defaultValue_;
       private final HandlerManager handlerManager_ = new HandlerManager(this);
+      
+      private boolean hasCachedValue_ = false;
+      private boolean hasCachedGlobalValue_ = false;
+      private T cachedValue_;
+      private T cachedGlobalValue_;
    }
 
    private class BooleanValue extends JsonValue<Boolean>
@@ -328,6 +357,15 @@ public abstract class Prefs
       return val;
    }
 
+   
+   // discard all cached pref values; this should be called whenever the
+   // underlying global or project pref objects may have been modified
+   // without going through PrefValue.setGlobalValue / setProjectValue
+   public void invalidateCachedValues()
+   {
+      for (PrefValue<?> value : values_.values())
+         ((JsonValue<?>) value).invalidate();
+   }
 
    private final JsObject globalRoot_;
    private final JsObject projectRoot_;
@@ -89,7 +89,9 @@ public class UIPrefs extends UIPrefsAccessor implements UiPrefsChangedHandler
    
    @Override
    public void onUiPrefsChanged(UiPrefsChangedEvent e)
-   {        
+   {
+      invalidateCachedValues();
+      
       if (e.getType().equals(UiPrefsChangedEvent.GLOBAL_TYPE))
       {
          // get prefs accessor
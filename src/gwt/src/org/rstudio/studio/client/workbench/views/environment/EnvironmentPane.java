@@ -16,6 +16,7 @@
 package org.rstudio.studio.client.workbench.views.environment;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 import org.rstudio.core.client.DebugFilePosition;
@@ -42,7 +43,8 @@ import org.rstudio.studio.client.workbench.views.environment.model.CallFrame;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentContextData;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentFrame;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentServerOperations;
-import org.rstudio.studio.client.workbench.views.environment.model.ObjectContents;
+import org.rstudio.studio.client.workbench.views.environment.model.ObjectContentsNode;
+import org.rstudio.studio.client.workbench.views.environment.model.ObjectContentsPage;
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
 import org.rstudio.studio.client.workbench.views.environment.view.EnvironmentObjects;
 import org.rstudio.studio.client.workbench.views.environment.view.EnvironmentObjectsObserver;
@@ -171,18 +173,22 @@ public class EnvironmentPane extends WorkbenchPane
    @Override
    public void addObject(RObject object)
    {
+      objectContents_.remove(object.getName());
       objects_.addObject(object);
    }
 
    @Override
    public void addObjects(JsArray<RObject> objects)
    {
+      for (int i = 0; i < objects.length(); i++)
+         objectContents_.remove(objects.get(i).getName());
       objects_.addObjects(objects);
    }
    
    @Override
    public void removeObject(String objectName)
    {
+      objectContents_.remove(objectName);
       objects_.removeObject(objectName);
    }
    
@@ -205,6 +211,7 @@ public class EnvironmentPane extends WorkbenchPane
    public void clearObjects()
    {
       objects_.clearObjects();
+      objectContents_.clear();
       expandedObjects_.clear();
       scrollPosition_ = 0;
       isClientStateDirty_ = true;
@@ -381,22 +388,46 @@ public class EnvironmentPane extends WorkbenchPane
       prefs_.showInternalFunctionsInTraceback().setProjectValue(show);
    }
 
-   public void fillObjectContents(final RObject object, 
+   @Override
+   public ObjectContentsNode getObjectContents(String objectName)
+   {
+      // contents are cached until the object is reassigned or removed, so
+      // collapsing and re-expanding an object doesn't fetch them again
+      ObjectContentsNode root = objectContents_.get(objectName);
+      if (root == null)
+      {
+         root = new ObjectContentsNode(objectName);
+         objectContents_.put(objectName, root);
+      }
+      return root;
+   }
+
+   @Override
+   public void fillObjectContents(final ObjectContentsNode node,
                                   final Operation onCompleted)
    {
-      server_.getObjectContents(object.getName(), 
-            new ServerRequestCallback<ObjectContents>()
+      // fetch the next page of the node's children
+      node.setLoading(true);
+      server_.getObjectContentsPage(
+            node.getObjectName(),
+            node.getPath(),
+            node.getChildren().size(),
+            CONTENTS_PAGE_SIZE,
+            CONTENTS_PREVIEW_LIMIT,
+            new ServerRequestCallback<ObjectContentsPage>()
       {
          @Override
-         public void onResponseReceived(ObjectContents contents)
+         public void onResponseReceived(ObjectContentsPage page)
          {
-            object.setDeferredContents(contents.getContents());
+            node.setLoading(false);
+            node.addPage(page);
             onCompleted.execute();
          }
 
          @Override
          public void onError(ServerError error)
          {
+            node.setLoading(false);
             onCompleted.execute();
          }
       });
@@ -595,6 +626,8 @@ public class EnvironmentPane extends WorkbenchPane
    private final GlobalDisplay globalDisplay_;
    private final EnvironmentServerOperations server_;
    private final UIPrefs prefs_;
+   private final HashMap<String, ObjectContentsNode> objectContents_ =
+         new HashMap<String, ObjectContentsNode>();
 
    private ToolbarButton dataImportButton_;
    private ToolbarPopupMenu environmentMenu_;
@@ -608,4 +641,10 @@ public class EnvironmentPane extends WorkbenchPane
    private JsArray<EnvironmentFrame> environments_;
    private String environmentName_;
    private boolean environmentIsLocal_;
+
+   // the number of elements fetched at a time when expanding an object
+   private static final int CONTENTS_PAGE_SIZE = 100;
+
+   // elements larger than this (in bytes) are previewed by size only
+   private static final int CONTENTS_PREVIEW_LIMIT = 524288;
 }
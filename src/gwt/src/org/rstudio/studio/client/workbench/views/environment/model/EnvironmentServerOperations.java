@@ -17,6 +17,7 @@ package org.rstudio.studio.client.workbench.views.environment.model;
 import java.util.List;
 
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
 
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
@@ -63,9 +64,13 @@ public interface EnvironmentServerOperations
    void getEnvironmentState(
               ServerRequestCallback<EnvironmentContextData> requestCallback);
 
-   void getObjectContents(
+   void getObjectContentsPage(
               String objectName,
-              ServerRequestCallback<ObjectContents> requestCallback);
+              JsArrayString path,
+              int offset,
+              int count,
+              int previewLimit,
+              ServerRequestCallback<ObjectContentsPage> requestCallback);
    
    void requeryContext(ServerRequestCallback<Void> requestCallback);
 }
\ No newline at end of file
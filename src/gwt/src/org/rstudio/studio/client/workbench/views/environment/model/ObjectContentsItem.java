@@ -0,0 +1,48 @@
+/*
+ * ObjectContentsItem.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.environment.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+// a single child element of an object, as returned in an ObjectContentsPage
+public class ObjectContentsItem extends JavaScriptObject
+{
+   protected ObjectContentsItem() {}
+
+   // the key used to address this element in a contents path
+   public final native String getKey() /*-{
+      return this.key;
+   }-*/;
+
+   public final native String getName() /*-{
+      return this.name;
+   }-*/;
+
+   public final native String getType() /*-{
+      return this.type;
+   }-*/;
+
+   public final native String getValue() /*-{
+      return this.value;
+   }-*/;
+
+   public final native int getLength() /*-{
+      return this.length;
+   }-*/;
+
+   public final native boolean isExpandable() /*-{
+      return this.expandable;
+   }-*/;
+}
@@ -0,0 +1,139 @@
+/*
+ * ObjectContentsNode.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.environment.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+// a node in the tree of an object's contents. children are loaded from the
+// server a page at a time, on demand, and kept until the node is discarded
+// (which happens when the object it belongs to is reassigned or removed).
+public class ObjectContentsNode
+{
+   // creates the root node for the named object
+   public ObjectContentsNode(String objectName)
+   {
+      this(objectName, null, null);
+   }
+
+   private ObjectContentsNode(String objectName,
+                              ObjectContentsNode parent,
+                              ObjectContentsItem item)
+   {
+      objectName_ = objectName;
+      parent_ = parent;
+      item_ = item;
+      depth_ = parent == null ? 0 : parent.depth_ + 1;
+   }
+
+   public String getObjectName()
+   {
+      return objectName_;
+   }
+
+   // the element this node represents; null for the root node
+   public ObjectContentsItem getItem()
+   {
+      return item_;
+   }
+
+   public int getDepth()
+   {
+      return depth_;
+   }
+
+   // the keys addressing this node's element, starting from the object
+   public JsArrayString getPath()
+   {
+      JsArrayString path = JsArrayString.createArray().cast();
+      for (ObjectContentsNode node = this;
+           node.parent_ != null;
+           node = node.parent_)
+      {
+         path.unshift(node.item_.getKey());
+      }
+      return path;
+   }
+
+   public boolean isExpandable()
+   {
+      return item_ == null || item_.isExpandable();
+   }
+
+   public List<ObjectContentsNode> getChildren()
+   {
+      return children_;
+   }
+
+   // whether at least one page of children has been loaded
+   public boolean isLoaded()
+   {
+      return total_ >= 0;
+   }
+
+   // the number of children not yet loaded
+   public int getRemaining()
+   {
+      return isLoaded() ? total_ - children_.size() : 0;
+   }
+
+   public void addPage(ObjectContentsPage page)
+   {
+      // ignore pages that don't continue where the last one left off (e.g.
+      // a duplicate response to a repeated request)
+      if (page.getOffset() != children_.size())
+         return;
+
+      total_ = page.getTotal();
+      JsArray<ObjectContentsItem> items = page.getItems();
+      for (int i = 0; i < items.length(); i++)
+      {
+         children_.add(new ObjectContentsNode(objectName_, this, items.get(i)));
+      }
+   }
+
+   public boolean isExpanded()
+   {
+      return expanded_;
+   }
+
+   public void setExpanded(boolean expanded)
+   {
+      expanded_ = expanded;
+   }
+
+   public boolean isLoading()
+   {
+      return loading_;
+   }
+
+   public void setLoading(boolean loading)
+   {
+      loading_ = loading;
+   }
+
+   private final String objectName_;
+   private final ObjectContentsNode parent_;
+   private final ObjectContentsItem item_;
+   private final int depth_;
+   private final ArrayList<ObjectContentsNode> children_ =
+         new ArrayList<ObjectContentsNode>();
+   private int total_ = -1;
+   private boolean expanded_ = false;
+   private boolean loading_ = false;
+}
@@ -1,7 +1,7 @@
 /*
- * ObjectContents.java
+ * ObjectContentsPage.java
  *
- * Copyright (C) 2009-12 by RStudio, Inc.
+ * Copyright (C) 2009-16 by RStudio, Inc.
  *
  * Unless you have received this program directly from RStudio pursuant
  * to the terms of a commercial license agreement with RStudio, then
@@ -15,13 +15,23 @@
 package org.rstudio.studio.client.workbench.views.environment.model;
 
 import com.google.gwt.core.client.JavaScriptObject;
-import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.core.client.JsArray;
 
-public class ObjectContents extends JavaScriptObject
+// a range of the children of an object (or of one of its nested elements)
+public class ObjectContentsPage extends JavaScriptObject
 {
-   protected ObjectContents() {}
-   
-   public native final JsArrayString getContents() /*-{
-      return this.contents;
+   protected ObjectContentsPage() {}
+
+   public final native int getOffset() /*-{
+      return this.offset;
+   }-*/;
+
+   // the total number of children, of which this page is a part
+   public final native int getTotal() /*-{
+      return this.total;
+   }-*/;
+
+   public final native JsArray<ObjectContentsItem> getItems() /*-{
+      return this.items;
    }-*/;
 }
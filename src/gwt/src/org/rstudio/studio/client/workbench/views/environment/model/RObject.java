@@ -59,10 +59,5 @@ public class RObject extends JavaScriptObject
    public final native boolean getContentsDeferred() /*-{
       return this.contents_deferred;
    }-*/;
-   
-   public final native void setDeferredContents(JsArrayString contents) /*-{
-      this.contents_deferred = false;
-      this.contents = contents;
-   }-*/;
 }
 
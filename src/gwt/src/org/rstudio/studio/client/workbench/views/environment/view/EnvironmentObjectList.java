@@ -19,6 +19,9 @@ import java.util.List;
 
 import org.rstudio.core.client.resources.CoreResources;
 import org.rstudio.core.client.theme.res.ThemeStyles;
+import org.rstudio.core.client.widget.Operation;
+import org.rstudio.studio.client.workbench.views.environment.model.ObjectContentsItem;
+import org.rstudio.studio.client.workbench.views.environment.model.ObjectContentsNode;
 import org.rstudio.studio.client.workbench.views.environment.view.RObjectEntry.Categories;
 
 import com.google.gwt.cell.client.ClickableTextCell;
@@ -27,6 +30,10 @@ import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.shared.GWT;
 import com.google.gwt.dom.builder.shared.TableCellBuilder;
 import com.google.gwt.dom.builder.shared.TableRowBuilder;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.resources.client.CssResource;
 import com.google.gwt.resources.client.ImageResource;
@@ -55,6 +62,8 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
       String clickableCol();
       String decoratedValueCol();
       String detailRow();
+      String contentsIcon();
+      String contentsMoreRow();
       String objectList();
    }
 
@@ -86,6 +95,18 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
       style_ = ((Resources)GWT.create(Resources.class)).style();
       style_.ensureInjected();
       addStyleName(style_.objectList());
+
+      // clicks on the rows showing an object's contents aren't associated
+      // with a column, so handle them at the table level
+      addDomHandler(new ClickHandler()
+      {
+         @Override
+         public void onClick(ClickEvent event)
+         {
+            onContentsRowClicked(
+                  Element.as(event.getNativeEvent().getEventTarget()));
+         }
+      }, ClickEvent.getType());
    }
 
    @Override
@@ -220,11 +241,18 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
    
    private void expandObject(final int index, final RObjectEntry object)
    {
-      if (!object.expanded && 
-          !object.isExpanding && 
-          object.rObject.getContentsDeferred())
+      if (object.rObject.getContentsDeferred())
       {
-         host_.fillEntryContents(object, index, true);
+         // deferred contents are fetched (and cached) on first expansion
+         if (object.expanded)
+         {
+            object.expanded = false;
+            redrawRow(index);
+         }
+         else if (!object.isExpanding)
+         {
+            host_.fillEntryContents(object, index, true);
+         }
       }
       else if (!object.rObject.getContentsDeferred())
       {
@@ -245,6 +273,72 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
       }
    }
 
+   private void onContentsRowClicked(Element target)
+   {
+      Element row = target;
+      while (row != null && !row.hasAttribute(CONTENTS_NODE_ATTRIBUTE))
+      {
+         if (row == getElement())
+            return;
+         row = row.getParentElement();
+      }
+      if (row == null)
+         return;
+
+      final int index = Integer.parseInt(
+            row.getAttribute(CONTENTS_ENTRY_ATTRIBUTE));
+      int nodeId = Integer.parseInt(row.getAttribute(CONTENTS_NODE_ATTRIBUTE));
+      if (!isVisibleIndex(index))
+         return;
+      RObjectEntry entry = getVisibleItem(index - getPageStart());
+      if (entry.contentsRows == null || nodeId >= entry.contentsRows.size())
+         return;
+      ObjectContentsNode node = entry.contentsRows.get(nodeId);
+      if (node.isLoading())
+         return;
+
+      if (row.hasAttribute(CONTENTS_MORE_ATTRIBUTE))
+      {
+         // fetch the next page of the node's children
+         fillNodeContents(index, node);
+      }
+      else if (node.isExpanded())
+      {
+         node.setExpanded(false);
+         redrawRow(index);
+      }
+      else if (node.isExpandable())
+      {
+         node.setExpanded(true);
+         if (node.isLoaded())
+            redrawRow(index);
+         else
+            fillNodeContents(index, node);
+      }
+   }
+
+   private void fillNodeContents(final int index, ObjectContentsNode node)
+   {
+      observer_.fillObjectContents(node, new Operation()
+      {
+         @Override
+         public void execute()
+         {
+            if (isVisibleIndex(index))
+               redrawRow(index);
+         }
+      });
+
+      // draw the progress indicator
+      redrawRow(index);
+   }
+
+   private boolean isVisibleIndex(int index)
+   {
+      int relIndex = index - getPageStart();
+      return relIndex >= 0 && relIndex < getVisibleItemCount();
+   }
+
    // builds individual rows of the object table
    private class EnvironmentObjectTableBuilder
            extends AbstractCellTableBuilder<RObjectEntry>
@@ -277,7 +371,15 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
          // if the row is expanded, draw its content
          if (rowValue.expanded)
          {
-            buildExpandedContentRow(rowValue);
+            if (rowValue.contents != null)
+            {
+               rowValue.contentsRows = new ArrayList<ObjectContentsNode>();
+               buildContentsRows(rowValue, rowValue.contents, absRowIndex);
+            }
+            else
+            {
+               buildExpandedContentRow(rowValue);
+            }
          }
       }
 
@@ -419,10 +521,108 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
             detail.endTR();
          }
       }
+
+      // draw a row for each loaded child of the given contents node, along
+      // with the children of any expanded descendants
+      private void buildContentsRows(RObjectEntry rowValue,
+                                     ObjectContentsNode node,
+                                     int absRowIndex)
+      {
+         for (ObjectContentsNode child: node.getChildren())
+         {
+            buildContentsNodeRow(rowValue, child, absRowIndex);
+            if (child.isExpanded())
+               buildContentsRows(rowValue, child, absRowIndex);
+         }
+
+         int remaining = node.getRemaining();
+         if (remaining > 0 || node.isLoading())
+         {
+            TableRowBuilder more = startContentsRow(rowValue, node, 
+                                                    absRowIndex);
+            more.attribute(CONTENTS_MORE_ATTRIBUTE, "1");
+            more.className(style_.detailRow() + " " + 
+                           style_.contentsMoreRow() + " " +
+                           ThemeStyles.INSTANCE.handCursor());
+            more.startTD().endTD();
+            TableCellBuilder moreCell = more.startTD().colSpan(2);
+            moreCell.style()
+                    .paddingLeft(indent(node.getDepth() + 1), Unit.PX)
+                    .endStyle();
+            moreCell.text(node.isLoading() ? 
+                             "Loading..." :
+                             "Show more (" + remaining + " remaining)")
+                    .endTD();
+            more.endTR();
+         }
+      }
+
+      private void buildContentsNodeRow(RObjectEntry rowValue,
+                                        ObjectContentsNode node,
+                                        int absRowIndex)
+      {
+         ObjectContentsItem item = node.getItem();
+         TableRowBuilder detail = startContentsRow(rowValue, node, 
+                                                   absRowIndex);
+         String className = style_.detailRow();
+         if (node.isExpandable())
+            className += " " + ThemeStyles.INSTANCE.handCursor();
+         detail.className(className);
+         detail.startTD().endTD();
+
+         SafeHtmlBuilder sb = new SafeHtmlBuilder();
+         if (node.isExpandable())
+         {
+            ImageResource icon = node.isLoading() ?
+                  CoreResources.INSTANCE.progress() :
+                  node.isExpanded() ?
+                     EnvironmentResources.INSTANCE.collapseIcon() :
+                     EnvironmentResources.INSTANCE.expandIcon();
+            sb.appendHtmlConstant("<img src=\"" + 
+                  icon.getSafeUri().asString() + "\" class=\"" +
+                  style_.contentsIcon() + "\" />");
+         }
+         String content = item.getName() + ": " + item.getValue();
+         sb.appendEscaped(content);
+
+         TableCellBuilder contentCell = detail.startTD().colSpan(2);
+         contentCell.style()
+                    .paddingLeft(indent(node.getDepth()), Unit.PX)
+                    .endStyle();
+         contentCell.title(content)
+                    .html(sb.toSafeHtml())
+                    .endTD();
+         detail.endTR();
+      }
+
+      // starts a row for a contents node; the row records the node it 
+      // represents so that clicks on it can be routed back to the node
+      private TableRowBuilder startContentsRow(RObjectEntry rowValue,
+                                               ObjectContentsNode node,
+                                               int absRowIndex)
+      {
+         TableRowBuilder row = startRow();
+         row.attribute(CONTENTS_ENTRY_ATTRIBUTE, absRowIndex);
+         row.attribute(CONTENTS_NODE_ATTRIBUTE, 
+                       rowValue.contentsRows.size());
+         rowValue.contentsRows.add(node);
+         return row;
+      }
+
+      private int indent(int depth)
+      {
+         // nodes at the top level are indented by the same amount as the
+         // plain detail rows
+         return 10 + (depth - 1) * 16;
+      }
    }
    
    private Style style_;
 
+   private static final String CONTENTS_ENTRY_ATTRIBUTE = "data-entry";
+   private static final String CONTENTS_NODE_ATTRIBUTE = "data-contents-node";
+   private static final String CONTENTS_MORE_ATTRIBUTE = "data-contents-more";
+
    private Column<RObjectEntry, String> objectExpandColumn_;
    private Column<RObjectEntry, String> objectNameColumn_;
    private Column<RObjectEntry, String> objectDescriptionColumn_;
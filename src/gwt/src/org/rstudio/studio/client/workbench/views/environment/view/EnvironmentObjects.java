@@ -490,11 +490,20 @@ public class EnvironmentObjects extends ResizeComposite
                                  final int idx, 
                                  boolean drawProgress)
    {
+      entry.contents = observer_.getObjectContents(entry.rObject.getName());
+      if (entry.contents.isLoaded())
+      {
+         // contents were fetched on a previous expansion and are still valid
+         entry.expanded = true;
+         redrawRowSafely(idx);
+         return;
+      }
+
       entry.expanded = false;
       entry.isExpanding = true;
       if (drawProgress)
          redrawRowSafely(idx);
-      observer_.fillObjectContents(entry.rObject, new Operation() {
+      observer_.fillObjectContents(entry.contents, new Operation() {
          public void execute()
          {
             entry.expanded = true;
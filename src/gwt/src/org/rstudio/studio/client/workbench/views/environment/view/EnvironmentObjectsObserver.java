@@ -15,7 +15,7 @@
 package org.rstudio.studio.client.workbench.views.environment.view;
 
 import org.rstudio.core.client.widget.Operation;
-import org.rstudio.studio.client.workbench.views.environment.model.RObject;
+import org.rstudio.studio.client.workbench.views.environment.model.ObjectContentsNode;
 
 public interface EnvironmentObjectsObserver
 {
@@ -27,5 +27,6 @@ public interface EnvironmentObjectsObserver
    void setViewDirty();
    boolean getShowInternalFunctions();
    void setShowInternalFunctions(boolean show);
-   void fillObjectContents(RObject object, Operation onCompleted);
+   ObjectContentsNode getObjectContents(String objectName);
+   void fillObjectContents(ObjectContentsNode node, Operation onCompleted);
 }
\ No newline at end of file
@@ -15,7 +15,10 @@
 
 package org.rstudio.studio.client.workbench.views.environment.view;
 
+import java.util.List;
+
 import com.google.gwt.view.client.ProvidesKey;
+import org.rstudio.studio.client.workbench.views.environment.model.ObjectContentsNode;
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
 
 // represents an R object's entry in the environment pane view
@@ -106,4 +109,12 @@ public class RObjectEntry
    boolean isFirstObject;
    boolean isExpanding;
    boolean contentsAreDeferred;
+
+   // the (paged) contents of an object whose contents are deferred; null
+   // until the object is first expanded
+   ObjectContentsNode contents;
+
+   // the contents nodes drawn in the rows following this entry's row, in
+   // the order drawn
+   List<ObjectContentsNode> contentsRows;
 }
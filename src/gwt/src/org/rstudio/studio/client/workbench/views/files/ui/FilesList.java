@@ -16,13 +16,15 @@ package org.rstudio.studio.client.workbench.views.files.ui;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Set;
 
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.cellview.ColumnSortInfo;
 import org.rstudio.core.client.cellview.LinkColumn;
+import org.rstudio.core.client.cellview.ScrollingDataGrid;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.widget.OperationWithInput;
 import org.rstudio.studio.client.common.filetypes.FileIconResources;
@@ -37,12 +39,13 @@ import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.dom.client.Style.WhiteSpace;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.event.logical.shared.ResizeEvent;
 import com.google.gwt.event.logical.shared.ResizeHandler;
 import com.google.gwt.resources.client.ImageResource;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.safehtml.shared.SafeHtmlUtils;
-import com.google.gwt.user.cellview.client.DataGrid;
 import com.google.gwt.user.cellview.client.Column;
 import com.google.gwt.user.cellview.client.ColumnSortEvent;
 import com.google.gwt.user.cellview.client.ColumnSortList;
@@ -51,6 +54,7 @@ import com.google.gwt.user.cellview.client.ColumnSortEvent.Handler;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.HasVerticalAlignment;
 import com.google.gwt.user.client.ui.ResizeLayoutPanel;
+import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.view.client.DefaultSelectionEventManager;
 import com.google.gwt.view.client.ListDataProvider;
 import com.google.gwt.view.client.MultiSelectionModel;
@@ -63,14 +67,13 @@ public class FilesList extends Composite
    {
       observer_ = observer;
       
-      // create data provider and sort handler
+      // create data provider and the sorted model which writes through to it
       dataProvider_ = new ListDataProvider<FileSystemItem>();
-      sortHandler_ = new ColumnSortEvent.ListHandler<FileSystemItem>(
-                                                      dataProvider_.getList());
+      model_ = new FilesListModel(dataProvider_.getList());
       
       // create cell table
-      filesDataGrid_ = new DataGrid<FileSystemItem>(
-                                          15,
+      filesDataGrid_ = new ScrollingDataGrid<FileSystemItem>(
+                                          PAGE_SIZE_INCREMENT,
                                           FilesListDataGridResources.INSTANCE,
                                           KEY_PROVIDER);
       selectionModel_ = new MultiSelectionModel<FileSystemItem>(KEY_PROVIDER);
@@ -94,6 +97,16 @@ public class FilesList extends Composite
       // initialize sorting
       addColumnSortHandler();
       
+      // only render rows as they are scrolled into view
+      filesDataGrid_.getScrollPanel().addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            maybeExpandVisibleRange();
+         }
+      });
+      
       // enclose in scroll panel
       layoutPanel_ = new ResizeLayoutPanel();
       initWidget(layoutPanel_);
@@ -158,7 +171,7 @@ public class FilesList extends Composite
                                 SafeHtmlUtils.fromSafeConstant("<br/>"));
       filesDataGrid_.setColumnWidth(iconColumn, ICON_COLUMN_WIDTH_PIXELS, Unit.PX);
     
-      sortHandler_.setComparator(iconColumn, new FilesListComparator() {
+      comparators_.put(iconColumn, new FilesListComparator() {
          @Override
          public int doCompare(FileSystemItem arg0, FileSystemItem arg1)
          {
@@ -198,7 +211,7 @@ public class FilesList extends Composite
       nameColumn.setSortable(true);
       filesDataGrid_.addColumn(nameColumn, "Name");
       
-      sortHandler_.setComparator(nameColumn, new FilesListComparator() {
+      comparators_.put(nameColumn, new FilesListComparator() {
          @Override
          public int doCompare(FileSystemItem arg0, FileSystemItem arg1)
          {
@@ -225,7 +238,7 @@ public class FilesList extends Composite
       filesDataGrid_.addColumn(sizeColumn, "Size");
       filesDataGrid_.setColumnWidth(sizeColumn, SIZE_COLUMN_WIDTH_PIXELS, Unit.PX);
       
-      sortHandler_.setComparator(sizeColumn, new FoldersOnBottomComparator() {
+      comparators_.put(sizeColumn, new FoldersOnBottomComparator() {
          @Override
          public int doItemCompare(FileSystemItem arg0, FileSystemItem arg1)
          {
@@ -253,7 +266,7 @@ public class FilesList extends Composite
       filesDataGrid_.addColumn(modColumn, "Modified");
       filesDataGrid_.setColumnWidth(modColumn, MODIFIED_COLUMN_WIDTH_PIXELS, Unit.PX); 
       
-      sortHandler_.setComparator(modColumn, new FoldersOnBottomComparator() {
+      comparators_.put(modColumn, new FoldersOnBottomComparator() {
          @Override
          public int doItemCompare(FileSystemItem arg0, FileSystemItem arg1)
          {
@@ -321,8 +334,9 @@ public class FilesList extends Composite
             // record active sort column ascending state
             activeSortColumnAscending_ = event.isSortAscending();
             
-            // delegate the sort
-            sortHandler_.onColumnSort(event);
+            // re-sort the model
+            model_.setComparator(comparators_.get(event.getColumn()),
+                                 event.isSortAscending());
          }
          
          private native final JsArray<ColumnSortInfo> newSortOrderArray()
@@ -361,20 +375,15 @@ public class FilesList extends Composite
       containingPath_ = containingPath;
       parentPath_ = containingPath_.getParentPath();
       
-      // set page size (+1 for parent path)
-      filesDataGrid_.setPageSize(files.length() + 1);
+      // any pending changes are superseded by the new listing
+      pendingChanges_.clear();
       
-      // get underlying list
-      List<FileSystemItem> fileList = dataProvider_.getList();
-      fileList.clear();
-            
-      // add entry for parent path if we have one
-      if (parentPath_ != null)
-         fileList.add(parentPath_);
+      // render only the first page of rows; further rows are rendered
+      // as they are scrolled into view
+      filesDataGrid_.setVisibleRange(0, PAGE_SIZE_INCREMENT);
       
       // add files to table
-      for (int i=0; i<files.length(); i++)
-         fileList.add(files.get(i));
+      model_.setFiles(parentPath_, files);
            
       // apply sort list
       applyColumnSortList();
@@ -408,54 +417,84 @@ public class FilesList extends Composite
    }
    
    public void updateWithAction(FileChange viewAction)
-   {        
+   {
+      // file changes often arrive in bursts (e.g. when a script writes many
+      // files) so coalesce them by path and apply them in a single pass
+      String path = viewAction.getFile().getPath();
+      FileChange previous = pendingChanges_.get(path);
+      if (previous != null &&
+          previous.getType() == FileChange.ADD &&
+          viewAction.getType() == FileChange.MODIFIED)
+      {
+         viewAction = FileChange.createAdd(viewAction.getFile());
+      }
+      
+      // re-insert so that changes are applied in order of last change
+      pendingChanges_.remove(path);
+      pendingChanges_.put(path, viewAction);
+      
+      if (!flushScheduled_)
+      {
+         flushScheduled_ = true;
+         Scheduler.get().scheduleDeferred(new ScheduledCommand()
+         {
+            @Override
+            public void execute()
+            {
+               flushScheduled_ = false;
+               applyPendingChanges();
+            }
+         });
+      }
+   }
+   
+   private void applyPendingChanges()
+   {
+      if (pendingChanges_.isEmpty())
+         return;
+      
+      boolean allRowsVisible = 
+            filesDataGrid_.getVisibleRange().getLength() >= model_.size();
+      
+      for (FileChange change : pendingChanges_.values())
+         applyChange(change);
+      pendingChanges_.clear();
+      
+      // keep all rows visible if they were all visible before the change
+      if (allRowsVisible)
+         filesDataGrid_.setVisibleRange(0, model_.size());
+   }
+   
+   private void applyChange(FileChange viewAction)
+   {
       final FileSystemItem file = viewAction.getFile();
-      final List<FileSystemItem> files = getFiles();
       switch(viewAction.getType())
       {
       case FileChange.ADD:
          if (file.getParentPath().equalTo(containingPath_))
          {
-            int row = rowForFile(file);
-            if (row == -1)
-            {
-               files.add(file);
-               filesDataGrid_.setPageSize(files.size() + 1);
-            }
-            else
-            {
-               // since we eagerly perform renames at the client UI
-               // layer then sometimes an "added" file is really just
-               // a rename. in this case the file already exists due
-               // to the eager rename in the client but still needs its
-               // metadata updated
-               files.set(row, file);
-            }
+            // since we eagerly perform renames at the client UI
+            // layer then sometimes an "added" file is really just
+            // a rename. in this case the file already exists due
+            // to the eager rename in the client but still needs its
+            // metadata updated (which 'put' takes care of)
+            model_.put(file);
          }
          break;
          
       case FileChange.MODIFIED:
-         {
-            int row = rowForFile(file);
-            if (row != -1)
-               files.set(row, file);
-         }
+         model_.update(file);
          break;
  
       case FileChange.DELETE:
+         if (model_.remove(file.getPath()))
          {
-            int row = rowForFile(file);
-            if (row != -1)
-            {
-               files.remove(row);
-               
-               // if a file is deleted and then re-added within the same
-               // event loop (as occurs when gedit saves a text file) the
-               // table doesn't always update correctly (it has a duplicate
-               // of the item deleted / re-added). the call to flush overcomes
-               // this issue
-               dataProvider_.flush();
-            }
+            // if a file is deleted and then re-added within the same
+            // event loop (as occurs when gedit saves a text file) the
+            // table doesn't always update correctly (it has a duplicate
+            // of the item deleted / re-added). the call to flush overcomes
+            // this issue
+            dataProvider_.flush();
          }
          break;
       
@@ -468,27 +507,29 @@ public class FilesList extends Composite
    
    public void renameFile(FileSystemItem from, FileSystemItem to)
    {
-      int index = getFiles().indexOf(from);
-      if (index != -1)
+      if (model_.remove(from.getPath()))
       {
          selectNone();
-         getFiles().set(index, to);
+         model_.put(to);
       }
    }
    
-   private List<FileSystemItem> getFiles()
+   // Render further rows once the user scrolls near the end of the rows
+   // rendered so far
+   private void maybeExpandVisibleRange()
    {
-      return dataProvider_.getList();
-   }
-   
-   private int rowForFile(FileSystemItem file)
-   {
-      List<FileSystemItem> files = getFiles();
-      for (int i=0; i<files.size(); i++)
-         if (files.get(i).equalTo(file))
-            return i ;
+      int length = filesDataGrid_.getVisibleRange().getLength();
+      if (length >= model_.size())
+         return;
       
-      return -1;
+      ScrollPanel scrollPanel = filesDataGrid_.getScrollPanel();
+      int remaining = scrollPanel.getMaximumVerticalScrollPosition() -
+                      scrollPanel.getVerticalScrollPosition();
+      if (remaining < scrollPanel.getOffsetHeight())
+      {
+         filesDataGrid_.setVisibleRange(
+               0, Math.min(model_.size(), length + PAGE_SIZE_INCREMENT));
+      }
    }
    
    private void applyColumnSortList()
@@ -647,7 +688,7 @@ public class FilesList extends Composite
    private FileSystemItem containingPath_ = null;
    private FileSystemItem parentPath_ = null;
   
-   private final DataGrid<FileSystemItem> filesDataGrid_; 
+   private final ScrollingDataGrid<FileSystemItem> filesDataGrid_; 
    private final LinkColumn<FileSystemItem> nameColumn_;
    private final TextColumn<FileSystemItem> sizeColumn_;
    private final TextColumn<FileSystemItem> modifiedColumn_;
@@ -657,11 +698,19 @@ public class FilesList extends Composite
    
    private final MultiSelectionModel<FileSystemItem> selectionModel_;
    private final ListDataProvider<FileSystemItem> dataProvider_;
-   private final ColumnSortEvent.ListHandler<FileSystemItem> sortHandler_;
+   private final FilesListModel model_;
+   private final HashMap<Column<FileSystemItem, ?>, Comparator<FileSystemItem>> comparators_ =
+         new HashMap<Column<FileSystemItem, ?>, Comparator<FileSystemItem>>();
+   
+   // file changes received but not yet applied, keyed by path
+   private final LinkedHashMap<String, FileChange> pendingChanges_ =
+         new LinkedHashMap<String, FileChange>();
+   private boolean flushScheduled_ = false;
 
    private final Files.Display.Observer observer_ ;
    private final ResizeLayoutPanel layoutPanel_ ;  
    
+   private static final int PAGE_SIZE_INCREMENT = 200;
    private static final int CHECK_COLUMN_WIDTH_PIXELS = 30;
    private static final int ICON_COLUMN_WIDTH_PIXELS = 26;
    private static final int SIZE_COLUMN_WIDTH_PIXELS = 80;
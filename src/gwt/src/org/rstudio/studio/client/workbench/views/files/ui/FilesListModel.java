@@ -0,0 +1,195 @@
+/*
+ * FilesListModel.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.files.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.rstudio.core.client.files.FileSystemItem;
+
+import com.google.gwt.core.client.JsArray;
+
+// Sorted, path-indexed model of the files in the current directory. Rows are
+// kept in sort order at all times so that individual file changes can be
+// applied by binary searching for the affected row, rather than by scanning
+// and then re-sorting the entire listing.
+//
+// The model writes through to the supplied list of rows (typically the list
+// of a ListDataProvider), so that the data provider only pushes the range of
+// rows that actually changed. If there is a parent path, it is always held
+// in the first row, and is not subject to sorting.
+public class FilesListModel
+{
+   public FilesListModel(List<FileSystemItem> rows)
+   {
+      rows_ = rows;
+   }
+
+   public void setFiles(FileSystemItem parentPath,
+                        JsArray<FileSystemItem> files)
+   {
+      parentPath_ = parentPath;
+      filesByPath_.clear();
+
+      ArrayList<FileSystemItem> sorted = new ArrayList<FileSystemItem>(
+                                                             files.length());
+      for (int i = 0, n = files.length(); i < n; i++)
+      {
+         FileSystemItem file = files.get(i);
+         sorted.add(file);
+         filesByPath_.put(file.getPath(), file);
+      }
+
+      if (comparator_ != null)
+         Collections.sort(sorted, comparator_);
+
+      rows_.clear();
+      if (parentPath_ != null)
+         rows_.add(parentPath_);
+      rows_.addAll(sorted);
+   }
+
+   // Sets the comparator used to order rows (null leaves rows in the order
+   // they were added) and re-sorts the model.
+   public void setComparator(final Comparator<FileSystemItem> comparator,
+                             final boolean ascending)
+   {
+      if (comparator == null)
+      {
+         comparator_ = null;
+         return;
+      }
+
+      // break ties on the path, so that every row has a unique position
+      // that can be found by binary search
+      comparator_ = new Comparator<FileSystemItem>()
+      {
+         @Override
+         public int compare(FileSystemItem a, FileSystemItem b)
+         {
+            int result = ascending ?
+                  comparator.compare(a, b) :
+                  comparator.compare(b, a);
+            if (result == 0)
+               result = a.getPath().compareTo(b.getPath());
+            return result;
+         }
+      };
+
+      int offset = getOffset();
+      ArrayList<FileSystemItem> sorted = new ArrayList<FileSystemItem>(
+                                          rows_.subList(offset, rows_.size()));
+      Collections.sort(sorted, comparator_);
+      for (int i = 0, n = sorted.size(); i < n; i++)
+         rows_.set(offset + i, sorted.get(i));
+   }
+
+   public FileSystemItem getFile(String path)
+   {
+      return filesByPath_.get(path);
+   }
+
+   public int size()
+   {
+      return rows_.size();
+   }
+
+   // Returns the row currently holding the file with the given path, or -1
+   // if there is no such file.
+   public int rowForPath(String path)
+   {
+      FileSystemItem file = filesByPath_.get(path);
+      if (file == null)
+         return -1;
+
+      if (comparator_ == null)
+         return rows_.indexOf(file);
+
+      int index = search(file);
+      return index >= 0 ? index : -1;
+   }
+
+   // Adds the file to the model, or replaces the existing entry for the
+   // file's path. Returns the row the file was placed in.
+   public int put(FileSystemItem file)
+   {
+      remove(file.getPath());
+
+      filesByPath_.put(file.getPath(), file);
+      if (comparator_ == null)
+      {
+         rows_.add(file);
+         return rows_.size() - 1;
+      }
+
+      int index = search(file);
+      int row = index >= 0 ? index : -(index + 1);
+      rows_.add(row, file);
+      return row;
+   }
+
+   // Replaces the existing entry for the file's path (if any).
+   public void update(FileSystemItem file)
+   {
+      if (filesByPath_.containsKey(file.getPath()))
+         put(file);
+   }
+
+   public boolean remove(String path)
+   {
+      int row = rowForPath(path);
+      if (row == -1)
+         return false;
+
+      rows_.remove(row);
+      filesByPath_.remove(path);
+      return true;
+   }
+
+   // Binary search for the file within the sorted (non-parent) rows; returns
+   // the row of the file if found, or -(insertion row + 1) otherwise.
+   private int search(FileSystemItem file)
+   {
+      int low = getOffset();
+      int high = rows_.size() - 1;
+      while (low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         int result = comparator_.compare(rows_.get(mid), file);
+         if (result < 0)
+            low = mid + 1;
+         else if (result > 0)
+            high = mid - 1;
+         else
+            return mid;
+      }
+      return -(low + 1);
+   }
+
+   private int getOffset()
+   {
+      return parentPath_ == null ? 0 : 1;
+   }
+
+   private final List<FileSystemItem> rows_;
+   private final HashMap<String, FileSystemItem> filesByPath_ =
+         new HashMap<String, FileSystemItem>();
+
+   private FileSystemItem parentPath_;
+   private Comparator<FileSystemItem> comparator_;
+}
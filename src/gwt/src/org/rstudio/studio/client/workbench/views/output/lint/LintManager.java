@@ -16,6 +16,7 @@ package org.rstudio.studio.client.workbench.views.output.lint;
 
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.Invalidation;
+import org.rstudio.core.client.TaskScheduler;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.RetinaStyleInjector;
@@ -43,7 +44,6 @@ import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.user.client.Command;
-import com.google.gwt.user.client.Timer;
 import com.google.inject.Inject;
 
 public class LintManager
@@ -96,11 +96,10 @@ public class LintManager
       showMarkers_ = false;
       explicit_ = false;
       invalidation_ = new Invalidation();
-      timer_ = new Timer()
+      lintCommand_ = new Command()
       {
-         
          @Override
-         public void run()
+         public void execute()
          {
             if (!isLintableDocument())
             {
@@ -144,7 +143,9 @@ public class LintManager
                   showMarkers_ = false;
                   excludeCurrentStatement_ = true;
                   explicit_ = false;
-                  timer_.schedule(uiPrefs_.backgroundDiagnosticsDelayMs().getValue());
+                  scheduleLint(
+                        uiPrefs_.backgroundDiagnosticsDelayMs().getValue(),
+                        TaskScheduler.PRIORITY_IDLE);
                }
             });
          }
@@ -334,7 +335,7 @@ public class LintManager
    
    public void schedule(int milliseconds)
    {
-      timer_.schedule(milliseconds);
+      scheduleLint(milliseconds, TaskScheduler.PRIORITY_IDLE);
    }
    
    public void lint(boolean showMarkers,
@@ -346,7 +347,15 @@ public class LintManager
       excludeCurrentStatement_ = excludeCurrentStatement;
       
       // Add tiny delay to ensure lint not cleared by other concurrent events
-      timer_.schedule(20);
+      scheduleLint(20, TaskScheduler.PRIORITY_VISIBLE);
+   }
+   
+   // background lint waits for input to settle; lint that was asked for
+   // (e.g. on save) runs as soon as the delay elapses
+   private void scheduleLint(int milliseconds, int priority)
+   {
+      TaskScheduler.get().schedule(
+            "lint:" + target_.getId(), priority, milliseconds, lintCommand_);
    }
    
    private void getAceWorkerDiagnostics(final DocDisplay docDisplay)
@@ -372,7 +381,7 @@ public class LintManager
       $wnd.setTimeout(callback, 100);
    }-*/;
    
-   private final Timer timer_;
+   private final Command lintCommand_;
    private final TextEditingTarget target_;
    private final DocDisplay docDisplay_;
    private final Invalidation invalidation_;
@@ -27,6 +27,7 @@ import org.rstudio.studio.client.workbench.prefs.model.UIPrefsAccessor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.Scope;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ScopeFunction;
 import org.rstudio.studio.client.workbench.views.source.editors.text.TextEditingTarget;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedHandler;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.EditorThemeStyleChangedEvent;
@@ -253,7 +254,8 @@ public class DocumentOutlineWidget extends Composite
          @Override
          public void onScopeTreeReady(ScopeTreeReadyEvent event)
          {
-            rebuildScopeTree(event.getScopeTree(), event.getCurrentScope());
+            rebuildScopeTree(event.getScopeTree(), event.getCurrentScope(),
+                  event.getChangedStartRow());
             resetTreeStyles();
          }
       }));
@@ -318,16 +320,19 @@ public class DocumentOutlineWidget extends Composite
       if (scopeTree_ == null || currentScope_ == null)
          return;
       
-      rebuildScopeTree(scopeTree_, currentScope_);
+      rebuildScopeTree(scopeTree_, currentScope_, 0);
    }
    
-   private void rebuildScopeTree(JsArray<Scope> scopeTree, Scope currentScope)
+   private void rebuildScopeTree(JsArray<Scope> scopeTree,
+                                 Scope currentScope,
+                                 int changedStartRow)
    {
       scopeTree_ = scopeTree;
       currentScope_ = currentScope;
       
       if (scopeTree_.length() == 0)
       {
+         tree_.clear();
          setActiveWidget(emptyPlaceholder_);
          return;
       }
@@ -347,9 +352,15 @@ public class DocumentOutlineWidget extends Composite
       
       int initialDepth = h1Count == 1 ? -1 : 0;
       
+      // a change in the base depth re-indents every item
+      if (initialDepth != initialDepth_)
+         changedStartRow = 0;
+      initialDepth_ = initialDepth;
+      
       Counter counter = new Counter(-1);
       for (int i = 0; i < scopeTree_.length(); i++)
-         buildScopeTreeImpl(scopeTree_.get(i), initialDepth, counter);
+         buildScopeTreeImpl(scopeTree_.get(i), initialDepth, counter,
+               changedStartRow);
       
       // Clean up leftovers in the tree. 
       int oldTreeSize = tree_.getItemCount();
@@ -363,10 +374,22 @@ public class DocumentOutlineWidget extends Composite
       }
    }
    
-   private void buildScopeTreeImpl(Scope node, int depth, Counter counter)
+   private void buildScopeTreeImpl(Scope node,
+                                   int depth,
+                                   Counter counter,
+                                   int changedStartRow)
    {
       if (shouldDisplayNode(node))
-         addOrSetItem(node, depth, counter.increment());
+      {
+         // items for scopes ending above the edited region keep their place
+         // and contents, so only the ones at or below it need updating
+         int index = counter.increment();
+         if (index >= tree_.getItemCount() ||
+             !isAboveRow(node, changedStartRow))
+         {
+            addOrSetItem(node, depth, index);
+         }
+      }
       
       JsArray<Scope> children = node.getChildren();
       for (int i = 0; i < children.length(); i++)
@@ -377,10 +400,17 @@ public class DocumentOutlineWidget extends Composite
          if (node.isNamespace())
             newDepth--;
          
-         buildScopeTreeImpl(children.get(i), newDepth, counter);
+         buildScopeTreeImpl(children.get(i), newDepth, counter,
+               changedStartRow);
       }
    }
    
+   private boolean isAboveRow(Scope node, int row)
+   {
+      Position end = node.getEnd();
+      return end != null && end.getRow() < row;
+   }
+   
    private boolean isUnnamedNode(Scope node)
    {
       if (node.isChunk())
@@ -467,6 +497,7 @@ public class DocumentOutlineWidget extends Composite
    
    private JsArray<Scope> scopeTree_;
    private Scope currentScope_;
+   private int initialDepth_;
    
    private UIPrefs uiPrefs_;
    
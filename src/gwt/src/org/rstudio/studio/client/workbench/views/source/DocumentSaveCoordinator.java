@@ -0,0 +1,298 @@
+/*
+ * DocumentSaveCoordinator.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.SerializedCommand;
+import org.rstudio.core.client.SerializedCommandQueue;
+import org.rstudio.studio.client.common.GlobalDisplay;
+import org.rstudio.studio.client.common.GlobalProgressDelayer;
+import org.rstudio.studio.client.workbench.views.source.editors.EditingTarget;
+
+import com.google.gwt.user.client.Command;
+
+// Saves a set of documents with up to MAX_CONCURRENT_SAVES saves in flight
+// at once, rather than waiting for each save's round trip to the server
+// before starting the next. Progress is shown in a single indicator and any
+// errors are reported together once all the saves have finished.
+//
+// Documents whose save prompts the user (untitled documents need a path,
+// and some documents need an encoding) are saved one at a time after the
+// others. A cancelled prompt ends the operation. A document is never saved
+// twice concurrently: a save requested while another save of the same
+// document is in progress starts when that one finishes.
+public class DocumentSaveCoordinator
+{
+   public DocumentSaveCoordinator(GlobalDisplay globalDisplay)
+   {
+      globalDisplay_ = globalDisplay;
+   }
+   
+   // Saves the given targets. onCompleted (if not null) is executed once all
+   // of them have been saved; if any fail to save, the errors are shown and
+   // onCompleted is not executed (nor is it if a prompt is cancelled).
+   public void save(List<EditingTarget> targets, Command onCompleted)
+   {
+      new SaveOperation(targets, onCompleted).run();
+   }
+   
+   private class SaveOperation
+   {
+      public SaveOperation(List<EditingTarget> targets, Command onCompleted)
+      {
+         onCompleted_ = onCompleted;
+         
+         HashSet<String> ids = new HashSet<String>();
+         for (EditingTarget target : targets)
+         {
+            if (!ids.add(target.getId()))
+               continue;
+            
+            if (target.requiresSavePrompt())
+               prompted_.add(target);
+            else
+               pending_.add(target);
+         }
+         total_ = pending_.size();
+      }
+      
+      public void run()
+      {
+         if (total_ > 1)
+         {
+            progress_ = new GlobalProgressDelayer(globalDisplay_,
+                                                  PROGRESS_DELAY_MS,
+                                                  progressMessage());
+         }
+         
+         startSaves();
+      }
+      
+      private void startSaves()
+      {
+         while (active_ < MAX_CONCURRENT_SAVES && !pending_.isEmpty())
+         {
+            active_++;
+            saveTarget(pending_.removeFirst(), new Command()
+            {
+               @Override
+               public void execute()
+               {
+                  onSaveFinished();
+               }
+            },
+            new CommandWithArg<String>()
+            {
+               @Override
+               public void execute(String message)
+               {
+                  // the error (or cancellation) was recorded by saveTarget
+                  onSaveFinished();
+               }
+            });
+         }
+         
+         if (active_ == 0)
+            onSavesFinished();
+      }
+      
+      private void saveTarget(final EditingTarget target,
+                              final Command onSaved,
+                              final CommandWithArg<String> onFailed)
+      {
+         saveDocument(
+               target,
+               onSaved,
+               new CommandWithArg<String>()
+               {
+                  @Override
+                  public void execute(String message)
+                  {
+                     // a null message means the user cancelled a prompt
+                     if (message == null)
+                        cancelled_ = true;
+                     else
+                        errors_.add(target.getName().getValue() + ": " + 
+                                    message);
+                     onFailed.execute(message);
+                  }
+               });
+      }
+      
+      private void onSaveFinished()
+      {
+         active_--;
+         completed_++;
+         if (progress_ != null)
+            progress_.setMessage(progressMessage());
+         startSaves();
+      }
+      
+      private void onSavesFinished()
+      {
+         // saves that complete synchronously re-enter startSaves() from
+         // within its loop, so every frame on the stack sees the last save
+         // finish; only the first of them finishes the operation
+         if (finished_)
+            return;
+         finished_ = true;
+         
+         if (progress_ != null)
+         {
+            progress_.dismiss();
+            progress_ = null;
+         }
+         
+         if (!errors_.isEmpty())
+         {
+            StringBuilder message = new StringBuilder();
+            message.append(errors_.size() == 1 ?
+                  "The following document could not be saved:\n\n" :
+                  "The following documents could not be saved:\n\n");
+            for (String error : errors_)
+               message.append(error).append("\n");
+            globalDisplay_.showErrorMessage("Error Saving Files",
+                                            message.toString());
+            return;
+         }
+         
+         if (cancelled_)
+            return;
+         
+         // save documents that prompt one at a time, so that only one prompt
+         // is shown at once; a failed or cancelled save ends the operation
+         SerializedCommandQueue queue = new SerializedCommandQueue();
+         for (final EditingTarget target : prompted_)
+         {
+            queue.addCommand(new SerializedCommand()
+            {
+               @Override
+               public void onExecute(Command continuation)
+               {
+                  saveDocument(target, continuation, 
+                        new CommandWithArg<String>()
+                  {
+                     @Override
+                     public void execute(String message)
+                     {
+                        if (message != null)
+                        {
+                           globalDisplay_.showErrorMessage(
+                                 "Error Saving File",
+                                 target.getName().getValue() + ": " + 
+                                 message);
+                        }
+                     }
+                  });
+               }
+            });
+         }
+         queue.addCommand(new SerializedCommand()
+         {
+            @Override
+            public void onExecute(Command continuation)
+            {
+               if (onCompleted_ != null)
+                  onCompleted_.execute();
+               continuation.execute();
+            }
+         });
+      }
+      
+      private String progressMessage()
+      {
+         return "Saving documents (" + Math.min(completed_ + 1, total_) + 
+                " of " + total_ + ")...";
+      }
+      
+      private final Command onCompleted_;
+      private boolean finished_ = false;
+      private boolean cancelled_ = false;
+      private final LinkedList<EditingTarget> pending_ = 
+            new LinkedList<EditingTarget>();
+      private final ArrayList<EditingTarget> prompted_ =
+            new ArrayList<EditingTarget>();
+      private final ArrayList<String> errors_ = new ArrayList<String>();
+      private final int total_;
+      private int active_ = 0;
+      private int completed_ = 0;
+      private GlobalProgressDelayer progress_;
+   }
+   
+   private void saveDocument(final EditingTarget target,
+                             final Command onSaved,
+                             final CommandWithArg<String> onFailed)
+   {
+      final String id = target.getId();
+      
+      // if this document is already being saved, save it again once that
+      // save is done, so the saves complete in the order they were requested
+      if (inProgress_.containsKey(id))
+      {
+         inProgress_.get(id).add(new Command()
+         {
+            @Override
+            public void execute()
+            {
+               saveDocument(target, onSaved, onFailed);
+            }
+         });
+         return;
+      }
+      
+      inProgress_.put(id, new ArrayList<Command>());
+      target.save(
+            new Command()
+            {
+               @Override
+               public void execute()
+               {
+                  onDocumentSaveFinished(id);
+                  onSaved.execute();
+               }
+            },
+            new CommandWithArg<String>()
+            {
+               @Override
+               public void execute(String message)
+               {
+                  onDocumentSaveFinished(id);
+                  onFailed.execute(message);
+               }
+            });
+   }
+   
+   private void onDocumentSaveFinished(String id)
+   {
+      ArrayList<Command> queued = inProgress_.remove(id);
+      if (queued == null)
+         return;
+      for (Command command : queued)
+         command.execute();
+   }
+   
+   private final GlobalDisplay globalDisplay_;
+   private final HashMap<String, ArrayList<Command>> inProgress_ =
+         new HashMap<String, ArrayList<Command>>();
+   
+   private static final int MAX_CONCURRENT_SAVES = 4;
+   private static final int PROGRESS_DELAY_MS = 500;
+}
@@ -155,6 +155,7 @@ import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
 import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 public class Source implements InsertSourceHandler,
@@ -261,6 +262,7 @@ public class Source implements InsertSourceHandler,
       editingTargetSource_ = editingTargetSource;
       fileTypeRegistry_ = fileTypeRegistry;
       globalDisplay_ = globalDisplay;
+      saveCoordinator_ = new DocumentSaveCoordinator(globalDisplay);
       fileDialogs_ = fileDialogs;
       fileContext_ = fileContext;
       rmarkdown_ = new TextEditingTargetRMarkdownHelper();
@@ -559,8 +561,20 @@ public class Source implements InsertSourceHandler,
          }
       });
       
-      restoreDocuments(session);
-      
+      // the contents of the documents are fetched from the server, so the
+      // remainder of initialization happens once they've been restored
+      restoreDocuments(session, new Command()
+      {
+         @Override
+         public void execute()
+         {
+            onDocumentsRestored(session);
+         }
+      });
+   }
+   
+   private void onDocumentsRestored(Session session)
+   {
       // get the key to use for active tab persistence; use ordinal-based key
       // for source windows rather than their ID to avoid unbounded accumulation
       String activeTabKey = KEY_ACTIVETAB;
@@ -796,14 +810,15 @@ public class Source implements InsertSourceHandler,
       return view_.asWidget();
    }
 
-   private void restoreDocuments(final Session session)
+   private void restoreDocuments(final Session session, 
+                                 final Command onRestored)
    {
+      // collect the docs assigned to this source window
       final JsArray<SourceDocument> docs =
             session.getSessionInfo().getSourceDocuments();
-
+      final ArrayList<String> ids = new ArrayList<String>();
       for (int i = 0; i < docs.length(); i++)
       {
-         // restore the docs assigned to this source window
          SourceDocument doc = docs.get(i);
          String docWindowId = 
                doc.getProperties().getString(
@@ -818,22 +833,125 @@ public class Source implements InsertSourceHandler,
              (SourceWindowManager.isMainSourceWindow() && 
               !windowManager_.isSourceWindowOpen(docWindowId)))
          {
-            EditingTarget editor = addTab(doc, true, OPEN_REPLAY);
+            ids.add(doc.getId());
+         }
+      }
+      
+      if (ids.isEmpty())
+      {
+         onRestored.execute();
+         return;
+      }
+      
+      // the session's document list holds only metadata; fetch the docs with
+      // their contents in a single request
+      server_.getSourceDocuments(ids, 
+            new ServerRequestCallback<JsArray<SourceDocument>>()
+      {
+         @Override
+         public void onResponseReceived(JsArray<SourceDocument> response)
+         {
+            HashMap<String, SourceDocument> fetched = 
+                  new HashMap<String, SourceDocument>();
+            for (int i = 0; i < response.length(); i++)
+               fetched.put(response.get(i).getId(), response.get(i));
             
-            // if this is a source window, check to see if it was opened to
-            // pop out a particular doc, and restore that doc's position if so
-            if (!SourceWindowManager.isMainSourceWindow())
+            for (int i = 0; i < docs.length(); i++)
             {
-               SourceWindow sourceWindow = 
-                     RStudioGinjector.INSTANCE.getSourceWindow();
-               if (sourceWindow.getInitialDocId() == doc.getId() &&
-                   sourceWindow.getInitialSourcePosition() != null)
-               {
-                  editor.restorePosition(
-                        sourceWindow.getInitialSourcePosition());
-                  editor.ensureCursorVisible();
-               }
+               SourceDocument doc = fetched.get(docs.get(i).getId());
+               if (doc != null)
+                  restoreFetchedDocument(docs.get(i), doc);
             }
+            onRestored.execute();
+         }
+         
+         @Override
+         public void onError(ServerError error)
+         {
+            // fall back to fetching the documents one at a time, so that one
+            // bad document (or a transient failure) doesn't lose every tab
+            Debug.logError(error);
+            ArrayList<SourceDocument> metas = new ArrayList<SourceDocument>();
+            for (int i = 0; i < docs.length(); i++)
+               if (ids.contains(docs.get(i).getId()))
+                  metas.add(docs.get(i));
+            restoreDocumentsIndividually(metas, 0, new ArrayList<String>(),
+                                         onRestored);
+         }
+      });
+   }
+   
+   private void restoreDocumentsIndividually(final ArrayList<SourceDocument> metas,
+                                             final int index,
+                                             final ArrayList<String> failed,
+                                             final Command onRestored)
+   {
+      if (index >= metas.size())
+      {
+         if (!failed.isEmpty())
+         {
+            globalDisplay_.showErrorMessage("Source Document Error", 
+                  "The following documents could not be restored:\n\n" +
+                  StringUtil.join(failed, "\n"));
+         }
+         onRestored.execute();
+         return;
+      }
+      
+      final SourceDocument meta = metas.get(index);
+      server_.getSourceDocument(meta.getId(),
+            new ServerRequestCallback<SourceDocument>()
+      {
+         @Override
+         public void onResponseReceived(SourceDocument doc)
+         {
+            restoreFetchedDocument(meta, doc);
+            restoreDocumentsIndividually(metas, index + 1, failed, onRestored);
+         }
+         
+         @Override
+         public void onError(ServerError error)
+         {
+            Debug.logError(error);
+            failed.add(StringUtil.isNullOrEmpty(meta.getPath()) ?
+                  meta.getId() : meta.getPath());
+            restoreDocumentsIndividually(metas, index + 1, failed, onRestored);
+         }
+      });
+   }
+   
+   private void restoreFetchedDocument(SourceDocument meta, SourceDocument doc)
+   {
+      // the document may already have been opened (e.g. by a navigation 
+      // event) while its contents were being fetched
+      if (getEditingTargetForId(doc.getId()) != null)
+         return;
+      
+      // the window's copy of the metadata may be newer than the 
+      // server's (e.g. when a doc was just popped out)
+      doc.setDirty(meta.isDirty());
+      if (meta.getChunkDefs() != null)
+         doc.setChunkDefs(meta.getChunkDefs());
+      
+      restoreDocument(doc);
+   }
+   
+   private void restoreDocument(SourceDocument doc)
+   {
+      EditingTarget editor = addTab(doc, true, OPEN_REPLAY);
+      
+      // if this is a source window, check to see if it was opened to
+      // pop out a particular doc, and restore that doc's position if so
+      if (!SourceWindowManager.isMainSourceWindow())
+      {
+         SourceWindow sourceWindow = 
+               RStudioGinjector.INSTANCE.getSourceWindow();
+         if (sourceWindow.getInitialDocId() == doc.getId() &&
+             sourceWindow.getInitialSourcePosition() != null)
+         {
+            editor.restorePosition(
+                  sourceWindow.getInitialSourcePosition());
+            editor.ensureCursorVisible();
          }
       }
    }
@@ -2012,21 +2130,12 @@ public class Source implements InsertSourceHandler,
    @Handler
    public void onSaveAllSourceDocs()
    {
-      cpsExecuteForEachEditor(editors_, new CPSEditingTargetCommand()
-      {
-         @Override
-         public void execute(EditingTarget target, Command continuation)
-         {
-            if (target.dirtyState().getValue())
-            {
-               target.save(continuation);
-            }
-            else
-            {
-               continuation.execute();
-            }
-         }
-      });
+      ArrayList<EditingTarget> dirtyTargets = new ArrayList<EditingTarget>();
+      for (EditingTarget target : editors_)
+         if (target.dirtyState().getValue())
+            dirtyTargets.add(target);
+      
+      saveCoordinator_.save(dirtyTargets, null);
    }
    
    
@@ -2086,26 +2195,8 @@ public class Source implements InsertSourceHandler,
             saveTargets.add(saveTarget);
       }
         
-      // execute the save
-      cpsExecuteForEachEditor(
-         
-         // targets the user chose to save
-         saveTargets, 
-         
-         // save each editor
-         new CPSEditingTargetCommand()
-         {
-            @Override
-            public void execute(EditingTarget saveTarget, 
-                                Command continuation)
-            {         
-               saveTarget.save(continuation); 
-            }
-         },
-         
-         // onCompleted at the end
-         onCompleted
-      );          
+      // execute the save (several documents at a time)
+      saveCoordinator_.save(saveTargets, onCompleted);
    }
           
    
@@ -3359,6 +3450,21 @@ public class Source implements InsertSourceHandler,
    }
 
    private void manageCommands()
+   {
+      // batch the state changes so that menus and toolbars are notified once
+      // per command, rather than once per change
+      AppCommand.beginStateUpdate();
+      try
+      {
+         doManageCommands();
+      }
+      finally
+      {
+         AppCommand.endStateUpdate();
+      }
+   }
+   
+   private void doManageCommands()
    {
       boolean hasDocs = editors_.size() > 0;
 
@@ -4272,6 +4378,7 @@ public class Source implements InsertSourceHandler,
    private final RnwWeaveRegistry rnwWeaveRegistry_;
    private HashSet<AppCommand> activeCommands_ = new HashSet<AppCommand>();
    private final HashSet<AppCommand> dynamicCommands_;
+   private final DocumentSaveCoordinator saveCoordinator_;
    private final SourceNavigationHistory sourceNavigationHistory_ = 
                                               new SourceNavigationHistory(30);
    private final SourceVimCommands vimCommands_;
@@ -54,6 +54,7 @@ import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 import org.rstudio.studio.client.workbench.ui.PaneConfig;
 import org.rstudio.studio.client.workbench.views.source.events.*;
 import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocumentRegistry;
 import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
 import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
 import org.rstudio.studio.client.workbench.views.source.model.SourceWindowParams;
@@ -135,7 +136,7 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
 
          JsArray<SourceDocument> docs = 
                session.getSessionInfo().getSourceDocuments();
-         sourceDocs_ = docs;
+         sourceDocs_ = SourceDocumentRegistry.create(docs);
 
          exportFromMain();
          
@@ -295,11 +296,23 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
    }
    
    public JsArray<SourceDocument> getSourceDocs()
+   {
+      return getRegistry().getDocs();
+   }
+   
+   // Returns the metadata for the source document with the given ID, or null
+   // if no such document is open.
+   public SourceDocument getSourceDoc(String id)
+   {
+      return getRegistry().get(id);
+   }
+   
+   private SourceDocumentRegistry getRegistry()
    {
       if (isMainSourceWindow())
          return sourceDocs_;
       else
-         return getMainWindowSourceDocs();
+         return getMainWindowRegistry();
    }
    
    public boolean isSourceWindowOpen(String windowId)
@@ -327,19 +340,15 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
    
    public String getWindowIdOfDocId(String id)
    {
-      JsArray<SourceDocument> docs = getSourceDocs();
-      for (int i = 0; i < docs.length(); i++)
-      {
-         if (docs.get(i).getId() == id)
-         {
-            String windowId = docs.get(i).getSourceWindowId();
-            if (windowId != null)
-               return windowId;
-            else
-               return "";
-         }
-      }
-      return null;
+      SourceDocument doc = getSourceDoc(id);
+      if (doc == null)
+         return null;
+      
+      String windowId = doc.getSourceWindowId();
+      if (windowId != null)
+         return windowId;
+      else
+         return "";
    }
    
    public void saveWithPrompt(UnsavedChangesItem item, Command onCompleted)
@@ -506,15 +515,8 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
    
    public CollabEditStartParams getDocCollabParams(String id)
    {
-      JsArray<SourceDocument> docs = getSourceDocs();
-      for (int i = 0; i < docs.length(); i++)
-      {
-         if (docs.get(i).getId() == id)
-         {
-            return docs.get(i).getCollabParams();
-         }
-      }
-      return null;
+      SourceDocument doc = getSourceDoc(id);
+      return doc == null ? null : doc.getCollabParams();
    }
 
    public void maximizeSourcePaneIfNecessary()
@@ -616,14 +618,9 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
                e.getWindowId(), null);
       }
 
-      // ensure the doc isn't already in our index
-      for (int i = 0; i < sourceDocs_.length(); i++)
-      {
-         if (sourceDocs_.get(i).getId() == e.getDoc().getId())
-            return;
-      }
-      
-      sourceDocs_.push(e.getDoc());
+      // add the doc to our index (if it isn't already there); the index is
+      // shared with satellites, so it holds metadata only
+      sourceDocs_.add(e.getDoc().withoutContents());
    }
 
    @Override
@@ -712,15 +709,7 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
    @Override
    public void onDocTabClosed(DocTabClosedEvent event)
    {
-      JsArray<SourceDocument> sourceDocs = getSourceDocs();
-      for (int i = 0; i < sourceDocs.length(); i++)
-      {
-         if (sourceDocs.get(i).getId() == event.getDocId())
-         {
-            JsArrayUtil.remove(sourceDocs, i);
-            break;
-         }
-      }
+      getRegistry().remove(event.getDocId());
    }
 
    @Override
@@ -904,12 +893,12 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
       return "";
    }
    
-   private final native static JsArray<SourceDocument> getMainWindowSourceDocs() /*-{
+   private final native static SourceDocumentRegistry getMainWindowRegistry() /*-{
       return $wnd.opener.rstudioSourceDocs;
    }-*/;
    
    private final native void exportFromMain() /*-{
-      // the main window maintains an array of all open source documents 
+      // the main window maintains a registry of all open source documents 
       // across all satellites; rather than attempt to synchronize this list
       // among satellites, the main window exposes it on its window object
       // for the satellites to read 
@@ -1059,19 +1048,14 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
          String windowId, final Command onComplete)
    {
       // assign locally
-      JsArray<SourceDocument> docs = getSourceDocs();
-      for (int i = 0; i < docs.length(); i++)
+      SourceDocument doc = getSourceDoc(docId);
+      if (doc != null)
       {
-         SourceDocument doc = docs.get(i);
-         if (doc.getId() == docId)
-         {
-            // no point in writing a value to the server if we're not changing
-            // it 
-            if (doc.getSourceWindowId() == windowId)
-               return;
-            doc.assignSourceWindowId(windowId);
-            break;
-         }
+         // no point in writing a value to the server if we're not changing
+         // it 
+         if (doc.getSourceWindowId() == windowId)
+            return;
+         doc.assignSourceWindowId(windowId);
       }
       
       // create the new property map
@@ -1104,9 +1088,10 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
    {
       // when the user closes a source window, close all the source docs it
       // contained
-      for (int i = 0; i < sourceDocs_.length(); i++)
+      JsArray<SourceDocument> docs = sourceDocs_.getDocs();
+      for (int i = 0; i < docs.length(); i++)
       {
-         final SourceDocument doc = sourceDocs_.get(i);
+         final SourceDocument doc = docs.get(i);
          if (doc.getSourceWindowId() == windowId)
          {
             // change the window ID of the doc back to the main window
@@ -1242,14 +1227,9 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
    
    private void updateDocPath(String id, String path)
    {
-      for (int i = 0; i < sourceDocs_.length(); i++)
-      {
-         if (sourceDocs_.get(i).getId() == id)
-         {
-            sourceDocs_.get(i).setPath(path);
-            break;
-         }
-      }
+      SourceDocument doc = sourceDocs_.get(id);
+      if (doc != null)
+         doc.setPath(path);
    }
    
    private WindowEx getLastFocusedSourceWindow()
@@ -1318,8 +1298,8 @@ public class SourceWindowManager implements PopoutDocEvent.Handler,
 
    private HashMap<String, Integer> sourceWindows_ = 
          new HashMap<String,Integer>();
-   private JsArray<SourceDocument> sourceDocs_ = 
-         JsArray.createArray().cast();
+   private SourceDocumentRegistry sourceDocs_ = SourceDocumentRegistry.create(
+         JsArray.createArray().<JsArray<SourceDocument>>cast());
    private boolean windowsClosing_ = false;
    private JsObject windowGeometry_ = JsObject.createJsObject();
    private int maxOrdinal_ = 0;
@@ -21,6 +21,7 @@ import com.google.gwt.user.client.ui.HasValue;
 import com.google.gwt.user.client.ui.IsWidget;
 import com.google.inject.Provider;
 
+import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.command.AppCommand;
 import org.rstudio.core.client.events.HasEnsureHeightHandlers;
 import org.rstudio.core.client.events.HasEnsureVisibleHandlers;
@@ -114,6 +115,19 @@ public interface EditingTarget extends IsWidget,
     */
    void save(Command onCompleted);
    
+   /**
+    * Save the document as part of a batch of saves: as save(), but a failure
+    * is reported to onFailed (with an error message) rather than shown, and
+    * a cancelled prompt is reported to onFailed with a null message
+    */
+   void save(Command onCompleted, CommandWithArg<String> onFailed);
+   
+   /**
+    * Whether saving the document prompts the user (e.g. for a path or an
+    * encoding), in which case it shouldn't run alongside other saves
+    */
+   boolean requiresSavePrompt();
+   
    /**
     * Save the document, always prompting if the file is dirty
     */
@@ -31,6 +31,7 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 
 import org.rstudio.core.client.BrowseCap;
+import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.command.AppCommand;
 import org.rstudio.core.client.command.CommandBinder;
@@ -496,6 +497,8 @@ public class CodeBrowserEditingTarget implements EditingTarget
       {
          Debug.log("Exception recording nav position: " + e.toString());
       }
+      
+      docDisplay_.onDeactivate();
    }
 
    @Override
@@ -614,6 +617,18 @@ public class CodeBrowserEditingTarget implements EditingTarget
    {
       onCompleted.execute();
    }
+
+   @Override
+   public void save(Command onCompleted, CommandWithArg<String> onFailed)
+   {
+      onCompleted.execute();
+   }
+   
+   @Override
+   public boolean requiresSavePrompt()
+   {
+      return false;
+   }
    
    @Override
    public void saveWithPrompt(Command onCompleted, Command onCancelled)
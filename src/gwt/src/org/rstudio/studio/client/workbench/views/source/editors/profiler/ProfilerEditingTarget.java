@@ -455,6 +455,17 @@ public class ProfilerEditingTarget implements EditingTarget,
       onCompleted.execute();
    }
 
+   public void save(Command onCompleted, CommandWithArg<String> onFailed)
+   {
+      onCompleted.execute();
+   }
+
+   @Override
+   public boolean requiresSavePrompt()
+   {
+      return false;
+   }
+
    public void saveWithPrompt(Command onCompleted, Command onCancelled)
    {
       onCompleted.execute();
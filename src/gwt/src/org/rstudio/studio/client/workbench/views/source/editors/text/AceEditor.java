@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
@@ -37,7 +38,6 @@ import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.Command;
-import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.RootPanel;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.Widget;
@@ -49,6 +49,7 @@ import org.rstudio.core.client.ExternalJavaScriptLoader;
 import org.rstudio.core.client.ExternalJavaScriptLoader.Callback;
 import org.rstudio.core.client.Rectangle;
 import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.TaskScheduler;
 import org.rstudio.core.client.command.KeyboardShortcut.KeySequence;
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.dom.WindowEx;
@@ -294,6 +295,15 @@ public class AceEditor implements DocDisplay,
          }
       });
       
+      widget_.addHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            scopeIndex_ = null;
+         }
+      }, DocumentChangedEvent.TYPE);
+      
       widget_.addFoldChangeHandler(new FoldChangeEvent.Handler()
       {
          @Override
@@ -668,6 +678,7 @@ public class AceEditor implements DocDisplay,
       getSession().setEditorMode(
             fileType_.getEditorLanguage().getParserName(),
             false);
+      scopeIndex_ = null;
       
       handlers_.fireEvent(new EditorModeChangedEvent(getModeId()));
 
@@ -1772,15 +1783,26 @@ public class AceEditor implements DocDisplay,
          {
             widget_.onResize();
             widget_.onActivate();
+            setVisibleForTokenization(true);
+            backgroundTokenizer_.resume();
             return false;
          }
       });
    }
+   
+   public void onDeactivate()
+   {
+      setVisibleForTokenization(false);
+   }
 
    public void onVisibilityChanged(boolean visible)
    {
+      setVisibleForTokenization(visible);
       if (visible)
+      {
          widget_.getEditor().getRenderer().updateFontSize();
+         backgroundTokenizer_.resume();
+      }
    }
    
    public void onResize()
@@ -2227,6 +2249,14 @@ public class AceEditor implements DocDisplay,
    {
       return getSession().getMode().getCodeModel().getScopeTree();
    }
+   
+   @Override
+   public ScopeIndex getScopeIndex()
+   {
+      if (scopeIndex_ == null)
+         scopeIndex_ = new ScopeIndex(getScopeTree());
+      return scopeIndex_;
+   }
 
    @Override
    public InsertChunkInfo getInsertChunkInfo()
@@ -2548,6 +2578,38 @@ public class AceEditor implements DocDisplay,
       return backgroundTokenizer_.isReady(row);
    }
    
+   @Override
+   public String getTokenizerStatistics()
+   {
+      return backgroundTokenizer_.getStatistics();
+   }
+   
+   private void setVisibleForTokenization(boolean visible)
+   {
+      visible_ = visible;
+      visibilityKnown_ = true;
+   }
+   
+   // Background tokenization is paused while the editor isn't displayed
+   // (e.g. for documents in inactive tabs). Visibility is tracked from
+   // activation and visibility change notifications rather than measured,
+   // since measuring would force a layout on every slice; editors that
+   // haven't had any notification yet (such as documents opened in the
+   // background) are checked once when they're first attached.
+   private boolean isVisibleForTokenization()
+   {
+      if (!widget_.isAttached())
+         return false;
+      
+      if (!visibilityKnown_)
+      {
+         setVisibleForTokenization(
+               DomUtils.isEffectivelyVisible(widget_.getElement()));
+      }
+      
+      return visible_;
+   }
+   
    public HandlerRegistration addScopeTreeReadyHandler(ScopeTreeReadyEvent.Handler handler)
    {
       return handlers_.addHandler(ScopeTreeReadyEvent.TYPE, handler);
@@ -3032,11 +3094,23 @@ public class AceEditor implements DocDisplay,
       infoBar_.show();
    }
 
-   public Range createAnchoredRange(Position start,
-                                    Position end)
+   public AnchoredRange createAnchoredRange(Position start,
+                                            Position end)
    {
       return widget_.getEditor().getSession().createAnchoredRange(start, end);
    }
+   
+   @Override
+   public int addMarker(Range range, String clazz)
+   {
+      return getSession().addMarker(range, clazz, "text", true);
+   }
+   
+   @Override
+   public void removeMarker(int markerId)
+   {
+      getSession().removeMarker(markerId);
+   }
 
    public void insertRoxygenSkeleton()
    {
@@ -3199,7 +3273,6 @@ public class AceEditor implements DocDisplay,
       
       JsArray<ChunkDefinition> chunks = JsArray.createArray().cast();
       JsArray<LineWidget> lineWidgets = getLineWidgets();
-      ScopeList scopes = new ScopeList(this);
       for (int i = 0; i<lineWidgets.length(); i++)
       {
          LineWidget lineWidget = lineWidgets.get(i);
@@ -3208,7 +3281,7 @@ public class AceEditor implements DocDisplay,
             ChunkDefinition chunk = lineWidget.getData();
             chunks.push(chunk.with(lineWidget.getRow(), 
                   TextEditingTargetNotebook.getKnitrChunkLabel(
-                        lineWidget.getRow(), this, scopes)));
+                        lineWidget.getRow(), this)));
          }
       }
       
@@ -3239,29 +3312,25 @@ public class AceEditor implements DocDisplay,
       AceEditor.this.fireEvent(new LineWidgetsChangedEvent());
    }
    
+   // Builds the scope tree in the background, a slice at a time. Slices are
+   // run by the task scheduler, and the number of rows per slice adapts so
+   // that each slice takes roughly SLICE_BUDGET_MS. Work is paused while the
+   // editor is hidden and resumes when it becomes visible again; edits made
+   // while work is pending are coalesced into a single restart from the 
+   // earliest edited row.
    private static class BackgroundTokenizer
    {
       public BackgroundTokenizer(final AceEditor editor)
       {
          editor_ = editor;
+         key_ = "background-tokenizer:" + (nextId_++);
          
-         timer_ = new Timer()
+         task_ = new TaskScheduler.Task()
          {
             @Override
-            public void run()
+            public boolean execute()
             {
-               // Stop our timer if we've tokenized up to the end of the document.
-               if (row_ >= editor_.getRowCount())
-               {
-                  editor_.fireEvent(new ScopeTreeReadyEvent(
-                        editor_.getScopeTree(),
-                        editor_.getCurrentScope()));
-                  return;
-               }
-               
-               row_ += ROWS_TOKENIZED_PER_ITERATION;
-               row_ = Math.max(row_, editor.buildScopeTreeUpToRow(row_));
-               timer_.schedule(DELAY_MS);
+               return runSlice();
             }
          };
          
@@ -3270,8 +3339,14 @@ public class AceEditor implements DocDisplay,
             @Override
             public void onDocumentChanged(DocumentChangedEvent event)
             {
-               row_ = event.getEvent().getRange().getStart().getRow();
-               timer_.schedule(DELAY_MS);
+               int row = event.getEvent().getRange().getStart().getRow();
+               row_ = Math.min(row_, row);
+               changedRow_ = Math.min(changedRow_, row);
+               
+               if (TaskScheduler.get().isPending(key_))
+                  coalescedRestarts_++;
+               restarts_++;
+               schedule();
             }
          });
       }
@@ -3281,13 +3356,120 @@ public class AceEditor implements DocDisplay,
          return row < row_;
       }
       
+      // Resumes work that was paused while the editor was hidden.
+      public void resume()
+      {
+         if (paused_)
+         {
+            paused_ = false;
+            schedule();
+         }
+      }
+      
+      public String getStatistics()
+      {
+         return "Tokenizer: " +
+                "slices " + slices_ + ", " +
+                "rows " + rowsTokenized_ + " in " + elapsedMs_ + "ms " +
+                "(longest slice " + longestSliceMs_ + "ms, " +
+                "currently " + rowsPerSlice_ + " rows/slice), " +
+                "restarts " + restarts_ + 
+                " (" + coalescedRestarts_ + " coalesced), " +
+                "pauses " + pauses_ + ", " +
+                "ready events " + readyEvents_ + ", " +
+                "tokenized to row " + row_ + (paused_ ? " (paused)" : "");
+      }
+      
+      private void schedule()
+      {
+         TaskScheduler.get().schedule(key_, 
+                                      TaskScheduler.PRIORITY_VISIBLE, 
+                                      DELAY_MS, 
+                                      task_);
+      }
+      
+      // Tokenizes one slice of the document; returns true if there's more to
+      // do.
+      private boolean runSlice()
+      {
+         if (!editor_.isVisibleForTokenization())
+         {
+            paused_ = true;
+            pauses_++;
+            return false;
+         }
+         
+         int rowCount = editor_.getRowCount();
+         if (row_ < rowCount)
+         {
+            Duration duration = new Duration();
+            int startRow = row_;
+            row_ += rowsPerSlice_;
+            row_ = Math.max(row_, editor_.buildScopeTreeUpToRow(row_));
+            long elapsed = duration.elapsedMillis();
+            
+            slices_++;
+            rowsTokenized_ += Math.min(row_, rowCount) - startRow;
+            elapsedMs_ += elapsed;
+            longestSliceMs_ = Math.max(longestSliceMs_, elapsed);
+            
+            // size the next slice to fit the budget
+            if (elapsed > SLICE_BUDGET_MS)
+            {
+               rowsPerSlice_ = Math.max(MIN_ROWS_PER_SLICE,
+                     (int) (rowsPerSlice_ * SLICE_BUDGET_MS / elapsed));
+            }
+            else if (elapsed < SLICE_BUDGET_MS / 2)
+            {
+               rowsPerSlice_ = Math.min(MAX_ROWS_PER_SLICE, rowsPerSlice_ * 2);
+            }
+            
+            if (row_ < rowCount)
+               return true;
+         }
+         
+         // we've tokenized up to the end of the document; let listeners know
+         // which rows have changed since they last heard from us
+         if (changedRow_ < Integer.MAX_VALUE)
+         {
+            int changedRow = Math.min(changedRow_, rowCount);
+            changedRow_ = Integer.MAX_VALUE;
+            readyEvents_++;
+            editor_.fireEvent(new ScopeTreeReadyEvent(
+                  editor_.getScopeTree(),
+                  editor_.getCurrentScope(),
+                  changedRow,
+                  rowCount));
+         }
+         return false;
+      }
+      
       private final AceEditor editor_;
-      private final Timer timer_;
+      private final String key_;
+      private final TaskScheduler.Task task_;
       
       private int row_ = 0;
+      private int changedRow_ = 0;
+      private int rowsPerSlice_ = INITIAL_ROWS_PER_SLICE;
+      private boolean paused_ = false;
+      
+      // statistics
+      private int slices_ = 0;
+      private long rowsTokenized_ = 0;
+      private long elapsedMs_ = 0;
+      private long longestSliceMs_ = 0;
+      private int restarts_ = 0;
+      private int coalescedRestarts_ = 0;
+      private int pauses_ = 0;
+      private int readyEvents_ = 0;
+      
+      private static int nextId_ = 0;
       
       private static final int DELAY_MS = 5;
-      private static final int ROWS_TOKENIZED_PER_ITERATION = 200;
+      private static final long SLICE_BUDGET_MS = 4;
+      private static final int INITIAL_ROWS_PER_SLICE = 200;
+      private static final int MIN_ROWS_PER_SLICE = 20;
+      private static final int MAX_ROWS_PER_SLICE = 5000;
    }
 
    private class ScrollAnimator 
@@ -3362,6 +3544,9 @@ public class AceEditor implements DocDisplay,
    private AceInfoBar infoBar_;
    private boolean showChunkOutputInline_ = false;
    private BackgroundTokenizer backgroundTokenizer_;
+   private boolean visible_ = false;
+   private boolean visibilityKnown_ = false;
+   private ScopeIndex scopeIndex_;
    private final Vim vim_;
    
    private static final ExternalJavaScriptLoader getLoader(StaticDataResource release)
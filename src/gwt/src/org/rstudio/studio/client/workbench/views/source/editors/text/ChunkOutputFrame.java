@@ -23,15 +23,42 @@ public class ChunkOutputFrame extends DynamicIFrame
    void loadUrl(String url, Command onCompleted)
    {
       onCompleted_ = onCompleted;
+      contentUrl_ = url;
+      unloaded_ = false;
       super.setUrl(url);
    }
+   
+   // releases the frame's document (along with any scripts running in it)
+   // while keeping the frame's size; reload() restores the content
+   void unload()
+   {
+      if (contentUrl_ == null || unloaded_)
+         return;
+      unloaded_ = true;
+      super.setUrl("about:blank");
+   }
+   
+   void reload()
+   {
+      if (!unloaded_)
+         return;
+      unloaded_ = false;
+      super.setUrl(contentUrl_);
+   }
+   
+   boolean isUnloaded()
+   {
+      return unloaded_;
+   }
 
    @Override
    protected void onFrameLoaded()
    {
-      if (onCompleted_ != null)
+      if (onCompleted_ != null && !unloaded_)
          onCompleted_.execute();
    }
    
    private Command onCompleted_;
+   private String contentUrl_;
+   private boolean unloaded_;
 }
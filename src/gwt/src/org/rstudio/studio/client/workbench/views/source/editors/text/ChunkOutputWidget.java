@@ -15,8 +15,8 @@
 package org.rstudio.studio.client.workbench.views.source.editors.text;
 
 import org.rstudio.core.client.ColorUtil;
+import org.rstudio.core.client.ConsoleRenderer;
 import org.rstudio.core.client.StringUtil;
-import org.rstudio.core.client.VirtualConsole;
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.dom.ImageElementEx;
 import org.rstudio.core.client.js.JsArrayEx;
@@ -413,6 +413,27 @@ public class ChunkOutputWidget extends Composite
       frame_.getElement().getStyle().setBackgroundColor(s_backgroundColor);
    }
    
+   // unloads (or reloads) the documents hosted by any HTML outputs (e.g.
+   // htmlwidgets), which can be expensive to keep alive while far out of
+   // view
+   public void setHtmlOutputLoaded(boolean loaded)
+   {
+      for (Widget w: root_)
+      {
+         if (!(w instanceof FixedRatioWidget))
+            continue;
+         Widget inner = ((FixedRatioWidget)w).getWidget();
+         if (!(inner instanceof ChunkOutputFrame))
+            continue;
+         
+         ChunkOutputFrame frame = (ChunkOutputFrame)inner;
+         if (loaded)
+            frame.reload();
+         else
+            frame.unload();
+      }
+   }
+   
    public boolean hasErrors()
    {
       return hasErrors_;
@@ -626,7 +647,7 @@ public class ChunkOutputWidget extends Composite
             vconsole_.submit(outputText, classOfOutput(outputType));
          }
       }
-      vconsole_.redraw(console_.getElement());
+      vconsole_.render();
       setOverflowStyle();
    }
    
@@ -772,8 +793,14 @@ public class ChunkOutputWidget extends Composite
             bodyStyle.setColor(s_color);
             
             renderTimeout.cancel();
-            completeUnitRender(ensureVisible);
+            
+            // only ensure visibility on the initial load (the frame is 
+            // reloaded if it has been unloaded while out of view)
+            completeUnitRender(ensureVisible && !loaded_);
+            loaded_ = true;
          };
+         
+         private boolean loaded_ = false;
       });
    }
    
@@ -781,8 +808,7 @@ public class ChunkOutputWidget extends Composite
          boolean ensureVisible)
    {
       initializeOutput(RmdChunkOutputUnit.TYPE_TEXT);
-      vconsole_.submitAndRender(text, clazz,
-            console_.getElement());
+      vconsole_.write(text, clazz);
       syncHeight(true, ensureVisible);
    }
    
@@ -809,9 +835,9 @@ public class ChunkOutputWidget extends Composite
          }
          else if (lastOutputType_ == RmdChunkOutputUnit.TYPE_TEXT)
          {
-            // if switching from textual input, clear the text accumulator
-            if (vconsole_ != null)
-               vconsole_.clear();
+            // if switching from textual input, release the console (its
+            // output remains on display)
+            vconsole_ = null;
             console_ = null;
          }
       }
@@ -820,20 +846,17 @@ public class ChunkOutputWidget extends Composite
 
    private void initConsole()
    {
-      if (vconsole_ == null)
-         vconsole_ = new VirtualConsole();
-      else
-         vconsole_.clear();
       if (console_ == null)
       {
          console_ = new PreWidget();
          console_.getElement().removeAttribute("tabIndex");
          console_.getElement().getStyle().setMarginTop(0, Unit.PX);
          console_.getElement().getStyle().setProperty("whiteSpace", "pre-wrap");
+         vconsole_ = new ConsoleRenderer(console_.getElement());
       }
       else
       {
-         console_.getElement().setInnerHTML("");
+         vconsole_.clear();
       }
 
       // attach the console
@@ -846,6 +869,7 @@ public class ChunkOutputWidget extends Composite
          vconsole_.clear();
       if (console_ != null)
          console_.removeFromParent();
+      vconsole_ = null;
       console_ = null;
    }
    
@@ -1045,7 +1069,7 @@ public class ChunkOutputWidget extends Composite
    @UiField HTMLPanel expander_;
    
    private PreWidget console_;
-   private VirtualConsole vconsole_;
+   private ConsoleRenderer vconsole_;
    private ProgressSpinner spinner_;
    private String queuedError_;
    private RmdChunkOptions options_;
@@ -33,6 +33,7 @@ import org.rstudio.studio.client.workbench.views.output.lint.model.LintItem;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceCommandManager;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceFold;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Anchor;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AnchoredRange;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.LineWidget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Mode.InsertChunkInfo;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
@@ -159,6 +160,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    
    // Fix bug 964
    void onActivate();
+   void onDeactivate();
 
    void setReadOnly(boolean readOnly);
    void setFontSize(double size);
@@ -222,6 +224,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    HandlerRegistration addSaveCompletedHandler(SaveFileHandler handler);
 
    boolean isScopeTreeReady(int row);
+   String getTokenizerStatistics();
    HandlerRegistration addScopeTreeReadyHandler(ScopeTreeReadyEvent.Handler handler);
    
    Position getCursorPosition();
@@ -277,6 +280,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    Scope getSectionAtPosition(Position position);
    boolean hasScopeTree();
    JsArray<Scope> getScopeTree();
+   ScopeIndex getScopeIndex();
    InsertChunkInfo getInsertChunkInfo();
 
    void foldAll();
@@ -326,6 +330,11 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    TokenIterator getTokenIterator(Position pos);
 
    Anchor createAnchor(Position pos);
+   AnchoredRange createAnchoredRange(Position start, Position end);
+   
+   // inline (text) markers, drawn in front of the text
+   int addMarker(Range range, String clazz);
+   void removeMarker(int markerId);
    
    int getStartOfCurrentStatement();
    int getEndOfCurrentStatement();
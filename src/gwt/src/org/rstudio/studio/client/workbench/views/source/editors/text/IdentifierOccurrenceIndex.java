@@ -0,0 +1,332 @@
+/*
+ * IdentifierOccurrenceIndex.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.TokenCursor;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * A per-document index of the occurrences of each name within a scope that
+ * refer to the binding visible in that scope (skipping names that are
+ * shadowed by assignments or arguments in nested functions, extracted with
+ * '$' or '@', or used as argument names in calls and nested definitions).
+ * 
+ * None of these rules depend on the name being looked up, so a single walk
+ * over the tokens of a scope indexes every name in it. Walks are cached by
+ * the range they cover; an edit discards only the walks whose range ends at
+ * or after the edited row, so walks over earlier scopes survive edits made
+ * further down the document.
+ */
+public class IdentifierOccurrenceIndex
+{
+   public IdentifierOccurrenceIndex(AceEditor editor)
+   {
+      editor_ = editor;
+      editor_.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            invalidateFrom(event.getEvent().getRange().getStart().getRow());
+         }
+      });
+   }
+   
+   // the occurrences of the name within the scope, walking from startPos
+   // (either the preamble of the scope or the first assignment within it)
+   // to the end of the scope; the returned ranges are fresh and may be
+   // handed to the editor's selection
+   public List<Range> getOccurrences(Scope scope, 
+                                     Position startPos,
+                                     String name)
+   {
+      List<Range> ranges = new ArrayList<Range>();
+      List<int[]> occurrences = getScopeOccurrences(scope, startPos).get(name);
+      if (occurrences == null)
+         return ranges;
+      
+      for (int[] occurrence : occurrences)
+      {
+         ranges.add(Range.create(occurrence[0],
+                                 occurrence[1],
+                                 occurrence[0],
+                                 occurrence[1] + name.length()));
+      }
+      return ranges;
+   }
+   
+   public void invalidate()
+   {
+      scans_.clear();
+   }
+   
+   private void invalidateFrom(int row)
+   {
+      Iterator<ScopeOccurrences> it = scans_.values().iterator();
+      while (it.hasNext())
+      {
+         if (it.next().endRow >= row)
+            it.remove();
+      }
+   }
+   
+   private Map<String, List<int[]>> getScopeOccurrences(Scope scope,
+                                                        Position startPos)
+   {
+      boolean openEnded = scope.getEnd() == null;
+      Position endPos = openEnded ?
+            Position.create(editor_.getSession().getLength(), 0) :
+            scope.getEnd();
+      
+      String key = startPos.getRow() + ":" + startPos.getColumn() + "-" +
+                   endPos.getRow() + ":" + endPos.getColumn();
+      
+      ScopeOccurrences scan = scans_.get(key);
+      if (scan == null)
+      {
+         // an unclosed scope extends to the end of the document, so any
+         // edit can change it
+         scan = new ScopeOccurrences(
+               openEnded ? Integer.MAX_VALUE : endPos.getRow(),
+               indexScope(scope, startPos, endPos));
+         scans_.put(key, scan);
+      }
+      return scan.occurrences;
+   }
+   
+   private Map<String, List<int[]>> indexScope(Scope scope,
+                                               Position startPos,
+                                               Position endPos)
+   {
+      Map<String, List<int[]>> occurrences = new HashMap<String, List<int[]>>();
+      
+      state_.clear();
+      protectedNamesList_.clear();
+      protectedNamesList_.add(new HashSet<String>());
+      
+      TokenCursor cursor = editor_.getSession().getMode().getCodeModel().getTokenCursor();
+      cursor.moveToPosition(startPos, true);
+      
+      // Workaround 'moveToPosition' not handling forward searches (yet)
+      if (cursor.getRow() < startPos.getRow())
+         if (!cursor.moveToNextToken())
+            return occurrences;
+      
+      do
+      {
+         // Left brackets push on the stack.
+         if (cursor.isLeftBracket())
+         {
+            // Update state.
+            if (cursor.valueEquals("("))
+            {
+               if (cursor.peekBwd(1).valueEquals("function"))
+                  pushState(STATE_FUNCTION_DEFINITION);
+               else
+                  pushState(STATE_FUNCTION_CALL);
+            }
+            else
+            {
+               pushState(STATE_DEFAULT);
+            }
+            
+            // Update protected names for braces.
+            if (cursor.valueEquals("{"))
+               pushProtectedNames(cursor.currentPosition(), scope);
+            
+            continue;
+         }
+         
+         // Right brackets pop the stack.
+         if (cursor.isRightBracket())
+         {
+            popState();
+            if (cursor.valueEquals("}"))
+               popProtectedNames();
+            
+            continue;
+         }
+         
+         // Protect a name if it's the target of an assignment in a child scope.
+         if (cursor.hasType("identifier") &&
+             cursor.peekFwd(1).isLeftAssign() &&
+             !cursor.peekBwd(1).isExtractionOperator())
+         {
+            Scope candidate = editor_.getScopeAtPosition(cursor.currentPosition());
+            
+            // Skip default arguments for nested functions
+            if (peekState() == STATE_FUNCTION_DEFINITION && scope != candidate)
+               continue;
+            
+            if (cursor.peekFwd(2).valueEquals("function") && !candidate.isTopLevel())
+               candidate = candidate.getParentScope();
+            
+            if (candidate != scope)
+            {
+               addProtectedName(cursor.currentValue());
+               continue;
+            }
+         }
+         
+         // Bail if we've reached the end of the scope.
+         if (cursor.currentPosition().isAfterOrEqualTo(endPos))
+            break;
+         
+         // Only names can be renamed; strings are handled separately.
+         if (!cursor.hasType("identifier", "constant.language", "keyword"))
+            continue;
+         
+         // Skip 'protected' names. These are names that have been overwritten
+         // either as assignments, or exist as names to newly defined functions.
+         if (isProtectedName(cursor.currentValue()))
+            continue;
+         
+         // Skip variables following an 'extraction' operator.
+         if (cursor.peekBwd(1).isExtractionOperator())
+            continue;
+         
+         // Skip argument names and default arguments in nested function
+         // definitions. For example, for a variable named 'bar', we only
+         // want the underlined pieces:
+         //
+         //    bar <- bar + 1; foo <- function(bar = 1) { ... }
+         //    ~~~    ~~~        
+         //
+         // Parent function definitions are fine, e.g.
+         //
+         //    foo <- function(bar) { bar <- bar + 1 }
+         //                    ~~~    ~~~    ~~~
+         if (peekState() == STATE_FUNCTION_DEFINITION &&
+             editor_.getScopeAtPosition(cursor.currentPosition()) != scope)
+         {
+            continue;
+         }
+         
+         // Don't index the argument names for named function calls.
+         // For example, for a variable named 'bar', we only want the
+         // underlined pieces:
+         //
+         //    bar <- bar + 1; foo(bar = bar)
+         //    ~~~    ~~~                ~~~
+         if (peekState() == STATE_FUNCTION_CALL && cursor.nextValue().equals("="))
+            continue;
+         
+         String name = cursor.currentValue();
+         List<int[]> positions = occurrences.get(name);
+         if (positions == null)
+         {
+            positions = new ArrayList<int[]>();
+            occurrences.put(name, positions);
+         }
+         Position position = cursor.currentPosition();
+         positions.add(new int[] { position.getRow(), position.getColumn() });
+         
+      } while (cursor.moveToNextToken());
+      
+      return occurrences;
+   }
+   
+   private int peekState()
+   {
+      return state_.empty() ?
+            STATE_TOP_LEVEL :
+            state_.peek();
+   }
+   
+   private void pushState(int state)
+   {
+      state_.push(state);
+   }
+   
+   private int popState()
+   {
+      return state_.empty() ?
+            STATE_TOP_LEVEL :
+            state_.pop();
+   }
+   
+   private boolean isProtectedName(String name)
+   {
+      for (int i = 0; i < protectedNamesList_.size(); i++)
+         if (protectedNamesList_.get(i).contains(name))
+            return true;
+      
+      return false;
+   }
+   
+   private void addProtectedName(String name)
+   {
+      protectedNamesList_.get(protectedNamesList_.size() - 1).add(name);
+   }
+   
+   private void pushProtectedNames(Position position, Scope parentScope)
+   {
+      protectedNamesList_.add(new HashSet<String>());
+      Scope scope = editor_.getScopeAtPosition(position);
+      if (scope.isFunction() && scope != parentScope)
+      {
+         JsArrayString argNames = ((ScopeFunction) scope).getFunctionArgs();
+         for (int i = 0; i < argNames.length(); i++)
+            addProtectedName(argNames.get(i));
+      }
+   }
+   
+   private void popProtectedNames()
+   {
+      if (protectedNamesList_.size() <= 1)
+         return;
+      
+      protectedNamesList_.remove(protectedNamesList_.size() - 1);
+   }
+   
+   private static class ScopeOccurrences
+   {
+      public ScopeOccurrences(int endRow, Map<String, List<int[]>> occurrences)
+      {
+         this.endRow = endRow;
+         this.occurrences = occurrences;
+      }
+      
+      public final int endRow;
+      public final Map<String, List<int[]>> occurrences;
+   }
+   
+   private final AceEditor editor_;
+   private final Map<String, ScopeOccurrences> scans_ =
+         new HashMap<String, ScopeOccurrences>();
+   
+   // walk state, valid only during indexScope()
+   private final Stack<Integer> state_ = new Stack<Integer>();
+   private final List<Set<String>> protectedNamesList_ =
+         new ArrayList<Set<String>>();
+   
+   private static final int STATE_TOP_LEVEL = 1;
+   private static final int STATE_DEFAULT = 2;
+   private static final int STATE_FUNCTION_CALL = 3;
+   private static final int STATE_FUNCTION_DEFINITION = 4;
+}
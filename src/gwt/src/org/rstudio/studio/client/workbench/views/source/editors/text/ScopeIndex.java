@@ -0,0 +1,186 @@
+/*
+ * ScopeIndex.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.rstudio.core.client.StringUtil;
+
+import com.google.gwt.core.client.JsArray;
+
+/**
+ * An index over the scope tree of a document, answering row queries (the
+ * innermost scope at a row, the chunk at or beginning on a row, the ordinal
+ * of an unnamed chunk) by binary search, rather than by walking the scope
+ * tree or a flattened ScopeList.
+ * 
+ * Like ScopeList, the index is a snapshot of the scope tree. The scope tree
+ * itself is maintained incrementally by the code model; AceEditor holds a
+ * single index per document, discards it when the document changes, and
+ * rebuilds it on the next query, so that any number of queries between
+ * edits share one flattening of the tree.
+ */
+public class ScopeIndex
+{
+   public ScopeIndex(JsArray<Scope> scopeTree)
+   {
+      ArrayList<Integer> parents = new ArrayList<Integer>();
+      addScopes(scopeTree, -1, parents);
+      
+      int n = scopes_.size();
+      parents_ = new int[n];
+      startRows_ = new int[n];
+      for (int i = 0; i < n; i++)
+      {
+         parents_[i] = parents.get(i);
+         startRows_[i] = getStartRow(scopes_.get(i));
+      }
+      
+      // chunks never nest, so in pre-order they are sorted by preamble row
+      int unnamed = 0;
+      ArrayList<Integer> unnamedBefore = new ArrayList<Integer>();
+      for (int i = 0; i < n; i++)
+      {
+         Scope scope = scopes_.get(i);
+         if (!scope.isChunk())
+            continue;
+         
+         chunks_.add(scope);
+         unnamedBefore.add(unnamed);
+         if (StringUtil.isNullOrEmpty(scope.getChunkLabel()))
+            unnamed++;
+      }
+      
+      chunkRows_ = new int[chunks_.size()];
+      unnamedBefore_ = new int[chunks_.size()];
+      for (int i = 0; i < chunks_.size(); i++)
+      {
+         chunkRows_[i] = getStartRow(chunks_.get(i));
+         unnamedBefore_[i] = unnamedBefore.get(i);
+      }
+   }
+   
+   // all scopes, in document (pre-)order
+   public List<Scope> getScopes()
+   {
+      return Collections.unmodifiableList(scopes_);
+   }
+   
+   public List<Scope> getChunks()
+   {
+      return Collections.unmodifiableList(chunks_);
+   }
+   
+   // the innermost scope whose rows (preamble through end) include the row
+   public Scope getScopeAtRow(int row)
+   {
+      // the last scope starting at or before the row is either the innermost
+      // scope containing the row or a descendant of it
+      int index = lastAtOrBefore(startRows_, row);
+      while (index != -1)
+      {
+         Scope scope = scopes_.get(index);
+         if (containsRow(scope, row))
+            return scope;
+         index = parents_[index];
+      }
+      return null;
+   }
+   
+   // the chunk whose rows (preamble through end) include the row
+   public Scope getChunkAtRow(int row)
+   {
+      int index = lastAtOrBefore(chunkRows_, row);
+      if (index == -1 || !containsRow(chunks_.get(index), row))
+         return null;
+      return chunks_.get(index);
+   }
+   
+   // the chunk whose preamble is on the row
+   public Scope getChunkForPreambleRow(int row)
+   {
+      int index = lastAtOrBefore(chunkRows_, row);
+      if (index == -1 || chunkRows_[index] != row)
+         return null;
+      return chunks_.get(index);
+   }
+   
+   // for an unnamed chunk, its 1-based position among the unnamed chunks of
+   // the document (as used by knitr to label it); 0 otherwise
+   public int getUnnamedChunkOrdinal(Scope chunk)
+   {
+      if (chunk == null || !StringUtil.isNullOrEmpty(chunk.getChunkLabel()))
+         return 0;
+      
+      int index = lastAtOrBefore(chunkRows_, getStartRow(chunk));
+      if (index == -1 || chunkRows_[index] != getStartRow(chunk))
+         return 0;
+      return unnamedBefore_[index] + 1;
+   }
+   
+   private void addScopes(JsArray<Scope> scopes, int parent, 
+                          List<Integer> parents)
+   {
+      if (scopes == null)
+         return;
+      
+      for (int i = 0; i < scopes.length(); i++)
+      {
+         Scope scope = scopes.get(i);
+         int index = scopes_.size();
+         scopes_.add(scope);
+         parents.add(parent);
+         addScopes(scope.getChildren(), index, parents);
+      }
+   }
+   
+   private static int getStartRow(Scope scope)
+   {
+      return scope.getPreamble() == null ? 0 : scope.getPreamble().getRow();
+   }
+   
+   private static boolean containsRow(Scope scope, int row)
+   {
+      // a scope without an end is unclosed, and extends to the end of the
+      // document
+      return getStartRow(scope) <= row &&
+             (scope.getEnd() == null || scope.getEnd().getRow() >= row);
+   }
+   
+   // index of the last element of the (sorted) rows that is <= row, or -1
+   private static int lastAtOrBefore(int[] rows, int row)
+   {
+      int low = 0;
+      int high = rows.length - 1;
+      while (low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         if (rows[mid] <= row)
+            low = mid + 1;
+         else
+            high = mid - 1;
+      }
+      return high;
+   }
+   
+   private final ArrayList<Scope> scopes_ = new ArrayList<Scope>();
+   private final ArrayList<Scope> chunks_ = new ArrayList<Scope>();
+   private final int[] parents_;
+   private final int[] startRows_;
+   private final int[] chunkRows_;
+   private final int[] unnamedBefore_;
+}
@@ -14,10 +14,7 @@
  */
 package org.rstudio.studio.client.workbench.views.source.editors.text;
 
-import com.google.gwt.core.client.JsArray;
-
 import org.rstudio.core.client.StringUtil;
-import org.rstudio.core.client.js.JsUtil;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
 
 import java.util.ArrayList;
@@ -92,7 +89,7 @@ public class ScopeList implements Iterable<Scope>
 
    public ScopeList(DocDisplay docDisplay)
    {
-      addScopes(docDisplay.getScopeTree());
+      scopes_.addAll(docDisplay.getScopeIndex().getScopes());
    }
 
    @Override
@@ -146,14 +143,5 @@ public class ScopeList implements Iterable<Scope>
       return null;
    }
 
-   private void addScopes(JsArray<Scope> scopes)
-   {
-      for (Scope scope : JsUtil.asIterable(scopes))
-      {
-         scopes_.add(scope);
-         addScopes(scope.getChildren());
-      }
-   }
-
    private final ArrayList<Scope> scopes_ = new ArrayList<Scope>();
 }
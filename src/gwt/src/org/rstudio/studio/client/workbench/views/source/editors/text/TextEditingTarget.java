@@ -246,10 +246,19 @@ public class TextEditingTarget implements
       public SaveProgressIndicator(FileSystemItem file,
                                    TextFileType fileType,
                                    Command executeOnSuccess)
+      {
+         this(file, fileType, executeOnSuccess, null);
+      }
+
+      public SaveProgressIndicator(FileSystemItem file,
+                                   TextFileType fileType,
+                                   Command executeOnSuccess,
+                                   CommandWithArg<String> executeOnError)
       {
          file_ = file;
          newFileType_ = fileType;
          executeOnSuccess_ = executeOnSuccess;
+         executeOnError_ = executeOnError;
       }
 
       public void onProgress(String message)
@@ -313,6 +322,13 @@ public class TextEditingTarget implements
 
       public void onError(final String message)
       {
+         // the caller is collecting errors (e.g. from a batch of saves)
+         if (executeOnError_ != null)
+         {
+            executeOnError_.execute(message);
+            return;
+         }
+
          // in case the error occured saving a document that wasn't 
          // in the foreground
          view_.ensureVisible();
@@ -383,6 +399,7 @@ public class TextEditingTarget implements
 
       private final TextFileType newFileType_;
       private final Command executeOnSuccess_;
+      private final CommandWithArg<String> executeOnError_;
    }
 
    @Inject
@@ -424,7 +441,9 @@ public class TextEditingTarget implements
       dirtyState_ = new DirtyState(docDisplay_, false);
       lintManager_ = new LintManager(this, cppCompletionContext_);
       prefs_ = prefs;
-      compilePdfHelper_ = new TextEditingTargetCompilePdfHelper(docDisplay_);
+      headerCache_ = new TextEditingTargetHeaderCache(docDisplay_);
+      compilePdfHelper_ = new TextEditingTargetCompilePdfHelper(docDisplay_,
+                                                                headerCache_);
       rmarkdownHelper_ = new TextEditingTargetRMarkdownHelper();
       cppHelper_ = new TextEditingTargetCppHelper(cppCompletionContext_, 
                                                   docDisplay_);
@@ -2086,6 +2105,8 @@ public class TextEditingTarget implements
       {
          Debug.log("Exception recording nav position: " + e.toString());
       }
+      
+      docDisplay_.onDeactivate();
    }
 
    @Override
@@ -2161,6 +2182,21 @@ public class TextEditingTarget implements
                                              onCompleted));
    }
    
+   public void save(Command onCompleted, CommandWithArg<String> onFailed)
+   {
+      saveThenExecute(null, 
+                      CommandUtil.join(postSaveCommand(), onCompleted),
+                      onFailed);
+   }
+   
+   @Override
+   public boolean requiresSavePrompt()
+   {
+      return docUpdateSentinel_.getPath() == null ||
+             (StringUtil.isNullOrEmpty(getSaveEncoding(null)) &&
+              !docUpdateSentinel_.isAscii());
+   }
+   
    public void saveWithPrompt(final Command command, final Command onCancelled)
    {
       view_.ensureVisible();
@@ -2194,13 +2230,20 @@ public class TextEditingTarget implements
    }
 
    public void saveThenExecute(String encodingOverride, final Command command)
+   {
+      saveThenExecute(encodingOverride, command, null);
+   }
+
+   private void saveThenExecute(String encodingOverride, 
+                                final Command command,
+                                final CommandWithArg<String> onFailed)
    {
       checkCompilePdfDependencies();
    
       final String path = docUpdateSentinel_.getPath();
       if (path == null)
       {
-         saveNewFile(null, encodingOverride, command);
+         saveNewFile(null, encodingOverride, command, onFailed);
          return;
       }
 
@@ -2218,15 +2261,25 @@ public class TextEditingTarget implements
                                           new SaveProgressIndicator(
                                                 FileSystemItem.createFile(path),
                                                 null,
-                                                command
+                                                command,
+                                                onFailed
                                           ));
                }
-            });
+            },
+            cancelCommand(onFailed));
    }
 
    private void saveNewFile(final String suggestedPath,
                             String encodingOverride,
                             final Command executeOnSuccess)
+   {
+      saveNewFile(suggestedPath, encodingOverride, executeOnSuccess, null);
+   }
+
+   private void saveNewFile(final String suggestedPath,
+                            String encodingOverride,
+                            final Command executeOnSuccess,
+                            final CommandWithArg<String> onFailed)
    {
       withEncodingRequiredUnlessAscii(
             encodingOverride,
@@ -2236,20 +2289,44 @@ public class TextEditingTarget implements
                {
                   saveNewFileWithEncoding(suggestedPath,
                                           encoding,
-                                          executeOnSuccess);
+                                          executeOnSuccess,
+                                          onFailed);
                }
-            });
+            },
+            cancelCommand(onFailed));
    }
-
-   private void withEncodingRequiredUnlessAscii(
-         final String encodingOverride,
-         final CommandWithArg<String> command)
+   
+   // a batch save is told about cancelled prompts with a null error message
+   private Command cancelCommand(final CommandWithArg<String> onFailed)
+   {
+      if (onFailed == null)
+         return null;
+      
+      return new Command()
+      {
+         @Override
+         public void execute()
+         {
+            onFailed.execute(null);
+         }
+      };
+   }
+   
+   private String getSaveEncoding(String encodingOverride)
    {
-      final String encoding = StringUtil.firstNotNullOrEmpty(new String[] {
+      return StringUtil.firstNotNullOrEmpty(new String[] {
             encodingOverride,
             docUpdateSentinel_.getEncoding(),
             prefs_.defaultEncoding().getValue()
       });
+   }
+
+   private void withEncodingRequiredUnlessAscii(
+         final String encodingOverride,
+         final CommandWithArg<String> command,
+         final Command onCancelled)
+   {
+      final String encoding = getSaveEncoding(encodingOverride);
 
       if (StringUtil.isNullOrEmpty(encoding))
       {
@@ -2267,7 +2344,8 @@ public class TextEditingTarget implements
                {
                   command.execute(newEncoding);
                }
-            });
+            },
+            onCancelled);
          }
       }
       else
@@ -2278,11 +2356,26 @@ public class TextEditingTarget implements
 
    private void withChooseEncoding(final String defaultEncoding,
                                    final CommandWithArg<String> command)
+   {
+      withChooseEncoding(defaultEncoding, command, null);
+   }
+
+   private void withChooseEncoding(final String defaultEncoding,
+                                   final CommandWithArg<String> command,
+                                   final Command onCancelled)
    {
       view_.ensureVisible();;
       
       server_.iconvlist(new SimpleRequestCallback<IconvListResult>()
       {
+         @Override
+         public void onError(ServerError error)
+         {
+            super.onError(error);
+            if (onCancelled != null)
+               onCancelled.execute();
+         }
+         
          @Override
          public void onResponseReceived(IconvListResult response)
          {
@@ -2300,7 +2393,11 @@ public class TextEditingTarget implements
                      public void execute(String newEncoding)
                      {
                         if (newEncoding == null)
+                        {
+                           if (onCancelled != null)
+                              onCancelled.execute();
                            return;
+                        }
 
                         if (d.getValue().isSaveAsDefault())
                         {
@@ -2319,7 +2416,8 @@ public class TextEditingTarget implements
 
    private void saveNewFileWithEncoding(String suggestedPath,
                                         final String encoding,
-                                        final Command executeOnSuccess)
+                                        final Command executeOnSuccess,
+                                        final CommandWithArg<String> onFailed)
    {
       view_.ensureVisible();
       
@@ -2341,7 +2439,11 @@ public class TextEditingTarget implements
                                    ProgressIndicator indicator)
                {
                   if (saveItem == null)
+                  {
+                     if (onFailed != null)
+                        onFailed.execute(null);
                      return;
+                  }
 
                   try
                   {
@@ -2375,7 +2477,8 @@ public class TextEditingTarget implements
                                  encoding,
                                  new SaveProgressIndicator(saveItem,
                                                            fileType,
-                                                           executeOnSuccess));
+                                                           executeOnSuccess,
+                                                           onFailed));
 
                            events_.fireEvent(
                                  new SourceFileSavedEvent(getId(),
@@ -2397,6 +2500,7 @@ public class TextEditingTarget implements
                               "open as an R script.\n\n" +
                               "Are you sure you want to change the type of " +
                               "the file so that it is no longer an R script?",
+                              false,
                               new Operation() {
 
                                  @Override
@@ -2405,6 +2509,15 @@ public class TextEditingTarget implements
                                     saveCommand.execute();
                                  }
                               },
+                              new Operation() {
+
+                                 @Override
+                                 public void execute()
+                                 {
+                                    if (onFailed != null)
+                                       onFailed.execute(null);
+                                 }
+                              },
                               false);
                      }
                      else
@@ -2415,6 +2528,9 @@ public class TextEditingTarget implements
                   catch (Exception e)
                   {
                      indicator.onError(e.toString());
+                     // the indicator has already shown the error
+                     if (onFailed != null)
+                        onFailed.execute(null);
                      return;
                   }
 
@@ -3101,19 +3217,15 @@ public class TextEditingTarget implements
             public void execute()
             {
                // push the new doc state into the source database that the 
-               // new window will inherit
+               // new window will inherit (the new window fetches the
+               // contents, which were just synchronized, from the server)
                SourceWindowManager manager =
                      RStudioGinjector.INSTANCE.getSourceWindowManager();
-               JsArray<SourceDocument> docs = manager.getSourceDocs();
-               for (int i = 0; i < docs.length(); i++)
+               SourceDocument doc = manager.getSourceDoc(getId());
+               if (doc != null)
                {
-                  if (docs.get(i).getId() == getId())
-                  {
-                     docs.get(i).setChunkDefs(docDisplay_.getChunkDefs());
-                     docs.get(i).setContents(docDisplay_.getCode());
-                     docs.get(i).setDirty(dirtyState_.getValue());
-                     break;
-                  }
+                  doc.setChunkDefs(docDisplay_.getChunkDefs());
+                  doc.setDirty(dirtyState_.getValue());
                }
                
                // fire popout event (this triggers a close in the current window
@@ -4239,7 +4351,7 @@ public class TextEditingTarget implements
             {
                rmarkdownHelper_.prepareForRmdChunkExecution(
                      docUpdateSentinel_.getId(),
-                     docUpdateSentinel_.getContents(),
+                     headerCache_,
                      new Command()
                      {
                         @Override
@@ -4407,7 +4519,7 @@ public class TextEditingTarget implements
                // (e.g. by populating 'params' in the global environment)
                rmarkdownHelper_.prepareForRmdChunkExecution(
                      docUpdateSentinel_.getId(),
-                     docUpdateSentinel_.getContents(), 
+                     headerCache_, 
                      executeChunk);
             }
          });  
@@ -4739,7 +4851,7 @@ public class TextEditingTarget implements
    {
       // last ditch extended type detection
       String extendedType = extendedType_;
-      extendedType = rmarkdownHelper_.detectExtendedType(docDisplay_.getCode(),
+      extendedType = rmarkdownHelper_.detectExtendedType(headerCache_,
                                                          extendedType, 
                                                          fileType_);
       
@@ -5426,6 +5538,12 @@ public class TextEditingTarget implements
       docDisplay_.toggleTokenInfo();
    }
    
+   @Handler
+   void onLogEditorTokenizerStatistics()
+   {
+      Debug.log(docDisplay_.getTokenizerStatistics());
+   }
+   
    boolean useScopeTreeFolding()
    {
       return docDisplay_.hasScopeTree();
@@ -6147,6 +6265,7 @@ public class TextEditingTarget implements
    private final DirtyState dirtyState_;
    private HandlerManager handlers_ = new HandlerManager(this);
    private FileSystemContext fileContext_;
+   private final TextEditingTargetHeaderCache headerCache_;
    private final TextEditingTargetCompilePdfHelper compilePdfHelper_;
    private final TextEditingTargetRMarkdownHelper rmarkdownHelper_;
    private final TextEditingTargetCppHelper cppHelper_;
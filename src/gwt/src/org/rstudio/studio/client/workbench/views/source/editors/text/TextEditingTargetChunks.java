@@ -22,6 +22,7 @@ import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.common.r.knitr.RMarkdownChunkHeaderParser;
 import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.LineWidget;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.EditorModeChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.ScopeTreeReadyEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkContextUi;
@@ -56,7 +57,7 @@ public class TextEditingTargetChunks
    public void onScopeTreeReady(ScopeTreeReadyEvent event)
    {
       if (target_.getDocDisplay().getModeId() == "mode/rmarkdown")
-         syncWidgets();
+         syncWidgets(event.getChangedStartRow());
    }
 
    @Override
@@ -80,7 +81,7 @@ public class TextEditingTargetChunks
       if (event.getMode() != "mode/rmarkdown")
          removeAllToolbars();
       else 
-         syncWidgets();
+         syncWidgets(0);
    }
 
    public void setChunkState(int preambleRow, int state)
@@ -120,7 +121,7 @@ public class TextEditingTargetChunks
                removeAllToolbars();
 
                // .. and rebuild them
-               syncWidgets();
+               syncWidgets(0);
             }
          }
       });
@@ -133,7 +134,7 @@ public class TextEditingTargetChunks
       toolbars_.clear();
    }
    
-   private void syncWidgets()
+   private void syncWidgets(int changedStartRow)
    {
       Scope currentScope = target_.getDocDisplay().getCurrentScope();
       if (initialized_ && currentScope != null && 
@@ -152,6 +153,10 @@ public class TextEditingTargetChunks
          ScopeList scopes = new ScopeList(target_.getDocDisplay());
          for (Scope scope: scopes)
          {
+            // chunks that end above the edited region are unchanged; keep
+            // their toolbars without re-reading the chunk header
+            if (isAboveRow(scope, changedStartRow) && markToolbarRendered(scope))
+               continue;
             syncChunkToolbar(scope);
          }
          
@@ -170,6 +175,26 @@ public class TextEditingTargetChunks
          lastRow_ = currentScope.getPreamble().getRow();
    }
    
+   private boolean isAboveRow(Scope scope, int row)
+   {
+      Position end = scope.getEnd();
+      return end != null && end.getRow() < row;
+   }
+   
+   private boolean markToolbarRendered(Scope chunk)
+   {
+      int preambleRow = chunk.getPreamble().getRow();
+      for (ChunkContextUi toolbar: toolbars_)
+      {
+         if (toolbar.getPreambleRow() == preambleRow)
+         {
+            toolbar.setRenderPass(renderPass_);
+            return true;
+         }
+      }
+      return false;
+   }
+   
    private void syncChunkToolbar(Scope chunk)
    {
       // see if we've already drawn a toolbar for this chunk; if so, just
@@ -46,9 +46,12 @@ import java.util.HashMap;
 public class TextEditingTargetCompilePdfHelper
       implements RnwCompletionContext
 { 
-   public TextEditingTargetCompilePdfHelper(DocDisplay docDisplay)
+   public TextEditingTargetCompilePdfHelper(
+                                    DocDisplay docDisplay,
+                                    TextEditingTargetHeaderCache headerCache)
    {
       docDisplay_ = docDisplay;
+      headerCache_ = headerCache;
       RStudioGinjector.INSTANCE.injectMembers(this);
    }
    
@@ -143,7 +146,7 @@ public class TextEditingTargetCompilePdfHelper
       ArrayList<TexMagicComment> magicComments = null;
       if (fileType.canCompilePDF())
       {
-         magicComments = TexMagicComment.parseComments(docDisplay_.getCode());
+         magicComments = headerCache_.getTexMagicComments();
          String latexProgramDirective = 
                            detectLatexProgramDirective(magicComments);
            
@@ -260,7 +263,7 @@ public class TextEditingTargetCompilePdfHelper
    public FileSystemItem getTargetFile(FileSystemItem editorFile)
    {
       ArrayList<TexMagicComment> magicComments = 
-                  TexMagicComment.parseComments(docDisplay_.getCode());
+                  headerCache_.getTexMagicComments();
       String root = StringUtil.notNull(detectRootDirective(magicComments));
       if (root.length() > 0)
       {
@@ -296,7 +299,7 @@ public class TextEditingTargetCompilePdfHelper
 
       RnwWeave weave = null;
       ArrayList<TexMagicComment> magicComments = 
-            TexMagicComment.parseComments(docDisplay_.getCode());
+            headerCache_.getTexMagicComments();
       RnwWeaveDirective rnwWeaveDirective = detectRnwWeaveDirective(
                                                              magicComments);
       if (rnwWeaveDirective != null)
@@ -348,7 +351,7 @@ public class TextEditingTargetCompilePdfHelper
          return "knitr";
 
       RnwWeaveDirective rnwWeaveDirective = detectRnwWeaveDirective(
-                         TexMagicComment.parseComments(docDisplay_.getCode()));
+                         headerCache_.getTexMagicComments());
       if (rnwWeaveDirective != null)
       {
          RnwWeave rnwWeave = rnwWeaveDirective.getRnwWeave();
@@ -443,6 +446,7 @@ public class TextEditingTargetCompilePdfHelper
    }
    
    private final DocDisplay docDisplay_;
+   private final TextEditingTargetHeaderCache headerCache_;
    
    private UIPrefs prefs_;
    private Session session_;
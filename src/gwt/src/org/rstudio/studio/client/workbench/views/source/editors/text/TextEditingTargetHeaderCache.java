@@ -0,0 +1,125 @@
+/*
+ * TextEditingTargetHeaderCache.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.tex.TexMagicComment;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+
+// Caches facts about a document that are determined by its first lines, so
+// that they can be queried without copying and scanning the whole buffer.
+// Each fact records the last row it depends on, and is recomputed only when
+// an edit starts at or before that row.
+public class TextEditingTargetHeaderCache
+{
+   public TextEditingTargetHeaderCache(DocDisplay docDisplay)
+   {
+      docDisplay_ = docDisplay;
+      docDisplay_.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            Range range = event.getEvent().getRange();
+            onEdit(range.getStart().getRow(), range.getEnd().getRow());
+         }
+      });
+   }
+
+   // The TeX magic comments (e.g. % !TeX program = xelatex) at the top of
+   // the document. The returned list is shared and must not be modified.
+   public ArrayList<TexMagicComment> getTexMagicComments()
+   {
+      if (magicComments_ == null)
+      {
+         // the magic comments are the leading run of comment (or blank)
+         // lines; collect those and stop at the first line of content
+         StringBuilder header = new StringBuilder();
+         int rows = docDisplay_.getRowCount();
+         int row = 0;
+         for ( ; row < rows; row++)
+         {
+            String line = docDisplay_.getLine(row);
+            String trimmed = line.trim();
+            if (trimmed.length() > 0 && !trimmed.startsWith("%"))
+               break;
+            header.append(line).append('\n');
+         }
+         magicComments_ = TexMagicComment.parseComments(header.toString());
+         magicCommentsEndRow_ = row;
+      }
+      return magicComments_;
+   }
+
+   // Whether the document opts out of R Markdown v2 with the
+   // <!-- rmarkdown v1 --> marker. Unlike the other facts here the marker
+   // may appear anywhere; since it is rare, the document is scanned only
+   // when it is first queried or after a marker is edited, and otherwise
+   // only the edited rows are checked for a new marker.
+   public boolean hasRMarkdownV1Marker()
+   {
+      if (v1Marker_ == null)
+      {
+         v1Marker_ = Boolean.FALSE;
+         for (int row = 0, n = docDisplay_.getRowCount(); row < n; row++)
+         {
+            if (docDisplay_.getLine(row).contains(RMARKDOWN_V1_MARKER))
+            {
+               v1Marker_ = Boolean.TRUE;
+               break;
+            }
+         }
+      }
+      return v1Marker_.booleanValue();
+   }
+
+   private void onEdit(int startRow, int endRow)
+   {
+      if (magicComments_ != null && startRow <= magicCommentsEndRow_)
+         magicComments_ = null;
+
+      if (v1Marker_ == null)
+         return;
+
+      if (v1Marker_.booleanValue())
+      {
+         // the edit may have removed the marker
+         v1Marker_ = null;
+      }
+      else
+      {
+         // an edit can only introduce the marker on the rows it touched
+         int last = Math.min(endRow, docDisplay_.getRowCount() - 1);
+         for (int row = startRow; row <= last; row++)
+         {
+            if (docDisplay_.getLine(row).contains(RMARKDOWN_V1_MARKER))
+            {
+               v1Marker_ = Boolean.TRUE;
+               break;
+            }
+         }
+      }
+   }
+
+   public static final String RMARKDOWN_V1_MARKER = "<!-- rmarkdown v1 -->";
+
+   private final DocDisplay docDisplay_;
+
+   private ArrayList<TexMagicComment> magicComments_;
+   private int magicCommentsEndRow_;
+   private Boolean v1Marker_;
+}
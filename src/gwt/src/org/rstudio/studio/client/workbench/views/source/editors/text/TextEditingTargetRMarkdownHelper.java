@@ -129,7 +129,24 @@ public class TextEditingTargetRMarkdownHelper
    {
       if (extendedType.length() == 0 && 
           fileType.isMarkdown() &&
-          useRMarkdownV2(contents))
+          useRMarkdownV2(contents.contains(
+                TextEditingTargetHeaderCache.RMARKDOWN_V1_MARKER)))
+      {
+         return "rmarkdown";
+      }
+      else
+      {
+         return extendedType;
+      }
+   }
+   
+   public String detectExtendedType(TextEditingTargetHeaderCache header,
+                                    String extendedType,
+                                    TextFileType fileType)
+   {
+      if (extendedType.length() == 0 && 
+          fileType.isMarkdown() &&
+          useRMarkdownV2(header.hasRMarkdownV1Marker()))
       {
          return "rmarkdown";
       }
@@ -323,11 +340,11 @@ public class TextEditingTargetRMarkdownHelper
    
    
    public void prepareForRmdChunkExecution(String id, 
-                                        String contents,
+                                        TextEditingTargetHeaderCache header,
                                         final Command onExecuteChunk)
    {
       // if this is R Markdown v2 then look for params
-      if (useRMarkdownV2(contents))
+      if (useRMarkdownV2(header.hasRMarkdownV1Marker()))
       {
          server_.prepareForRmdChunkExecution(id, 
             new ServerRequestCallback<RmdExecutionState>() 
@@ -1025,9 +1042,9 @@ public class TextEditingTargetRMarkdownHelper
       frontMatterToYAML(frontMatter, null, onCompleted);
    }
    
-   private boolean useRMarkdownV2(String contents)
+   private boolean useRMarkdownV2(boolean rmarkdownV1)
    {
-      return !contents.contains("<!-- rmarkdown v1 -->") && 
+      return !rmarkdownV1 && 
               session_.getSessionInfo().getRMarkdownPackageAvailable();
    }
    
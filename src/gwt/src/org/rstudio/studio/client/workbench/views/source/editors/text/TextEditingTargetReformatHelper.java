@@ -43,14 +43,72 @@ public class TextEditingTargetReformatHelper
    private static final Pattern STARTS_WITH_NEWLINE =
          Pattern.create("^\\s*\\n", "");
    
+   // A flat, array-backed copy of the values and types of a tokenized
+   // selection. Reformatting only ever rewrites token values, so the
+   // values are held in a plain array and edited in place; the Ace token
+   // objects are read once, up front, and never touched again.
+   static class TokenBuffer
+   {
+      public TokenBuffer(ArrayList<Token> tokens)
+      {
+         int n = tokens.size();
+         values_ = new String[n];
+         types_ = new String[n];
+         for (int i = 0; i < n; i++)
+         {
+            Token token = tokens.get(i);
+            values_[i] = token.getValue();
+            types_[i] = token.getType();
+         }
+      }
+      
+      private TokenBuffer(String value, String type)
+      {
+         values_ = new String[] { value };
+         types_ = new String[] { type };
+      }
+      
+      public int size()
+      {
+         return values_.length;
+      }
+      
+      public String getValue(int index)
+      {
+         return values_[index];
+      }
+      
+      public void setValue(int index, String value)
+      {
+         values_[index] = value;
+      }
+      
+      public String getType(int index)
+      {
+         return types_[index];
+      }
+      
+      @Override
+      public String toString()
+      {
+         StringBuilder builder = new StringBuilder();
+         for (int i = 0; i < values_.length; i++)
+            builder.append(values_[i]);
+         return builder.toString();
+      }
+      
+      private final String[] values_;
+      private final String[] types_;
+   }
+   
    class SimpleTokenCursor {
       
-      public SimpleTokenCursor(ArrayList<Token> tokens)
+      public SimpleTokenCursor(TokenBuffer tokens)
       {
          this(tokens, 0, tokens.size());
       }
       
-      private SimpleTokenCursor(ArrayList<Token> tokens,
+      private SimpleTokenCursor(TokenBuffer tokens,
                           int offset,
                           int n)
       {
@@ -71,7 +129,7 @@ public class TextEditingTargetReformatHelper
          n_ = n;
       }
       
-      private SimpleTokenCursor(ArrayList<Token> tokens,
+      private SimpleTokenCursor(TokenBuffer tokens,
                           int offset,
                           int n,
                           HashMap<String, String> complements)
@@ -145,47 +203,47 @@ public class TextEditingTargetReformatHelper
          return true;
       }
       
-      public Token previousToken()
+      public SimpleTokenCursor previousToken()
       {
          SimpleTokenCursor clone = clone();
          if (!clone.moveToPreviousToken())
-            return Token.create();
-         return clone.currentToken();
+            return emptyCursor();
+         return clone;
       }
       
-      public Token previousSignificantToken()
+      public SimpleTokenCursor previousSignificantToken()
       {
          SimpleTokenCursor clone = clone();
          if (!clone.moveToPreviousToken())
-            return Token.create();
+            return emptyCursor();
          
          while (clone.isWhitespaceOrNewline())
             if (!clone.moveToPreviousToken())
-               return Token.create();
+               return emptyCursor();
          
-         return clone.currentToken();
+         return clone;
       }
       
-      public Token nextToken()
+      public SimpleTokenCursor nextToken()
       {
          SimpleTokenCursor clone = clone();
          if (!clone.moveToNextToken())
-            return Token.create();
+            return emptyCursor();
          
-         return clone.currentToken();
+         return clone;
       }
       
-      public Token nextSignificantToken()
+      public SimpleTokenCursor nextSignificantToken()
       {
          SimpleTokenCursor clone = clone();
          if (!clone.moveToNextToken())
-            return Token.create();
+            return emptyCursor();
          
          while (clone.isWhitespaceOrNewline())
             if (!clone.moveToNextToken())
-               return Token.create();
+               return emptyCursor();
          
-         return clone.currentToken();
+         return clone;
       }
       
       public SimpleTokenCursor peek(int offset)
@@ -193,9 +251,11 @@ public class TextEditingTargetReformatHelper
          int index = offset_ + offset;
          if (index < 0 || index >= n_)
          {
-            ArrayList<Token> dummyTokens = new ArrayList<Token>();
-            dummyTokens.add(Token.create("__ERROR__", "error", 0));
-            return new SimpleTokenCursor(dummyTokens, 0, 1, complements_);
+            return new SimpleTokenCursor(
+                  new TokenBuffer("__ERROR__", "error"),
+                  0,
+                  1,
+                  complements_);
          }
          
          SimpleTokenCursor clone = clone();
@@ -376,14 +436,20 @@ public class TextEditingTargetReformatHelper
             setValue(" " + getValue());
       }
       
-      public Token currentToken()
+      // a cursor over a single empty token, standing in for a token
+      // before the start or past the end of the buffer
+      private SimpleTokenCursor emptyCursor()
       {
-         return tokens_.get(offset_);
+         return new SimpleTokenCursor(
+               new TokenBuffer("", ""),
+               0,
+               1,
+               complements_);
       }
       
       public String currentValue()
       {
-         return currentToken().getValue();
+         return tokens_.getValue(offset_);
       }
       
       public String getComplement(String value)
@@ -398,7 +464,7 @@ public class TextEditingTargetReformatHelper
       
       public void setValue(String value)
       {
-         currentToken().setValue(value);
+         tokens_.setValue(offset_, value);
       }
       
       public String valueAtOffset(int offset)
@@ -407,12 +473,12 @@ public class TextEditingTargetReformatHelper
          if (index < 0 || index >= n_)
             return "";
          
-         return tokens_.get(index).getValue();
+         return tokens_.getValue(index);
       }
       
       public boolean hasType(String... targetTypes)
       {
-         String tokenType = tokens_.get(offset_).getType();
+         String tokenType = tokens_.getType(offset_);
          for (String targetType : targetTypes)
          {
             if (tokenType.equals(targetType) ||
@@ -427,15 +493,14 @@ public class TextEditingTargetReformatHelper
       
       public String currentType()
       {
-         return tokens_.get(offset_).getType();
+         return tokens_.getType(offset_);
       }
       
       // NOTE: see 'r_highlight_rules.js' for token type info
       public boolean isWhitespaceOrNewline()
       {
-         Token token = currentToken();
-         return token.getType().equals("text") &&
-                token.getValue().matches("^[\\s\\n]*$");
+         return tokens_.getType(offset_).equals("text") &&
+                tokens_.getValue(offset_).matches("^[\\s\\n]*$");
       }
       
       public void trimWhitespaceFwd()
@@ -462,28 +527,28 @@ public class TextEditingTargetReformatHelper
       
       public boolean isComment()
       {
-         return tokens_.get(offset_).getType().indexOf("comment") != -1;
+         return tokens_.getType(offset_).indexOf("comment") != -1;
       }
       
       public boolean hasNewline()
       {
-         return tokens_.get(offset_).getValue().indexOf('\n') != -1;
+         return tokens_.getValue(offset_).indexOf('\n') != -1;
       }
       
       public boolean isKeyword()
       {
-         return tokens_.get(offset_).getType().equals("keyword");
+         return tokens_.getType(offset_).equals("keyword");
       }
       
       public boolean isControlFlowKeyword()
       {
-         return tokens_.get(offset_).getValue().matches(
+         return tokens_.getValue(offset_).matches(
                "^\\s*(?:if|else|try|for|while|repeat|break|next|function)\\s*$");
       }
       
       public boolean isOperator()
       {
-         String type = tokens_.get(offset_).getType();
+         String type = tokens_.getType(offset_);
          return type.equals("keyword.operator") ||
                 type.equals("keyword.operator.infix");
       }
@@ -553,7 +618,7 @@ public class TextEditingTargetReformatHelper
          return offset_ == ((SimpleTokenCursor) object).offset_;
       }
       
-      private final ArrayList<Token> tokens_;
+      private final TokenBuffer tokens_;
       private int offset_;
       private int n_;
       private HashMap<String, String> complements_;
@@ -865,7 +930,7 @@ public class TextEditingTargetReformatHelper
                cursor.ensureNewlinePreceeds();
             }
             
-            if (!(cursor.previousToken().getType().contains("comment") ||
+            if (!(cursor.previousToken().currentType().contains("comment") ||
                   cursor.previousToken().getValue().matches(".*\\s+")))
             {
                cursor.ensureWhitespacePreceeds();
@@ -1087,12 +1152,14 @@ public class TextEditingTargetReformatHelper
       AceEditor editor = (AceEditor) docDisplay_;
       if (editor != null)
       {
-         String selectionText = docDisplay_.getSelectionValue();
+         Range selection = docDisplay_.getSelectionRange();
+         String selectionText = StringUtil.normalizeNewLines(
+               docDisplay_.getSelectionValue());
          
          // Tokenize the selection and walk through and replace
          // TODO: Enable for other modes?
          Tokenizer tokenizer = Tokenizer.createRTokenizer();
-         ArrayList<Token> tokens = tokenizer.tokenize(selectionText);
+         TokenBuffer tokens = new TokenBuffer(tokenizer.tokenize(selectionText));
          
          SimpleTokenCursor cursor = new SimpleTokenCursor(tokens);
          
@@ -1111,21 +1178,137 @@ public class TextEditingTargetReformatHelper
          doInsertPrettyNewlines(cursor, lhs, rhs, 0, 0, true);
          
          // Build the replacement from the modified token set
-         StringBuilder builder = new StringBuilder();
-         for (int i = 0; i < tokens.size(); i++)
-            builder.append(tokens.get(i).getValue());
-         String replacement = builder.toString();
+         String replacement = tokens.toString();
          
          // Trim off trailing whitespace
          replacement = replacement.replaceAll("[ \\t]*\\n", "\n");
          replacement = replacement.replaceAll("\\n+$", "\n");
          
-         docDisplay_.replaceSelection(replacement);
+         // Apply only the whitespace that changed, so that folds and
+         // anchors within the selection survive, and fall back to
+         // replacing the whole selection if anything else differs.
+         if (!replaceWhitespace(selection.getStart(), selectionText, replacement))
+            docDisplay_.replaceSelection(replacement);
+         else
+            docDisplay_.setSelectionRange(Range.fromPoints(
+                  selection.getStart(),
+                  endOf(selection.getStart(), replacement)));
+         
          docDisplay_.reindent(docDisplay_.getSelectionRange());
          
       }
    }
    
+   // Reformatting only adds, removes or changes whitespace, so the original
+   // and reformatted text agree once whitespace is ignored. Walk the two in
+   // step and replace each run of whitespace that differs. Returns false
+   // (having changed nothing) if the texts differ in anything else.
+   private boolean replaceWhitespace(Position start,
+                                     String original,
+                                     String replacement)
+   {
+      ArrayList<Integer> startOffsets = new ArrayList<Integer>();
+      ArrayList<Integer> endOffsets = new ArrayList<Integer>();
+      ArrayList<String> gaps = new ArrayList<String>();
+      
+      int i = 0, j = 0;
+      int m = original.length(), n = replacement.length();
+      while (true)
+      {
+         int gapStart = i;
+         while (i < m && isWhitespace(original.charAt(i)))
+            i++;
+         
+         int replacementGapStart = j;
+         while (j < n && isWhitespace(replacement.charAt(j)))
+            j++;
+         
+         String gap = replacement.substring(replacementGapStart, j);
+         if (!original.substring(gapStart, i).equals(gap))
+         {
+            startOffsets.add(gapStart);
+            endOffsets.add(i);
+            gaps.add(gap);
+         }
+         
+         if (i == m || j == n)
+            break;
+         
+         while (i < m && j < n &&
+                !isWhitespace(original.charAt(i)) &&
+                original.charAt(i) == replacement.charAt(j))
+         {
+            i++;
+            j++;
+         }
+         
+         if (i < m && j < n &&
+             !isWhitespace(original.charAt(i)) &&
+             !isWhitespace(replacement.charAt(j)))
+         {
+            return false;
+         }
+      }
+      
+      if (i != m || j != n)
+         return false;
+      
+      // Resolve the offsets (which increase, start and end alternating) to
+      // document positions in a single pass over the original text.
+      ArrayList<Position> positions = new ArrayList<Position>();
+      int row = start.getRow();
+      int column = start.getColumn();
+      int offset = 0;
+      for (int k = 0; k < 2 * gaps.size(); k++)
+      {
+         int target = k % 2 == 0 ?
+               startOffsets.get(k / 2) :
+               endOffsets.get(k / 2);
+         
+         for (; offset < target; offset++)
+         {
+            if (original.charAt(offset) == '\n')
+            {
+               row++;
+               column = 0;
+            }
+            else
+            {
+               column++;
+            }
+         }
+         positions.add(Position.create(row, column));
+      }
+      
+      // Replace from the end of the selection back, so that the positions
+      // of the earlier runs are unaffected by the later replacements.
+      for (int k = gaps.size() - 1; k >= 0; k--)
+      {
+         docDisplay_.replaceRange(
+               Range.fromPoints(positions.get(2 * k), positions.get(2 * k + 1)),
+               gaps.get(k));
+      }
+      
+      return true;
+   }
+   
+   private static boolean isWhitespace(char ch)
+   {
+      return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\f';
+   }
+   
+   // the document position of the end of text inserted at start
+   private static Position endOf(Position start, String text)
+   {
+      int lastNewline = text.lastIndexOf('\n');
+      if (lastNewline == -1)
+         return Position.create(start.getRow(), start.getColumn() + text.length());
+      
+      return Position.create(
+            start.getRow() + StringUtil.countMatches(text, '\n'),
+            text.length() - lastNewline - 1);
+   }
+   
    void alignAssignment()
    {
       InputEditorSelection initialSelection =
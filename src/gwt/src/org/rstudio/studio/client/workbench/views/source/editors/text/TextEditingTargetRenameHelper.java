@@ -8,9 +8,7 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.TokenCursor;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.Stack;
 
 public class TextEditingTargetRenameHelper
@@ -19,7 +17,7 @@ public class TextEditingTargetRenameHelper
    {
       editor_ = (AceEditor) docDisplay;
       state_ = new Stack<Integer>();
-      protectedNamesList_ = new ArrayList<Set<String>>();
+      index_ = new IdentifierOccurrenceIndex(editor_);
       ranges_ = new ArrayList<Range>();
    }
    
@@ -232,142 +230,18 @@ public class TextEditingTargetRenameHelper
                                       String targetValue,
                                       String targetType)
    {
-      Position endPos = scope.getEnd();
-      
-      if (endPos == null)
-         endPos = Position.create(editor_.getSession().getLength(), 0);
-      
-      TokenCursor cursor = editor_.getSession().getMode().getCodeModel().getTokenCursor();
-      cursor.moveToPosition(startPos, true);
-      
-      // Workaround 'moveToPosition' not handling forward searches (yet)
-      if (cursor.getRow() < startPos.getRow())
-         if (!cursor.moveToNextToken())
-            return 0;
-      
       // NOTE: The token associated with the current cursor position
       // is added last, to ensure that after the 'multi-select' session has
       // ended the cursor remains where it started.
       Position cursorPos = editor_.getCursorPosition();
       
-      do
-      {
-         // Left brackets push on the stack.
-         if (cursor.isLeftBracket())
-         {
-            // Update state.
-            if (cursor.valueEquals("("))
-            {
-               if (cursor.peekBwd(1).valueEquals("function"))
-                  pushState(STATE_FUNCTION_DEFINITION);
-               else
-                  pushState(STATE_FUNCTION_CALL);
-            }
-            else
-            {
-               pushState(STATE_DEFAULT);
-            }
-            
-            // Update protected names for braces.
-            if (cursor.valueEquals("{"))
-               pushProtectedNames(cursor.currentPosition(), scope);
-            
-            continue;
-         }
-         
-         // Right brackets pop the stack.
-         if (cursor.isRightBracket())
-         {
-            popState();
-            if (cursor.valueEquals("}"))
-               popProtectedNames(cursor.currentPosition());
-            
-            continue;
-         }
-         
-         // Protect a name if it's the target of an assignment in a child scope.
-         if (cursor.hasType("identifier") &&
-             cursor.peekFwd(1).isLeftAssign() &&
-             !cursor.peekBwd(1).isExtractionOperator())
-         {
-            Scope candidate = editor_.getScopeAtPosition(cursor.currentPosition());
-            
-            // Skip default arguments for nested functions
-            if (peekState() == STATE_FUNCTION_DEFINITION && scope != candidate)
-               continue;
-            
-            if (cursor.peekFwd(2).valueEquals("function") && !candidate.isTopLevel())
-               candidate = candidate.getParentScope();
-            
-            if (candidate != scope)
-            {
-               addProtectedName(cursor.currentValue());
-               continue;
-            }
-         }
-         
-         // Bail if we've reached the end of the scope.
-         if (cursor.currentPosition().isAfterOrEqualTo(endPos))
-            break;
-         
-         if (cursor.currentValue().equals(targetValue))
-         {
-            // Skip 'protected' names. These are names that have been overwritten
-            // either as assignments, or exist as names to newly defined functions.
-            if (isProtectedName(cursor.currentValue()))
-               continue;
-            
-            // Skip variables following an 'extraction' operator.
-            if (cursor.peekBwd(1).isExtractionOperator())
-               continue;
-            
-            // Skip default arguments for nested functions
-            Scope candidate = editor_.getScopeAtPosition(cursor.currentPosition());
-            if (peekState() == STATE_FUNCTION_DEFINITION && scope != candidate)
-               continue;
-            
-            // Don't rename the argument names for named function calls.
-            // For example, if we're refactoring a variable named 'bar', we
-            // only want to refactor the underlined pieces:
-            //
-            //    bar <- bar + 1; foo(bar = bar)
-            //    ~~~    ~~~                ~~~
-            if (peekState() == STATE_FUNCTION_CALL && cursor.nextValue().equals("="))
-               continue;
-            
-            // Don't rename argument names in function definitions.
-            // For example, if we're refactoring a variable named 'bar', we
-            // only want to refactor the underlined pieces:
-            //
-            //    bar <- bar + 1; foo <- function(bar) { ... }
-            //    ~~~    ~~~        
-            //
-            // This is tricky because we only want to perform this skip for nested
-            // functions; parent function definitions should be fine.
-            // E.g.
-            //
-            //    foo <- function(bar) { bar <- bar + 1 }
-            //                    ~~~    ~~~    ~~~
-            if (peekState() == STATE_FUNCTION_DEFINITION &&
-                editor_.getScopeAtPosition(cursor.currentPosition()) != scope)
-            {
-               String prevValue = cursor.peekBwd(1).getValue();
-               if (prevValue.equals("(") ||
-                   prevValue.equals(",") ||
-                   prevValue.equals("="))
-               {
-                  continue;
-               }
-            }
-            
-            Range tokenRange = getTokenRange(cursor);
-            if (!tokenRange.contains(cursorPos))
-               ranges_.add(tokenRange);
-         }
-      } while (cursor.moveToNextToken());
+      for (Range range : index_.getOccurrences(scope, startPos, targetValue))
+         if (!range.contains(cursorPos))
+            ranges_.add(range);
       
       // Add the initial range last (ensuring that the cursor is placed here
       // after exiting 'multi-select' mode)
+      TokenCursor cursor = editor_.getSession().getMode().getCodeModel().getTokenCursor();
       if (cursor.moveToPosition(cursorPos, true))
          ranges_.add(getTokenRange(cursor));
 
@@ -392,8 +266,6 @@ public class TextEditingTargetRenameHelper
    {
       ranges_.clear();
       state_.clear();
-      protectedNamesList_.clear();
-      protectedNamesList_.add(new HashSet<String>());
    }
    
    private int peekState()
@@ -423,48 +295,13 @@ public class TextEditingTargetRenameHelper
       return Range.fromPoints(startPos, endPos);
    }
    
-   private boolean isProtectedName(String name)
-   {
-      for (int i = 0; i < protectedNamesList_.size(); i++)
-         if (protectedNamesList_.get(i).contains(name))
-            return true;
-      
-      return false;
-   }
-   
-   private void addProtectedName(String name)
-   {
-      protectedNamesList_.get(protectedNamesList_.size() - 1).add(name);
-   }
-   
-   private void pushProtectedNames(Position position, Scope parentScope)
-   {
-      protectedNamesList_.add(new HashSet<String>());
-      Scope scope = editor_.getScopeAtPosition(position);
-      if (scope.isFunction() && scope != parentScope)
-      {
-         JsArrayString argNames = ((ScopeFunction) scope).getFunctionArgs();
-         for (int i = 0; i < argNames.length(); i++)
-            addProtectedName(argNames.get(i));
-      }
-   }
-   
-   private void popProtectedNames(Position position)
-   {
-      if (protectedNamesList_.size() <= 1)
-         return;
-      
-      protectedNamesList_.remove(protectedNamesList_.size() - 1);
-   }
-   
    private final AceEditor editor_;
    private final List<Range> ranges_;
    private final Stack<Integer> state_;
-   private final List<Set<String>> protectedNamesList_;
+   private final IdentifierOccurrenceIndex index_;
    
    private static final int STATE_TOP_LEVEL = 1;
    private static final int STATE_DEFAULT = 2;
    private static final int STATE_FUNCTION_CALL = 3;
-   private static final int STATE_FUNCTION_DEFINITION = 4;
 
 }
@@ -16,7 +16,6 @@
 package org.rstudio.studio.client.workbench.views.source.editors.text;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 
 import org.rstudio.core.client.CsvReader;
 import org.rstudio.core.client.CsvWriter;
@@ -24,6 +23,7 @@ import org.rstudio.core.client.ResultCallback;
 import org.rstudio.core.client.widget.NullProgressIndicator;
 import org.rstudio.studio.client.common.spelling.SpellChecker;
 import org.rstudio.studio.client.server.Void;
+import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.BackgroundSpellChecker;
 import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.CheckSpelling;
 import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.InitialProgressDialog;
 import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.SpellingDialog;
@@ -39,7 +39,8 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
       docDisplay_ = docDisplay;
       docUpdateSentinel_ = docUpdateSentinel;
       spellChecker_ = new SpellChecker(this);
-      
+      backgroundChecker_ = new BackgroundSpellChecker(docDisplay_, 
+                                                      spellChecker_);
    }
    
    public void checkSpelling()
@@ -75,31 +76,23 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
    @Override
    public void invalidateAllWords()
    {
-      
+      backgroundChecker_.invalidateAllWords();
    }
 
    @Override
    public void invalidateMisspelledWords()
    {
-      
+      backgroundChecker_.invalidateMisspelledWords();
    }  
    
    @Override
    public ArrayList<String> readDictionary()
    {
-      ArrayList<String> ignoredWords = new ArrayList<String>();
-      String ignored = docUpdateSentinel_.getProperty(IGNORED_WORDS);
-      if (ignored != null)
-      {
-         Iterator<String[]> iterator = new CsvReader(ignored).iterator();
-         if (iterator.hasNext())
-         {
-            String[] words = iterator.next();
-            for (String word : words)
-               ignoredWords.add(word);
-         }
-      }
-      return ignoredWords;
+      // the cached list is shared, so hand out a copy the caller can modify
+      ArrayList<String> ignored = docUpdateSentinel_.getParsedProperty(
+                                             IGNORED_WORDS, IGNORED_PARSER);
+      return ignored == null ? new ArrayList<String>() :
+                               new ArrayList<String>(ignored);
    }
 
    @Override
@@ -116,6 +109,8 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
    
    void onDismiss()
    {
+      backgroundChecker_.detach();
+      
       while (releaseOnDismiss_.size() > 0)
          releaseOnDismiss_.remove(0).removeHandler();
    }
@@ -131,9 +126,29 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
 
    private final static String IGNORED_WORDS = "ignored_words"; 
    
+   // parses the ignored words (stored as a single csv row)
+   private final static DocUpdateSentinel.PropertyParser<ArrayList<String>> 
+      IGNORED_PARSER = new DocUpdateSentinel.PropertyParser<ArrayList<String>>()
+   {
+      @Override
+      public ArrayList<String> parse(String value)
+      {
+         CsvReader.Fields fields = new CsvReader.Fields();
+         ArrayList<String> words = new ArrayList<String>();
+         if (value.length() > 0)
+         {
+            new CsvReader(value).readRow(0, fields);
+            for (int i = 0, n = fields.size(); i < n; i++)
+               words.add(fields.get(i));
+         }
+         return words;
+      }
+   };
+   
    private final DocDisplay docDisplay_;
    private final DocUpdateSentinel docUpdateSentinel_;
    private final SpellChecker spellChecker_;
+   private final BackgroundSpellChecker backgroundChecker_;
  
    private ArrayList<HandlerRegistration> releaseOnDismiss_ = 
                                     new ArrayList<HandlerRegistration>();
@@ -24,16 +24,32 @@ public class ScopeTreeReadyEvent extends GwtEvent<ScopeTreeReadyEvent.Handler>
 {
    public ScopeTreeReadyEvent(JsArray<Scope> scopeTree,
                               Scope currentScope)
+   {
+      this(scopeTree, currentScope, 0, Integer.MAX_VALUE);
+   }
+   
+   // the rows in [changedStartRow, changedEndRow) have been re-tokenized 
+   // since the previous event
+   public ScopeTreeReadyEvent(JsArray<Scope> scopeTree,
+                              Scope currentScope,
+                              int changedStartRow,
+                              int changedEndRow)
    {
       scopeTree_ = scopeTree;
       currentScope_ = currentScope;
+      changedStartRow_ = changedStartRow;
+      changedEndRow_ = changedEndRow;
    }
    
    public JsArray<Scope> getScopeTree() { return scopeTree_; }
    public Scope getCurrentScope() { return currentScope_; }
+   public int getChangedStartRow() { return changedStartRow_; }
+   public int getChangedEndRow() { return changedEndRow_; }
    
    private final JsArray<Scope> scopeTree_;
    private final Scope currentScope_;
+   private final int changedStartRow_;
+   private final int changedEndRow_;
    
    // Boilerplate ----
    
@@ -47,8 +47,11 @@ public class ChunkDefinition extends JavaScriptObject
    
    public final ChunkDefinition with(int row, String chunkLabel)
    {
-      return ChunkDefinition.create(row, getRowCount(), getVisible(), 
-            getExpansionState(), getOptions(), getChunkId(), chunkLabel);
+      ChunkDefinition def = ChunkDefinition.create(row, getRowCount(), 
+            getVisible(), getExpansionState(), getOptions(), getChunkId(), 
+            chunkLabel);
+      def.setOutputHeight(getOutputHeight());
+      return def;
    }
    
    public native final int getRow()  /*-{
@@ -95,6 +98,18 @@ public class ChunkDefinition extends JavaScriptObject
       this.row = row;
    }-*/;
    
+   // the last rendered height of the chunk's output, in pixels (0 if
+   // unknown); used to reserve space for output which has not been loaded.
+   // note that this is deliberately not part of equalTo, so that changes
+   // in output height alone don't cause the chunk definitions to be synced
+   public native final int getOutputHeight() /*-{
+      return this.output_height || 0;
+   }-*/;
+   
+   public native final void setOutputHeight(int height) /*-{
+      this.output_height = height;
+   }-*/;
+   
    public final boolean equalTo(ChunkDefinition other)
    {
       return getRow() == other.getRow() &&
@@ -14,10 +14,14 @@
  */
 package org.rstudio.studio.client.workbench.views.source.editors.text.rmd;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.rstudio.core.client.Rectangle;
 import org.rstudio.core.client.theme.res.ThemeStyles;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.rmarkdown.model.RmdChunkOptions;
+import org.rstudio.studio.client.rmarkdown.model.RmdChunkOutput;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ChunkOutputWidget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.PinnedLineWidget;
@@ -144,6 +148,43 @@ public class ChunkOutputUi
       lineWidget_.getLineWidget().getElement().removeFromParent();
    }
    
+   // returns true if the chunk's output is within the given number of rows
+   // of the viewport
+   public boolean isNearViewport(int marginRows)
+   {
+      int row = getCurrentRow();
+      return row >= display_.getFirstVisibleRow() - marginRows &&
+             row <= display_.getLastVisibleRow() + marginRows;
+   }
+   
+   // holds output (replayed from the cache) until the chunk comes near the
+   // viewport; in the meantime the space last occupied by the output is 
+   // reserved, so that the document doesn't shift as output is loaded
+   public void deferOutput(RmdChunkOutput output)
+   {
+      if (deferredOutput_ == null)
+      {
+         deferredOutput_ = new ArrayList<RmdChunkOutput>();
+         showPlaceholder();
+      }
+      deferredOutput_.add(output);
+   }
+   
+   public boolean hasDeferredOutput()
+   {
+      return deferredOutput_ != null;
+   }
+   
+   // returns (and forgets) any deferred output, in the order received
+   public List<RmdChunkOutput> takeDeferredOutput()
+   {
+      List<RmdChunkOutput> output = deferredOutput_;
+      deferredOutput_ = null;
+      if (output == null)
+         output = new ArrayList<RmdChunkOutput>();
+      return output;
+   }
+   
    public boolean moving()
    {
       return lineWidget_.moving();
@@ -207,6 +248,7 @@ public class ChunkOutputUi
                  Math.min(outputHeight, MAX_CHUNK_HEIGHT));
       outputWidget_.getElement().getStyle().setHeight(height, Unit.PX);
       display_.onLineWidgetChanged(lineWidget_.getLineWidget());
+      def_.setOutputHeight(height);
       
       // if we need to ensure that this output is visible, wait for the event
       // loop to finish (so Ace gets a chance to adjust the line widgets and
@@ -240,6 +282,17 @@ public class ChunkOutputUi
    }
 
    // Private methods ---------------------------------------------------------
+   
+   private void showPlaceholder()
+   {
+      int height = def_.getOutputHeight();
+      if (height <= 0 || outputWidget_.isVisible())
+         return;
+      
+      outputWidget_.getElement().getStyle().setHeight(height, Unit.PX);
+      outputWidget_.setVisible(true);
+      display_.onLineWidgetChanged(lineWidget_.getLineWidget());
+   }
 
    private final PinnedLineWidget lineWidget_;
    private final ChunkOutputWidget outputWidget_;
@@ -250,6 +303,7 @@ public class ChunkOutputUi
 
    private boolean attached_ = false;
    private HandlerRegistration renderHandlerReg_ = null;
+   private List<RmdChunkOutput> deferredOutput_ = null;
 
    public final static int MIN_CHUNK_HEIGHT = 25;
    public final static int CHUNK_COLLAPSED_HEIGHT = 15;
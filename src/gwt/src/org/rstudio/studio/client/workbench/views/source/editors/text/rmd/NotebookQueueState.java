@@ -39,7 +39,6 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.ChunkOutput
 import org.rstudio.studio.client.workbench.views.source.editors.text.ChunkRowExecState;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.Scope;
-import org.rstudio.studio.client.workbench.views.source.editors.text.ScopeList;
 import org.rstudio.studio.client.workbench.views.source.editors.text.TextEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.TextEditingTargetScopeHelper;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.LineWidget;
@@ -513,8 +512,7 @@ public class NotebookQueueState implements NotebookRangeExecutedEvent.Handler,
             newId = "c" + StringUtil.makeRandomId(12);
          chunkDef = ChunkDefinition.create(row, 1, true, 
                ChunkOutputWidget.EXPANDED, RmdChunkOptions.create(), newId,
-               TextEditingTargetNotebook.getKnitrChunkLabel(row, docDisplay_, 
-                                  new ScopeList(docDisplay_)));
+               TextEditingTargetNotebook.getKnitrChunkLabel(row, docDisplay_));
          
          if (newId == TextEditingTargetNotebook.SETUP_CHUNK_ID)
             chunkDef.getOptions().setInclude(false);
@@ -23,6 +23,7 @@ import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.JsArrayUtil;
 import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.TaskScheduler;
 import org.rstudio.core.client.command.AppCommand;
 import org.rstudio.core.client.layout.FadeOutAnimation;
 import org.rstudio.core.client.widget.Operation;
@@ -61,8 +62,7 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.ChunkRowExe
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.PinnedLineWidget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.Scope;
-import org.rstudio.studio.client.workbench.views.source.editors.text.ScopeList;
-import org.rstudio.studio.client.workbench.views.source.editors.text.ScopeList.ScopePredicate;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ScopeIndex;
 import org.rstudio.studio.client.workbench.views.source.editors.text.TextEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.TextEditingTargetChunks;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.LineWidget;
@@ -689,6 +689,22 @@ public class TextEditingTargetNotebook
       // show output in matching chunk
       if (outputs_.containsKey(chunkId))
       {
+         ChunkOutputUi output = outputs_.get(chunkId);
+         
+         // output replayed from the cache is only rendered once the chunk 
+         // nears the viewport (see materializeOutput_)
+         if (event.getOutput().isReplay() && 
+             !SETUP_CHUNK_ID.equals(chunkId) &&
+             (output.hasDeferredOutput() || 
+              !output.isNearViewport(LOAD_OUTPUT_MARGIN_ROWS)))
+         {
+            output.deferOutput(event.getOutput());
+            return;
+         }
+         
+         // any output still deferred precedes this output
+         showDeferredOutput(output);
+         
          // by default, ensure chunks are visible if we aren't replaying them
          // from the cache
          boolean ensureVisible = !event.getOutput().isReplay();
@@ -698,8 +714,7 @@ public class TextEditingTargetNotebook
          if (ensureVisible && mode == NotebookQueueUnit.EXEC_MODE_BATCH)
             ensureVisible = false;
          
-         outputs_.get(chunkId).getOutputWidget()
-                              .showChunkOutput(event.getOutput(), mode,
+         output.getOutputWidget().showChunkOutput(event.getOutput(), mode,
                                   NotebookQueueUnit.EXEC_SCOPE_PARTIAL,
                                   !queue_.isChunkExecuting(chunkId),
                                   ensureVisible);
@@ -806,8 +821,7 @@ public class TextEditingTargetNotebook
             createChunkOutput(ChunkDefinition.create(event.getRow(), 
                   1, true, ChunkOutputWidget.EXPANDED, RmdChunkOptions.create(),
                   event.getChunkId(), 
-                  getKnitrChunkLabel(event.getRow(), docDisplay_, 
-                        new ScopeList(docDisplay_))));
+                  getKnitrChunkLabel(event.getRow(), docDisplay_)));
             break;
          case ChunkChangeEvent.CHANGE_REMOVE:
             removeChunk(event.getChunkId());
@@ -891,7 +905,13 @@ public class TextEditingTargetNotebook
       {
          // on ordinary render, we need to sync any chunk line widgets that have
          // just been laid out; debounce this
-         syncHeightTimer_.schedule(250);
+         String id = docUpdateSentinel_.getId();
+         TaskScheduler.get().schedule("notebook-sync-height:" + id,
+               TaskScheduler.PRIORITY_VISIBLE, 250, syncHeight_);
+         
+         // load (or unload) chunk output as the viewport moves
+         TaskScheduler.get().schedule("notebook-materialize-output:" + id,
+               TaskScheduler.PRIORITY_VISIBLE, 100, materializeOutput_);
       }
    }
 
@@ -1054,11 +1074,11 @@ public class TextEditingTargetNotebook
       }
    }
 
-   public static String getKnitrChunkLabel(int row, DocDisplay display, 
-         ScopeList scopes)
+   public static String getKnitrChunkLabel(int row, DocDisplay display)
    {
       // find the chunk at this row
-      Scope chunk = display.getCurrentChunk(Position.create(row, 0));
+      ScopeIndex index = display.getScopeIndex();
+      Scope chunk = index.getChunkAtRow(row);
       if (chunk == null)
          return "";
       
@@ -1069,24 +1089,29 @@ public class TextEditingTargetNotebook
       
       // label the first unlabeled chunk as unlabeled-chunk-1, the next as
       // unlabeled-chunk-2, etc.
-      int pos = 1;
-      for (Scope curScope: scopes)
-      {
-         if (!curScope.isChunk())
-            continue;
-         if (curScope.getPreamble().getRow() == 
-             chunk.getPreamble().getRow())
-            break;
-         if (StringUtil.isNullOrEmpty(curScope.getChunkLabel()))
-            pos++;
-      }
-      
-      return "unnamed-chunk-" + pos;
+      return "unnamed-chunk-" + index.getUnnamedChunkOrdinal(chunk);
    }
 
    public String getRowChunkId(int preambleRow)
    {
-      // find the chunk corresponding to the row
+      // find the chunk corresponding to the row; its output (if any) is
+      // normally attached to the chunk's last row
+      Scope chunk = docDisplay_.getScopeIndex().getChunkForPreambleRow(
+                                                                preambleRow);
+      if (chunk != null && chunk.getEnd() != null)
+      {
+         LineWidget widget = docDisplay_.getLineWidgetForRow(
+                                                   chunk.getEnd().getRow());
+         if (widget != null && 
+             widget.getType() == ChunkDefinition.LINE_WIDGET_TYPE)
+         {
+            ChunkDefinition def = widget.getData();
+            if (outputs_.containsKey(def.getChunkId()))
+               return def.getChunkId();
+         }
+      }
+      
+      // otherwise look for output attached elsewhere within the chunk
       for (ChunkOutputUi output: outputs_.values())
       {
          if (output.getScope().getPreamble().getRow() == preambleRow)
@@ -1119,15 +1144,12 @@ public class TextEditingTargetNotebook
    
    public Scope getSetupChunkScope()
    {
-      ScopeList scopes = new ScopeList(docDisplay_);
-      return scopes.findFirst(new ScopePredicate()
+      for (Scope chunk: docDisplay_.getScopeIndex().getChunks())
       {
-         @Override
-         public boolean test(Scope scope)
-         {
-            return isSetupChunkScope(scope);
-         }
-      });
+         if (isSetupChunkScope(chunk))
+            return chunk;
+      }
+      return null;
    }
    
    public void setChunkExecuting(String chunkId, int mode)
@@ -1136,6 +1158,7 @@ public class TextEditingTargetNotebook
       if (outputs_.containsKey(chunkId))
       {
          ChunkOutputUi output = outputs_.get(chunkId);
+         showDeferredOutput(output);
 
          // expand the chunk if it's in a fold
          Scope scope = output.getScope();
@@ -1434,6 +1457,22 @@ public class TextEditingTargetNotebook
       }
    }
    
+   private void showDeferredOutput(ChunkOutputUi output)
+   {
+      if (!output.hasDeferredOutput())
+         return;
+      
+      String chunkId = output.getChunkId();
+      for (RmdChunkOutput deferred: output.takeDeferredOutput())
+      {
+         output.getOutputWidget().showChunkOutput(deferred, 
+               queue_.getChunkExecMode(chunkId),
+               NotebookQueueUnit.EXEC_SCOPE_PARTIAL,
+               !queue_.isChunkExecuting(chunkId),
+               false);
+      }
+   }
+   
    private void createChunkOutput(ChunkDefinition def)
    {
       outputs_.put(def.getChunkId(), 
@@ -1534,6 +1573,27 @@ public class TextEditingTargetNotebook
       }
    };
    
+   private final Command materializeOutput_ = new Command()
+   {
+      @Override
+      public void execute()
+      {
+         for (ChunkOutputUi output: outputs_.values())
+         {
+            if (output.hasDeferredOutput() &&
+                output.isNearViewport(LOAD_OUTPUT_MARGIN_ROWS))
+            {
+               showDeferredOutput(output);
+            }
+            
+            // html outputs (e.g. htmlwidgets) hold an entire document each,
+            // so release them once they're well out of view
+            output.getOutputWidget().setHtmlOutputLoaded(
+                  output.isNearViewport(UNLOAD_OUTPUT_MARGIN_ROWS));
+         }
+      }
+   };
+   
    private Timer resizePlotsLocal_ = new Timer()
    {
       @Override
@@ -1657,10 +1717,10 @@ public class TextEditingTargetNotebook
       }
    }
    
-   private final Timer syncHeightTimer_ = new Timer()
+   private final Command syncHeight_ = new Command()
    {
       @Override
-      public void run()
+      public void execute()
       {
          // compute top/bottom of the doc (we'll sync widgets that lie in this
          // range)
@@ -1746,6 +1806,11 @@ public class TextEditingTargetNotebook
    // chunk state synchronized
    private final static int STATE_INITIALIZED = 1;
    
+   // distance (in rows) from the viewport within which cached output is
+   // rendered, and beyond which html output is unloaded
+   private final static int LOAD_OUTPUT_MARGIN_ROWS = 100;
+   private final static int UNLOAD_OUTPUT_MARGIN_ROWS = 400;
+   
    private final static String LAST_SETUP_CRC32 = "last_setup_crc32";
    public final static String SETUP_CHUNK_ID = "csetup_chunk";
    
@@ -0,0 +1,526 @@
+/*
+ * BackgroundSpellChecker.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.spelling;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.Debug;
+import org.rstudio.studio.client.RStudioGinjector;
+import org.rstudio.studio.client.common.filetypes.TextFileType;
+import org.rstudio.studio.client.common.spelling.SpellChecker;
+import org.rstudio.studio.client.common.spelling.model.SpellCheckerResult;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
+import org.rstudio.studio.client.workbench.views.output.lint.LintResources;
+import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AnchoredRange;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.RenderFinishedEvent;
+
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Timer;
+import com.google.inject.Inject;
+
+// Checks spelling as the user types / scrolls. Rather than scanning the whole
+// document, each pass only tokenizes rows within (or near) the viewport that
+// have not yet been checked, along with rows edited since the previous pass.
+// Results are kept per row, so that scrolling back over previously checked
+// rows and editing elsewhere in the document do not trigger re-checks.
+public class BackgroundSpellChecker
+{
+   public BackgroundSpellChecker(DocDisplay docDisplay,
+                                 SpellChecker spellChecker)
+   {
+      RStudioGinjector.INSTANCE.injectMembers(this);
+
+      docDisplay_ = docDisplay;
+      spellChecker_ = spellChecker;
+
+      timer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            checkPendingRows();
+         }
+      };
+
+      handlers_.add(docDisplay_.addDocumentChangedHandler(
+            new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            if (enabled_)
+               updateRows(event.getEvent());
+         }
+      }));
+
+      handlers_.add(docDisplay_.addRenderFinishedHandler(
+            new RenderFinishedEvent.Handler()
+      {
+         @Override
+         public void onRenderFinished(RenderFinishedEvent event)
+         {
+            if (!enabled_)
+               return;
+
+            // only schedule a pass if the viewport has moved
+            int first = docDisplay_.getFirstVisibleRow();
+            int last = docDisplay_.getLastVisibleRow();
+            if (first != lastFirstVisibleRow_ || last != lastLastVisibleRow_)
+            {
+               lastFirstVisibleRow_ = first;
+               lastLastVisibleRow_ = last;
+               schedule();
+            }
+         }
+      }));
+
+      handlers_.add(prefs_.realTimeSpellChecking().bind(
+            new CommandWithArg<Boolean>()
+      {
+         @Override
+         public void execute(Boolean enabled)
+         {
+            setEnabled(enabled);
+         }
+      }));
+   }
+
+   @Inject
+   void initialize(UIPrefs prefs)
+   {
+      prefs_ = prefs;
+   }
+
+   // Discard all results (e.g. because the dictionary has changed).
+   public void invalidateAllWords()
+   {
+      if (!enabled_)
+         return;
+
+      for (int i = 0, n = rows_.size(); i < n; i++)
+         clearRow(i);
+      markDirty(0, rows_.size() - 1);
+      schedule();
+   }
+
+   // Discard results only for rows with misspelled words (e.g. because
+   // a word has been added to the user or document dictionary).
+   public void invalidateMisspelledWords()
+   {
+      if (!enabled_)
+         return;
+
+      for (int i = 0, n = rows_.size(); i < n; i++)
+      {
+         RowState state = rows_.get(i);
+         if (state != null && !state.markers.isEmpty())
+         {
+            clearRow(i);
+            markDirty(i, i);
+         }
+      }
+      schedule();
+   }
+
+   public void detach()
+   {
+      setEnabled(false);
+      for (HandlerRegistration handler : handlers_)
+         handler.removeHandler();
+      handlers_.clear();
+   }
+
+   private void setEnabled(boolean enabled)
+   {
+      if (enabled == enabled_)
+         return;
+
+      enabled_ = enabled;
+      reset();
+      if (enabled_)
+         schedule();
+   }
+
+   private void reset()
+   {
+      timer_.cancel();
+
+      for (int i = 0, n = rows_.size(); i < n; i++)
+         clearRow(i);
+      rows_.clear();
+
+      if (enabled_)
+      {
+         for (int i = 0, n = docDisplay_.getRowCount(); i < n; i++)
+            rows_.add(null);
+      }
+
+      dirtyStart_ = -1;
+      dirtyEnd_ = -1;
+      lastFirstVisibleRow_ = -1;
+      lastLastVisibleRow_ = -1;
+   }
+
+   private void schedule()
+   {
+      timer_.schedule(DELAY_MS);
+   }
+
+   private void updateRows(AceDocumentChangeEventNative event)
+   {
+      String action = event.getAction();
+      Range range = event.getRange();
+      int startRow = range.getStart().getRow();
+      int endRow = range.getEnd().getRow();
+      int delta = endRow - startRow;
+
+      // the row containing the start of the edit always needs re-checking
+      if (startRow < rows_.size())
+         clearRow(startRow);
+
+      if (delta > 0)
+      {
+         if (action.equals("insertText") || action.equals("insertLines"))
+         {
+            ArrayList<RowState> inserted = new ArrayList<RowState>(delta);
+            for (int i = 0; i < delta; i++)
+               inserted.add(null);
+            rows_.addAll(Math.min(startRow + 1, rows_.size()), inserted);
+
+            shiftDirtyRange(startRow, delta);
+            markDirty(startRow, endRow);
+         }
+         else
+         {
+            int end = Math.min(endRow, rows_.size() - 1);
+            for (int i = startRow + 1; i <= end; i++)
+               clearRow(i);
+            if (startRow + 1 <= end)
+               rows_.subList(startRow + 1, end + 1).clear();
+
+            shiftDirtyRange(startRow, -delta);
+            markDirty(startRow, startRow);
+         }
+
+         // rows below the edit have moved; their markers are anchored
+         // and so move with the text, but the recorded rows must follow
+         for (int i = startRow + 1, n = rows_.size(); i < n; i++)
+         {
+            RowState state = rows_.get(i);
+            if (state != null)
+               state.row = i;
+         }
+      }
+      else
+      {
+         markDirty(startRow, startRow);
+      }
+
+      schedule();
+   }
+
+   private void markDirty(int start, int end)
+   {
+      if (dirtyStart_ == -1)
+      {
+         dirtyStart_ = start;
+         dirtyEnd_ = end;
+      }
+      else
+      {
+         dirtyStart_ = Math.min(dirtyStart_, start);
+         dirtyEnd_ = Math.max(dirtyEnd_, end);
+      }
+   }
+
+   private void shiftDirtyRange(int row, int delta)
+   {
+      if (dirtyStart_ == -1)
+         return;
+
+      if (dirtyStart_ > row)
+         dirtyStart_ = Math.max(row, dirtyStart_ + delta);
+      if (dirtyEnd_ > row)
+         dirtyEnd_ = Math.max(row, dirtyEnd_ + delta);
+   }
+
+   private void clearRow(int row)
+   {
+      RowState state = rows_.get(row);
+      if (state == null)
+         return;
+
+      state.invalidated = true;
+      for (int i = 0, n = state.markers.size(); i < n; i++)
+      {
+         state.markerRanges.get(i).detach();
+         docDisplay_.removeMarker(state.markers.get(i));
+      }
+      state.markers.clear();
+      state.markerRanges.clear();
+
+      rows_.set(row, null);
+   }
+
+   private void checkPendingRows()
+   {
+      if (!enabled_)
+         return;
+
+      // if a request is already in flight, check again once it completes
+      if (requestPending_)
+      {
+         passRequested_ = true;
+         return;
+      }
+
+      TextFileType fileType = docDisplay_.getFileType();
+      if (fileType == null || !fileType.canCheckSpelling())
+      {
+         for (int i = 0, n = rows_.size(); i < n; i++)
+            clearRow(i);
+         return;
+      }
+
+      int rowCount = rows_.size();
+      if (rowCount == 0)
+         return;
+
+      // collect the rows to check: unchecked rows around the viewport
+      // first, followed by other rows edited since the last pass
+      ArrayList<RowState> pending = new ArrayList<RowState>();
+      int first = Math.max(0, docDisplay_.getFirstVisibleRow() - VIEWPORT_MARGIN);
+      int last = Math.min(rowCount - 1, docDisplay_.getLastVisibleRow() + VIEWPORT_MARGIN);
+      collectRows(fileType, first, last, pending);
+
+      if (dirtyStart_ != -1)
+      {
+         int start = Math.min(dirtyStart_, rowCount - 1);
+         int end = Math.min(dirtyEnd_, rowCount - 1);
+
+         if (start < first)
+            collectRows(fileType, start, Math.min(end, first - 1), pending);
+         if (end > last)
+            collectRows(fileType, Math.max(start, last + 1), end, pending);
+
+         // unchecked rows past the limit will be picked up once they
+         // are scrolled into view
+         dirtyStart_ = -1;
+         dirtyEnd_ = -1;
+      }
+
+      if (pending.isEmpty())
+         return;
+
+      // batch up the unique words and check them in a single request
+      LinkedHashSet<String> unique = new LinkedHashSet<String>();
+      for (RowState state : pending)
+         unique.addAll(state.words);
+
+      final ArrayList<RowState> checked = pending;
+      requestPending_ = true;
+      spellChecker_.checkSpelling(
+            new ArrayList<String>(unique),
+            new ServerRequestCallback<SpellCheckerResult>()
+      {
+         @Override
+         public void onResponseReceived(SpellCheckerResult result)
+         {
+            requestPending_ = false;
+            if (enabled_)
+               showMisspellings(checked, result);
+            onRequestCompleted();
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            requestPending_ = false;
+            Debug.logError(error);
+
+            // allow the rows to be checked again on a later pass
+            for (RowState state : checked)
+            {
+               if (!state.invalidated)
+                  rows_.set(state.row, null);
+            }
+            onRequestCompleted();
+         }
+      });
+   }
+
+   private void onRequestCompleted()
+   {
+      if (passRequested_)
+      {
+         passRequested_ = false;
+         schedule();
+      }
+   }
+
+   private void collectRows(TextFileType fileType,
+                            int start,
+                            int end,
+                            ArrayList<RowState> pending)
+   {
+      // walk each contiguous run of unchecked rows with a single iterator
+      int row = start;
+      while (row <= end && pending.size() < MAX_ROWS_PER_PASS)
+      {
+         if (rows_.get(row) != null)
+         {
+            row++;
+            continue;
+         }
+
+         int runStart = row;
+         while (row <= end &&
+                rows_.get(row) == null &&
+                pending.size() + (row - runStart) < MAX_ROWS_PER_PASS)
+         {
+            row++;
+         }
+         int runEnd = row - 1;
+
+         RowState[] states = new RowState[runEnd - runStart + 1];
+         for (int i = runStart; i <= runEnd; i++)
+         {
+            RowState state = new RowState(i);
+            states[i - runStart] = state;
+            rows_.set(i, state);
+            pending.add(state);
+         }
+
+         Iterable<Range> words = docDisplay_.getWords(
+               fileType.getTokenPredicate(),
+               fileType.getCharPredicate(),
+               Position.create(runStart, 0),
+               Position.create(runEnd + 1, 0));
+
+         String line = null;
+         int lineRow = -1;
+         for (Range range : words)
+         {
+            int wordRow = range.getStart().getRow();
+            int startColumn = range.getStart().getColumn();
+            int endColumn = range.getEnd().getColumn();
+
+            // don't worry about pathologically long words
+            if (endColumn - startColumn > MAX_WORD_LENGTH)
+               continue;
+
+            if (wordRow < runStart || wordRow > runEnd)
+               continue;
+
+            if (wordRow != lineRow)
+            {
+               line = docDisplay_.getLine(wordRow);
+               lineRow = wordRow;
+            }
+
+            RowState state = states[wordRow - runStart];
+            state.words.add(line.substring(startColumn, endColumn));
+            state.columns.add(startColumn);
+         }
+      }
+   }
+
+   private void showMisspellings(ArrayList<RowState> states,
+                                 SpellCheckerResult result)
+   {
+      String clazz = LintResources.INSTANCE.styles().error();
+      HashSet<String> incorrect = new HashSet<String>(result.getIncorrect());
+      for (RowState state : states)
+      {
+         // skip rows that were edited while the request was in flight
+         if (state.invalidated)
+            continue;
+
+         for (int i = 0, n = state.words.size(); i < n; i++)
+         {
+            String word = state.words.get(i);
+            if (!incorrect.contains(word))
+               continue;
+
+            int column = state.columns.get(i);
+            AnchoredRange range = docDisplay_.createAnchoredRange(
+                  Position.create(state.row, column),
+                  Position.create(state.row, column + word.length()));
+
+            state.markerRanges.add(range);
+            state.markers.add(docDisplay_.addMarker(range, clazz));
+         }
+
+         // the words themselves are no longer needed once checked
+         state.words = null;
+         state.columns = null;
+      }
+   }
+
+   private static class RowState
+   {
+      public RowState(int row)
+      {
+         this.row = row;
+      }
+
+      public int row;
+      public boolean invalidated = false;
+
+      public ArrayList<String> words = new ArrayList<String>();
+      public ArrayList<Integer> columns = new ArrayList<Integer>();
+
+      public final ArrayList<Integer> markers = new ArrayList<Integer>();
+      public final ArrayList<AnchoredRange> markerRanges =
+            new ArrayList<AnchoredRange>();
+   }
+
+   private final DocDisplay docDisplay_;
+   private final SpellChecker spellChecker_;
+   private final Timer timer_;
+   private final ArrayList<HandlerRegistration> handlers_ =
+         new ArrayList<HandlerRegistration>();
+
+   // per-row results; null entries are rows that have yet to be checked
+   private final ArrayList<RowState> rows_ = new ArrayList<RowState>();
+
+   // range of rows edited since the last pass (-1 if none)
+   private int dirtyStart_ = -1;
+   private int dirtyEnd_ = -1;
+
+   private int lastFirstVisibleRow_ = -1;
+   private int lastLastVisibleRow_ = -1;
+
+   private boolean enabled_ = false;
+   private boolean requestPending_ = false;
+   private boolean passRequested_ = false;
+
+   private UIPrefs prefs_;
+
+   private static final int DELAY_MS = 500;
+   private static final int VIEWPORT_MARGIN = 20;
+   private static final int MAX_ROWS_PER_PASS = 500;
+   private static final int MAX_WORD_LENGTH = 250;
+}
@@ -26,6 +26,7 @@ import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
+import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.command.AppCommand;
 import org.rstudio.core.client.command.CommandBinder;
@@ -359,6 +360,17 @@ public class UrlContentEditingTarget implements EditingTarget
    {
       onCompleted.execute();
    }
+
+   public void save(Command onCompleted, CommandWithArg<String> onFailed)
+   {
+      onCompleted.execute();
+   }
+   
+   @Override
+   public boolean requiresSavePrompt()
+   {
+      return false;
+   }
    
    public void saveWithPrompt(Command onCompleted, Command onCancelled)
    {
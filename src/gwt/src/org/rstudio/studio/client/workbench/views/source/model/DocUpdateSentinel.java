@@ -578,6 +578,40 @@ public class DocUpdateSentinel
       return properties.getString(propertyName);
    }
    
+   public interface PropertyParser<T>
+   {
+      T parse(String value);
+   }
+   
+   // Returns the value of the property as parsed by the given parser (null
+   // if the property isn't set). The parsed value is cached, and reused for
+   // as long as the property's value is unchanged, so callers must treat it
+   // as immutable.
+   @SuppressWarnings("unchecked")
+   public <T> T getParsedProperty(String propertyName, 
+                                  PropertyParser<T> parser)
+   {
+      String value = getProperty(propertyName);
+      if (value == null)
+      {
+         parsedProperties_.remove(propertyName);
+         return null;
+      }
+      
+      ParsedProperty cached = parsedProperties_.get(propertyName);
+      if (cached != null && 
+          cached.parser == parser && 
+          cached.value.equals(value))
+      {
+         return (T)cached.parsed;
+      }
+      
+      T parsed = parser.parse(value);
+      parsedProperties_.put(propertyName, 
+                            new ParsedProperty(value, parser, parsed));
+      return parsed;
+   }
+   
    public void setProperty(String name,
                            String value,
                            ProgressIndicator progress)
@@ -742,6 +776,21 @@ public class DocUpdateSentinel
       return sourceDoc_.getId();
    }
 
+   private static class ParsedProperty
+   {
+      public ParsedProperty(String value, PropertyParser<?> parser, 
+                            Object parsed)
+      {
+         this.value = value;
+         this.parser = parser;
+         this.parsed = parsed;
+      }
+      
+      public final String value;
+      public final PropertyParser<?> parser;
+      public final Object parsed;
+   }
+
    private boolean changesPending_ = false;
    private final ChangeTracker changeTracker_;
    private final SourceServerOperations server_;
@@ -755,4 +804,6 @@ public class DocUpdateSentinel
    private HandlerRegistration lastChanceSaveHandlerReg_;
    private final HashMap<String, ValueChangeHandlerManager<String>> 
                  propertyChangeHandlers_;
+   private final HashMap<String, ParsedProperty> parsedProperties_ =
+         new HashMap<String, ParsedProperty>();
 }
@@ -78,6 +78,18 @@ public class SourceDocument extends JavaScriptObject
       this.contents = contents;
    }-*/;
 
+   /**
+    * A shallow copy of the document without its contents, as kept in the
+    * document registry shared with satellite windows.
+    */
+   public native final SourceDocument withoutContents() /*-{
+      var copy = {};
+      for (var key in this)
+         if (this.hasOwnProperty(key) && key !== "contents")
+            copy[key] = this[key];
+      return copy;
+   }-*/;
+
    /**
     * True if changes have been saved to the ID that have not been persisted
     * to the file.
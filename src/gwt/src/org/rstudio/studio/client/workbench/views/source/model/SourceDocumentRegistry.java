@@ -0,0 +1,71 @@
+/*
+ * SourceDocumentRegistry.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+
+/**
+ * The set of source documents open across all source windows, indexed by 
+ * document ID. The main window owns the registry and exposes it to satellite
+ * windows, so it's a plain JavaScript object rather than a Java collection.
+ * 
+ * The registry holds document metadata; document contents are fetched from
+ * the server when an editor is created.
+ */
+public class SourceDocumentRegistry extends JavaScriptObject
+{
+   protected SourceDocumentRegistry()
+   {
+   }
+   
+   public static final native SourceDocumentRegistry create(
+         JsArray<SourceDocument> docs) /*-{
+      var byId = {};
+      for (var i = 0; i < docs.length; i++)
+         byId[docs[i].id] = docs[i];
+      return { docs: docs, byId: byId };
+   }-*/;
+   
+   // Returns the documents in the order they were opened.
+   public final native JsArray<SourceDocument> getDocs() /*-{
+      return this.docs;
+   }-*/;
+   
+   public final native SourceDocument get(String id) /*-{
+      return Object.prototype.hasOwnProperty.call(this.byId, id) ? 
+         this.byId[id] : null;
+   }-*/;
+   
+   // Adds the document; returns false if a document with the same ID was 
+   // already present.
+   public final native boolean add(SourceDocument doc) /*-{
+      if (Object.prototype.hasOwnProperty.call(this.byId, doc.id))
+         return false;
+      this.byId[doc.id] = doc;
+      this.docs.push(doc);
+      return true;
+   }-*/;
+   
+   public final native void remove(String id) /*-{
+      if (!Object.prototype.hasOwnProperty.call(this.byId, id))
+         return;
+      var doc = this.byId[id];
+      delete this.byId[id];
+      var idx = this.docs.indexOf(doc);
+      if (idx >= 0)
+         this.docs.splice(idx, 1);
+   }-*/;
+}
@@ -14,8 +14,6 @@
  */
 package org.rstudio.studio.client.workbench.views.source.model;
 
-import java.util.LinkedList;
-
 import org.rstudio.core.client.Debug;
 
 import com.google.gwt.dom.client.Document;
@@ -27,6 +25,11 @@ import com.google.gwt.event.shared.HandlerRegistration;
 
 
 
+// The history is kept in a fixed-size ring buffer: adding an entry, going
+// back and going forward are all constant time, and once the buffer is full
+// the oldest entry is overwritten. Entries are plain document id / path /
+// position records; they're resolved to an editor (or reopened from their
+// path) only when navigated to, so they don't keep closed documents alive.
 public class SourceNavigationHistory
 {
    public interface Filter
@@ -37,26 +40,32 @@ public class SourceNavigationHistory
    public SourceNavigationHistory(int maxItems)
    {
       maxItems_ = maxItems;
-      history_ = new LinkedList<SourceNavigation>();
+      history_ = new SourceNavigation[maxItems];
+      start_ = 0;
+      size_ = 0;
       currentLocation_ = -1;
    }
   
    public void add(SourceNavigation navigation)
    {
       // rewind the history to the current location
-      while ( (history_.size() - 1) > currentLocation_)
-         history_.removeLast();
+      truncate(currentLocation_ + 1);
       
       // screen out duplicates
-      if ( (history_.size() == 0) || !history_.getLast().isAtSameRowAs(navigation))
+      if ((size_ == 0) || !get(size_ - 1).isAtSameRowAs(navigation))
       {         
-         // implement capacity restriction
-         if (history_.size() == maxItems_)
-            history_.removeFirst();
+         // implement capacity restriction by overwriting the oldest entry
+         if (size_ == maxItems_)
+         {
+            history_[start_] = null;
+            start_ = (start_ + 1) % maxItems_;
+            size_--;
+         }
          
          // add the item and set the current location
-         history_.add(navigation);
-         currentLocation_ = history_.size() - 1;
+         history_[slot(size_)] = navigation;
+         size_++;
+         currentLocation_ = size_ - 1;
       }
       
       fireChangeEvent();
@@ -65,7 +74,8 @@ public class SourceNavigationHistory
    
    public void clear()
    {
-      history_.clear();
+      truncate(0);
+      start_ = 0;
       currentLocation_ = -1;
       fireChangeEvent();
    }
@@ -77,7 +87,7 @@ public class SourceNavigationHistory
    
    public boolean isForwardEnabled()
    {
-      return currentLocation_ < (history_.size() - 1);
+      return currentLocation_ < (size_ - 1);
    }
    
    public SourceNavigation scanBack(Filter filter)
@@ -87,8 +97,9 @@ public class SourceNavigationHistory
        
        for (int i=currentLocation_; i >= 0; i--)
        {
-          if (filter.includeEntry(history_.get(i)))
-             return history_.get(i);
+          SourceNavigation navigation = get(i);
+          if (filter.includeEntry(navigation))
+             return navigation;
        }
        
        return null;
@@ -99,13 +110,13 @@ public class SourceNavigationHistory
       if (!isBackEnabled())
          return null;
       
-      SourceNavigation navigation = history_.get(currentLocation_--);
+      SourceNavigation navigation = get(currentLocation_--);
       
       // if we have only one more item in the stack and it matches
       // this one then clear the history
       if (isBackEnabled() && 
-          (history_.size() == 1) &&
-          navigation.isAtSameRowAs(history_.get(currentLocation_)))
+          (size_ == 1) &&
+          navigation.isAtSameRowAs(get(currentLocation_)))
       {
          clear();
       }
@@ -121,7 +132,7 @@ public class SourceNavigationHistory
       if (!isForwardEnabled())
          return null;
       
-      SourceNavigation navigation = history_.get(++currentLocation_);
+      SourceNavigation navigation = get(++currentLocation_);
       fireChangeEvent();
       return navigation;
    }
@@ -142,13 +153,33 @@ public class SourceNavigationHistory
    private void debugPrintCurrentHistory()
    {
       Debug.log("HISTORY (location=" + currentLocation_ + ")");
-      for (int i=0; i<history_.size(); i++)
-         Debug.log(history_.get(i).toDebugString());
+      for (int i=0; i<size_; i++)
+         Debug.log(get(i).toDebugString());
       Debug.log("");
    }
   
+   // index (from oldest to newest) to position in the ring buffer
+   private int slot(int index)
+   {
+      return (start_ + index) % maxItems_;
+   }
+   
+   private SourceNavigation get(int index)
+   {
+      return history_[slot(index)];
+   }
+   
+   // drops all entries from the given index onward, releasing them
+   private void truncate(int size)
+   {
+      while (size_ > size)
+         history_[slot(--size_)] = null;
+   }
+  
    private final int maxItems_;
-   private LinkedList<SourceNavigation> history_;
+   private final SourceNavigation[] history_;
+   private int start_;
+   private int size_;
    private int currentLocation_;
    private HandlerManager handlerManager_ = new HandlerManager(this);
 }
@@ -223,6 +223,10 @@ public interface SourceServerOperations extends FilesServerOperations,
    public void getSourceDocument(String docId,
                 ServerRequestCallback<SourceDocument> requestCallback);
    
+   // fetches the given documents, including their contents
+   public void getSourceDocuments(List<String> docIds,
+                ServerRequestCallback<JsArray<SourceDocument>> requestCallback);
+   
    public void createShinyApp(String appName,
                               String appType,
                               String appDir,
@@ -0,0 +1,98 @@
+/*
+ * StyleRunsTest.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import junit.framework.TestCase;
+
+public class StyleRunsTest extends TestCase
+{
+   public void testOverwriteAcrossRuns()
+   {
+      StyleRuns runs = new StyleRuns();
+      runs.set(0, 3, "a");
+      runs.set(3, 6, "b");
+      runs.set(6, 9, "c");
+      
+      runs.set(2, 7, "d");
+      assertRuns(runs, 0, 2, "a", 7, "d", 9, "c");
+      
+      // overwriting with a neighbour's class merges with it
+      runs.set(2, 7, "c");
+      assertRuns(runs, 0, 2, "a", 9, "c");
+   }
+   
+   public void testOverwritePastEnd()
+   {
+      StyleRuns runs = new StyleRuns();
+      runs.set(0, 4, "a");
+      runs.set(4, 6, "b");
+      
+      runs.set(5, 9, "c");
+      assertRuns(runs, 0, 4, "a", 5, "b", 9, "c");
+      assertEquals(9, runs.length());
+      
+      runs.set(2, 12, "a");
+      assertRuns(runs, 0, 12, "a");
+   }
+   
+   public void testDeleteMergesNeighbours()
+   {
+      StyleRuns runs = new StyleRuns();
+      runs.set(0, 2, "a");
+      runs.set(2, 3, "b");
+      runs.set(3, 5, "a");
+      runs.set(5, 6, "c");
+      
+      runs.delete(2);
+      assertRuns(runs, 0, 4, "a", 5, "c");
+      
+      // past the end: no change
+      runs.delete(5);
+      assertRuns(runs, 0, 4, "a", 5, "c");
+   }
+   
+   public void testAppendGap()
+   {
+      StyleRuns runs = new StyleRuns();
+      runs.set(0, 2, "a");
+      
+      runs.set(5, 7, "b");
+      assertRuns(runs, 0, 2, "a", 5, null, 7, "b");
+      assertEquals(1, runs.findRun(4));
+      
+      // a gap after an unclassed run extends it
+      runs.clear();
+      runs.set(0, 2, null);
+      runs.set(4, 5, "x");
+      assertRuns(runs, 0, 4, null, 5, "x");
+   }
+   
+   // Checks the runs against (start, end0, class0, end1, class1, ...).
+   private static void assertRuns(StyleRuns runs, Object... expected)
+   {
+      assertEquals("run count", (expected.length - 1) / 2, runs.getRunCount());
+      
+      int start = (Integer) expected[0];
+      for (int i = 0; i < runs.getRunCount(); i++)
+      {
+         int end = (Integer) expected[2 * i + 1];
+         String clazz = (String) expected[2 * i + 2];
+         assertEquals("start of run " + i, start, runs.getRunStart(i));
+         assertEquals("end of run " + i, end, runs.getRunEnd(i));
+         assertEquals("class of run " + i, clazz, runs.getRunClass(i));
+         start = end;
+      }
+   }
+}
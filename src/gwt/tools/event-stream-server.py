@@ -0,0 +1,279 @@
+#!/usr/bin/env python3
+
+#
+# event-stream-server.py
+#
+# Copyright (C) 2009-16 by RStudio, Inc.
+#
+# This program is licensed to you under the terms of version 3 of the
+# GNU Affero General Public License. This program is distributed WITHOUT
+# ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+# MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+# AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+#
+
+# A local stand-in for the session's client event service, used to compare
+# the throughput and latency of the event transports in
+# org.rstudio.studio.client.server.remote without a running R session.
+#
+# It serves both:
+#
+#   POST /events/get_events     long poll (LongPollEventTransport); held open
+#                               until events are available, then batched
+#                               for up to 20ms as the session does
+#
+#   POST /events/stream_events  persistent stream (StreamingEventTransport);
+#                               one json-rpc response per line, as events
+#                               occur, with an empty heartbeat frame every
+#                               10 seconds and the stream ended after 50
+#
+# Synthetic console_output events are generated at --rate events/second,
+# optionally in bursts. Each event records the time it was generated, so
+# that a client can measure delivery latency.
+#
+# Usage:
+#
+#   event-stream-server.py serve [--port 8788] [--rate 1000] [--burst 50]
+#   event-stream-server.py bench [--rate 1000] [--burst 50] [--seconds 10]
+#
+# 'bench' starts a server and drives both protocols against it in turn with
+# minimal Python clients, reporting events delivered per second and delivery
+# latency for each. This is a baseline for the protocols only.
+#
+# To measure the client's own transports, run 'serve' and open RStudio under
+# SuperDevMode with
+#
+#   ?event_server=http://127.0.0.1:8788&event_transport=stream   (or =poll)
+#
+# The event listener then receives its events from this server instead of
+# the session (see EventServiceDevSwitch) and logs the delivery rate and
+# latency it sees every few seconds.
+
+import argparse
+import http.client
+import http.server
+import json
+import threading
+import time
+
+BATCH_DELAY = 0.02
+MAX_REQUEST_SECONDS = 50
+HEARTBEAT_SECONDS = 10
+
+
+class EventQueue(object):
+
+    def __init__(self):
+        self.cond = threading.Condition()
+        self.events = []
+        self.next_id = 0
+
+    def add(self, count):
+        with self.cond:
+            now = time.time()
+            for _ in range(count):
+                self.events.append({
+                    "id": self.next_id,
+                    "type": "console_output",
+                    "data": {"text": "output line %d\n" % self.next_id,
+                             "ts": now}})
+                self.next_id += 1
+            # keep the backlog bounded if no client is listening
+            if len(self.events) > 100000:
+                del self.events[:len(self.events) - 100000]
+            self.cond.notify_all()
+
+    def wait_for(self, last_id, timeout):
+        # returns the events after last_id, waiting up to timeout seconds
+        # for at least one (and then batching briefly)
+        deadline = time.time() + timeout
+        with self.cond:
+            while not self.pending(last_id):
+                remaining = deadline - time.time()
+                if remaining <= 0:
+                    return []
+                self.cond.wait(remaining)
+        time.sleep(BATCH_DELAY)
+        with self.cond:
+            return self.pending(last_id)
+
+    def pending(self, last_id):
+        return [e for e in self.events if e["id"] > last_id] \
+            if self.events and self.events[-1]["id"] > last_id else []
+
+
+def generate(queue, rate, burst):
+    interval = float(burst) / rate
+    while True:
+        queue.add(burst)
+        time.sleep(interval)
+
+
+def make_handler(queue):
+
+    class Handler(http.server.BaseHTTPRequestHandler):
+        protocol_version = "HTTP/1.1"
+
+        def log_message(self, format, *args):
+            pass
+
+        def end_headers(self):
+            # the client is served from the session's origin
+            self.send_header("Access-Control-Allow-Origin", "*")
+            http.server.BaseHTTPRequestHandler.end_headers(self)
+
+        def do_OPTIONS(self):
+            self.send_response(204)
+            self.send_header("Access-Control-Allow-Methods", "POST")
+            self.send_header("Access-Control-Allow-Headers",
+                             self.headers.get("Access-Control-Request-Headers",
+                                              "Content-Type"))
+            self.send_header("Content-Length", "0")
+            self.end_headers()
+
+        def read_last_id(self):
+            length = int(self.headers.get("Content-Length", 0))
+            request = json.loads(self.rfile.read(length) or b"{}")
+            return request.get("params", [-1])[0]
+
+        def do_POST(self):
+            if self.path.endswith("/events/get_events"):
+                self.get_events()
+            elif self.path.endswith("/events/stream_events"):
+                self.stream_events()
+            else:
+                self.send_error(404)
+
+        def get_events(self):
+            events = queue.wait_for(self.read_last_id(), MAX_REQUEST_SECONDS)
+            body = json.dumps({"result": events, "ep": "false"}).encode()
+            self.send_response(200)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("Content-Length", str(len(body)))
+            self.end_headers()
+            self.wfile.write(body)
+
+        def write_chunk(self, data):
+            self.wfile.write(b"%x\r\n%s\r\n" % (len(data), data))
+            self.wfile.flush()
+
+        def stream_events(self):
+            last_id = self.read_last_id()
+            self.send_response(200)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("Transfer-Encoding", "chunked")
+            self.end_headers()
+            end = time.time() + MAX_REQUEST_SECONDS
+            try:
+                while time.time() < end:
+                    events = queue.wait_for(last_id, HEARTBEAT_SECONDS)
+                    if events:
+                        last_id = events[-1]["id"]
+                    frame = json.dumps({"result": events}) + "\n"
+                    self.write_chunk(frame.encode())
+                self.write_chunk(b"")
+            except (BrokenPipeError, ConnectionResetError):
+                pass
+
+    return Handler
+
+
+def serve(port, rate, burst):
+    queue = EventQueue()
+    generator = threading.Thread(target=generate, args=(queue, rate, burst))
+    generator.daemon = True
+    generator.start()
+    server = http.server.ThreadingHTTPServer(("127.0.0.1", port),
+                                             make_handler(queue))
+    thread = threading.Thread(target=server.serve_forever)
+    thread.daemon = True
+    thread.start()
+    return server
+
+
+class Stats(object):
+
+    def __init__(self):
+        self.count = 0
+        self.latencies = []
+
+    def record(self, events):
+        now = time.time()
+        for event in events:
+            self.count += 1
+            self.latencies.append(now - event["data"]["ts"])
+
+    def report(self, name, seconds):
+        latencies = sorted(self.latencies) or [0]
+        print("%-10s %10.0f events/s   latency mean %6.1fms  p95 %6.1fms" % (
+            name,
+            self.count / seconds,
+            1000 * sum(latencies) / len(latencies),
+            1000 * latencies[int(len(latencies) * 0.95)]))
+
+
+def request(port, method, last_id):
+    connection = http.client.HTTPConnection("127.0.0.1", port)
+    body = json.dumps({"method": method, "params": [last_id]})
+    connection.request("POST", "/events/" + method, body,
+                       {"Content-Type": "application/json"})
+    return connection.getresponse()
+
+
+def bench_long_poll(port, seconds):
+    stats = Stats()
+    last_id = -1
+    end = time.time() + seconds
+    while time.time() < end:
+        events = json.loads(request(port, "get_events", last_id).read())
+        events = events["result"]
+        if events:
+            stats.record(events)
+            last_id = events[-1]["id"]
+    return stats
+
+
+def bench_stream(port, seconds):
+    stats = Stats()
+    last_id = -1
+    end = time.time() + seconds
+    while time.time() < end:
+        response = request(port, "stream_events", last_id)
+        while time.time() < end:
+            line = response.readline()
+            if not line:
+                break
+            events = json.loads(line)["result"]
+            if events:
+                stats.record(events)
+                last_id = events[-1]["id"]
+        response.close()
+    return stats
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("mode", choices=["serve", "bench"])
+    parser.add_argument("--port", type=int, default=8788)
+    parser.add_argument("--rate", type=int, default=1000)
+    parser.add_argument("--burst", type=int, default=50)
+    parser.add_argument("--seconds", type=int, default=10)
+    args = parser.parse_args()
+
+    if args.mode == "serve":
+        serve(args.port, args.rate, args.burst)
+        print("serving client events on http://127.0.0.1:%d" % args.port)
+        while True:
+            time.sleep(3600)
+
+    for name, bench in [("long-poll", bench_long_poll),
+                        ("stream", bench_stream)]:
+        # a fresh server for each transport, so neither sees a backlog
+        server = serve(args.port, args.rate, args.burst)
+        bench(args.port, args.seconds).report(name, args.seconds)
+        server.shutdown()
+        server.server_close()
+
+
+if __name__ == "__main__":
+    main()